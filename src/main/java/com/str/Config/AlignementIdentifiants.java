@@ -0,0 +1,60 @@
+package com.str.Config;
+
+import com.str.Models.Identifiants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Aligne les compteurs de id_generateurs sur les ids déjà présents, avant tout autre traitement de démarrage.
+ * Les tables remplies du temps de l'auto-incrément (ou par un import SQL) ont des ids au-delà de la valeur
+ * initiale du générateur : chaque compteur est relevé à max(id) + TAILLE_BLOC, jamais abaissé.
+ * Relancer est sans effet.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AlignementIdentifiants implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AlignementIdentifiants.class);
+
+    // Valeur de pkColumnValue des @TableGenerator ; chaque entité porte le nom de sa table
+    private static final List<String> TABLES = List.of("dossiers", "carrieres", "paiements", "documents");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public AlignementIdentifiants(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        TABLES.forEach(table -> transactionTemplate.executeWithoutResult(status -> aligner(table)));
+    }
+
+    private void aligner(String table) {
+        long idMax = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        long minimum = idMax + Identifiants.TAILLE_BLOC;
+        List<Long> valeurs = jdbcTemplate.queryForList(
+                "SELECT " + Identifiants.COLONNE_VALEUR + " FROM " + Identifiants.TABLE
+                        + " WHERE " + Identifiants.COLONNE_ENTITE + " = ? FOR UPDATE", Long.class, table);
+        if (valeurs.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO " + Identifiants.TABLE + " (" + Identifiants.COLONNE_ENTITE + ", "
+                    + Identifiants.COLONNE_VALEUR + ") VALUES (?, ?)", table, minimum);
+            log.info("Générateur d'ids {} initialisé à {}", table, minimum);
+        } else if (valeurs.get(0) < minimum) {
+            jdbcTemplate.update("UPDATE " + Identifiants.TABLE + " SET " + Identifiants.COLONNE_VALEUR + " = ? WHERE "
+                    + Identifiants.COLONNE_ENTITE + " = ?", minimum, table);
+            log.info("Générateur d'ids {} relevé de {} à {}", table, valeurs.get(0), minimum);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.str.Config;
+
+import com.str.Repositories.BlobReferenceRepository;
+import com.str.Services.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reprise des documents antérieurs au BlobStore, au démarrage :
+ * - contenu encore stocké dans la colonne documents.contenu (LONGBLOB) ;
+ * - fichier écrit dans app.upload.dir, dont le chemin était conservé dans nom_fichier (seuls les
+ *   chemins situés sous ce répertoire sont repris).
+ * Chaque document est traité isolément (un seul contenu en mémoire à la fois) ; relancer est sans effet.
+ * Les compteurs de références (blob_references) sont calculés une seule fois, tant que la table est vide ;
+ * ensuite chaque document repris ajoute sa référence dans la même transaction que sa mise à jour.
+ */
+@Component
+public class DocumentStorageMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentStorageMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlobStore blobStore;
+    private final BlobReferenceRepository blobReferenceRepository;
+    private final Path repertoireUpload;
+
+    public DocumentStorageMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                    BlobStore blobStore, BlobReferenceRepository blobReferenceRepository,
+                                    @Value("${app.upload.dir:uploads}") String uploadDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.blobStore = blobStore;
+        this.blobReferenceRepository = blobReferenceRepository;
+        this.repertoireUpload = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        initialiserReferences();
+        int depuisColonne = colonneContenuPresente() ? migrerColonneContenu() : 0;
+        int depuisFichiers = migrerFichiers();
+        if (depuisColonne + depuisFichiers > 0) {
+            log.info("Reprise du stockage des documents : {} depuis la colonne contenu, {} depuis des fichiers",
+                    depuisColonne, depuisFichiers);
+        }
+    }
+
+    // Premier démarrage avec blob_references : les compteurs sont ensuite tenus par les ajouts et suppressions
+    private void initialiserReferences() {
+        if (blobReferenceRepository.count() > 0) {
+            return;
+        }
+        int contenus = jdbcTemplate.update("""
+                INSERT INTO blob_references (hash, nombre_references)
+                SELECT content_hash, COUNT(*) FROM documents
+                WHERE content_hash IS NOT NULL
+                GROUP BY content_hash
+                """);
+        if (contenus > 0) {
+            log.info("Compteurs de références initialisés pour {} contenus", contenus);
+        }
+    }
+
+    // Mise à jour du document et référence à son contenu, ensemble
+    private void rattacher(String hash, String sql, Object... parametres) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(sql, parametres);
+            blobReferenceRepository.referencer(hash);
+        });
+    }
+
+    private boolean colonneContenuPresente() {
+        // Schéma de la connexion seulement : une table documents d'une autre base ne compte pas
+        Integer colonnes = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.columns
+                WHERE table_schema = DATABASE() AND LOWER(table_name) = 'documents' AND LOWER(column_name) = 'contenu'
+                """, Integer.class);
+        return colonnes != null && colonnes > 0;
+    }
+
+    private int migrerColonneContenu() {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM documents WHERE contenu IS NOT NULL AND content_hash IS NULL", Long.class);
+        for (Long id : ids) {
+            String hash = jdbcTemplate.query("SELECT contenu FROM documents WHERE id = ?",
+                    (ResultSet rs) -> rs.next() ? stocker(rs.getBinaryStream(1)) : null, id);
+            // La colonne est vidée pour libérer la ligne ; elle n'est plus mappée par l'entité
+            rattacher(hash, "UPDATE documents SET content_hash = ?, contenu = NULL WHERE id = ?", hash, id);
+        }
+        return ids.size();
+    }
+
+    private int migrerFichiers() {
+        int migres = 0;
+        List<Map<String, Object>> lignes = jdbcTemplate.queryForList(
+                "SELECT id, nom, nom_fichier FROM documents WHERE content_hash IS NULL");
+        for (Map<String, Object> ligne : lignes) {
+            Path fichier = cheminExistant((String) ligne.get("nom_fichier"));
+            if (fichier == null) {
+                continue;
+            }
+            try (InputStream contenu = Files.newInputStream(fichier)) {
+                String hash = blobStore.store(contenu);
+                rattacher(hash, "UPDATE documents SET content_hash = ?, nom_fichier = ? WHERE id = ?",
+                        hash, ligne.get("nom"), ligne.get("id"));
+                Files.deleteIfExists(fichier);
+                migres++;
+            } catch (IOException e) {
+                log.warn("Reprise impossible pour le document {} ({})", ligne.get("id"), fichier, e);
+            }
+        }
+        return migres;
+    }
+
+    private String stocker(InputStream contenu) {
+        try (contenu) {
+            return blobStore.store(contenu);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path cheminExistant(String nomFichier) {
+        if (nomFichier == null) {
+            return null;
+        }
+        try {
+            Path chemin = Paths.get(nomFichier).toAbsolutePath().normalize();
+            return chemin.startsWith(repertoireUpload) && Files.isRegularFile(chemin) ? chemin : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.str.Config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Justificatifs attendus dans un dossier, lus sous app.assistant.documents-attendus[i].{libelle,mots-cles}.
+ * Un justificatif est présent si un mot-clé commence un mot du nom, du nom de fichier ou du type d'un document
+ * (comparaison en minuscules, sans accents). Sans configuration, la liste par défaut ci-dessous s'applique.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.assistant")
+public class DocumentsAttendusProperties {
+
+    private List<DocumentAttendu> documentsAttendus = new ArrayList<>(List.of(
+            new DocumentAttendu("Pièce d'identité", List.of("identite", "passeport", "cni")),
+            new DocumentAttendu("Relevé d'identité bancaire", List.of("rib", "releve d identite bancaire", "bancaire")),
+            new DocumentAttendu("Justificatifs de salaire", List.of("bulletin", "fiche de paie", "salaire")),
+            new DocumentAttendu("Attestations d'employeur", List.of("attestation employeur", "certificat de travail",
+                    "contrat de travail")),
+            new DocumentAttendu("Avis d'imposition", List.of("imposition", "impot"))
+    ));
+
+    public List<DocumentAttendu> getDocumentsAttendus() {
+        return documentsAttendus;
+    }
+
+    public void setDocumentsAttendus(List<DocumentAttendu> documentsAttendus) {
+        this.documentsAttendus = documentsAttendus;
+    }
+
+    public static class DocumentAttendu {
+        private String libelle;
+
+        private List<String> motsCles = new ArrayList<>();
+
+        public DocumentAttendu() {
+        }
+
+        public DocumentAttendu(String libelle, List<String> motsCles) {
+            this.libelle = libelle;
+            this.motsCles = new ArrayList<>(motsCles);
+        }
+
+        public String getLibelle() {
+            return libelle;
+        }
+
+        public void setLibelle(String libelle) {
+            this.libelle = libelle;
+        }
+
+        public List<String> getMotsCles() {
+            return motsCles;
+        }
+
+        public void setMotsCles(List<String> motsCles) {
+            this.motsCles = motsCles;
+        }
+    }
+}
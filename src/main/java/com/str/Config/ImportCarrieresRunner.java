@@ -0,0 +1,68 @@
+package com.str.Config;
+
+import com.str.DTO.ImportCarrieresDTO;
+import com.str.Enum.FormatImport;
+import com.str.Services.ImportCarrieresService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Import de carrières au démarrage depuis des fichiers :
+ * --import-carrieres=historiques.csv --import-carrieres=autre-caisse.ndjson.gz
+ * Format déduit de l'extension (.ndjson / .jsonl, sinon CSV), fichiers .gz décompressés à la volée.
+ * Ajouter --spring.main.web-application-type=none pour un import seul, sans serveur HTTP.
+ */
+@Component
+public class ImportCarrieresRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportCarrieresRunner.class);
+    private static final String OPTION = "import-carrieres";
+    private static final int ERREURS_AFFICHEES = 20;
+
+    private final ImportCarrieresService importCarrieresService;
+
+    public ImportCarrieresRunner(ImportCarrieresService importCarrieresService) {
+        this.importCarrieresService = importCarrieresService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<String> fichiers = args.getOptionValues(OPTION);
+        if (fichiers == null) {
+            return;
+        }
+        for (String fichier : fichiers) {
+            Path chemin = Path.of(fichier);
+            String nom = chemin.getFileName().toString().toLowerCase();
+            boolean gzip = nom.endsWith(".gz");
+            if (gzip) {
+                nom = nom.substring(0, nom.length() - 3);
+            }
+            FormatImport format = nom.endsWith(".ndjson") || nom.endsWith(".jsonl") ? FormatImport.NDJSON : FormatImport.CSV;
+
+            log.info("Import des carrières de {} ({})", chemin, format);
+            ImportCarrieresDTO rapport;
+            try (InputStream flux = gzip
+                    ? new GZIPInputStream(Files.newInputStream(chemin), 1 << 16)
+                    : Files.newInputStream(chemin)) {
+                rapport = importCarrieresService.importer(flux, format);
+            }
+            log.info("{} : {} carrières importées, {} lignes rejetées sur {}", chemin,
+                    rapport.carrieresImportees(), rapport.lignesRejetees(), rapport.lignesLues());
+            rapport.erreurs().stream().limit(ERREURS_AFFICHEES).forEach(erreur ->
+                    log.warn("{} ligne {} : {}", chemin, erreur.ligne(), erreur.message()));
+            if (rapport.lignesRejetees() > ERREURS_AFFICHEES) {
+                log.warn("{} : {} autres lignes rejetées", chemin, rapport.lignesRejetees() - ERREURS_AFFICHEES);
+            }
+        }
+    }
+}
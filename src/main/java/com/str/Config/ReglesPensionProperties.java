@@ -0,0 +1,65 @@
+package com.str.Config;
+
+import com.str.Enum.RegimeRetraite;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Règles de pension par régime, lues sous app.pension.regles.&lt;REGIME&gt;.*.
+ * Un régime absent de la configuration reprend la règle par défaut (app.pension.defaut.*).
+ */
+@Component
+@ConfigurationProperties(prefix = "app.pension")
+public class ReglesPensionProperties {
+
+    private Regle defaut = new Regle();
+
+    private Map<RegimeRetraite, Regle> regles = new EnumMap<>(RegimeRetraite.class);
+
+    public Regle regle(RegimeRetraite regime) {
+        return regles.getOrDefault(regime, defaut);
+    }
+
+    public Regle getDefaut() {
+        return defaut;
+    }
+
+    public void setDefaut(Regle defaut) {
+        this.defaut = defaut;
+    }
+
+    public Map<RegimeRetraite, Regle> getRegles() {
+        return regles;
+    }
+
+    public void setRegles(Map<RegimeRetraite, Regle> regles) {
+        this.regles = regles;
+    }
+
+    public static class Regle {
+        // Taux atteint au taux plein, en points de base (5000 = 50 %)
+        private int tauxPleinPointsBase = 5000;
+
+        // Trimestres nécessaires pour le taux plein ; en deçà le taux est proratisé
+        private int trimestresRequis = 160;
+
+        public int getTauxPleinPointsBase() {
+            return tauxPleinPointsBase;
+        }
+
+        public void setTauxPleinPointsBase(int tauxPleinPointsBase) {
+            this.tauxPleinPointsBase = tauxPleinPointsBase;
+        }
+
+        public int getTrimestresRequis() {
+            return trimestresRequis;
+        }
+
+        public void setTrimestresRequis(int trimestresRequis) {
+            this.trimestresRequis = trimestresRequis;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.str.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Date de création des carrières antérieures à la colonne date_creation, au démarrage : la date de création
+ * du dossier, à défaut la date de début de la carrière. Sans elle ces carrières n'apparaîtraient jamais dans
+ * le fil d'activité (ActiviteService). Seules les lignes sans date sont touchées ; relancer est sans effet.
+ */
+@Component
+public class RepriseDatesCreationCarrieres implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RepriseDatesCreationCarrieres.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RepriseDatesCreationCarrieres(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int reprises = jdbcTemplate.update("""
+                UPDATE carrieres SET date_creation = COALESCE(
+                    (SELECT d.date_creation FROM dossiers d WHERE d.id = carrieres.dossier_id), date_debut)
+                WHERE date_creation IS NULL
+                """);
+        if (reprises > 0) {
+            log.info("Date de création reprise pour {} carrières", reprises);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.str.Controllers;
+
+import com.str.DTO.CampagnePaiementDTO;
+import com.str.Services.CampagnePaiementService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/paiements/campagnes")
+@CrossOrigin(origins = "http://localhost:3000")
+public class CampagnePaiementController {
+
+    private final CampagnePaiementService campagnePaiementService;
+
+    public CampagnePaiementController(CampagnePaiementService campagnePaiementService) {
+        this.campagnePaiementService = campagnePaiementService;
+    }
+
+    // Génère les versements de la période (yyyy-MM, mois courant par défaut) ; suivi sur GET /{id}
+    @PostMapping
+    public ResponseEntity<?> demarrer(
+            @RequestParam(required = false) String periode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateVersement) {
+        try {
+            YearMonth mois = periode != null ? YearMonth.parse(periode) : YearMonth.now();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(campagnePaiementService.demarrer(mois, dateVersement));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Période invalide (attendu yyyy-MM): " + periode));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CampagnePaiementDTO>> getCampagnes() {
+        return ResponseEntity.ok(campagnePaiementService.getCampagnes());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getProgression(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(campagnePaiementService.getProgression(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/{id}/reprendre")
+    public ResponseEntity<?> reprendre(@PathVariable Long id) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(campagnePaiementService.reprendre(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/interrompre")
+    public ResponseEntity<?> interrompre(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(campagnePaiementService.interrompre(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
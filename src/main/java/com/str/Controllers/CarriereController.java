@@ -1,24 +1,32 @@
 package com.str.Controllers;
 
 import com.str.DTO.CarriereDTO;
+import com.str.Enum.FormatImport;
 import com.str.Enum.RegimeRetraite;
 import com.str.Services.CarriereService;
+import com.str.Services.ImportCarrieresService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/carrieres")
 @CrossOrigin(origins = "http://localhost:3000")
 public class CarriereController {
     private final CarriereService carriereService;
+    private final ImportCarrieresService importCarrieresService;
 
-    public CarriereController(CarriereService carriereService) {
+    public CarriereController(CarriereService carriereService, ImportCarrieresService importCarrieresService) {
         this.carriereService = carriereService;
+        this.importCarrieresService = importCarrieresService;
     }
 
     @PostMapping
@@ -44,6 +52,26 @@ public class CarriereController {
         }
     }
 
+    /*
+     * Import de masse : le corps de la requête (CSV avec en-tête ou NDJSON) est lu en flux, sans être chargé
+     * en mémoire ni passer par le multipart. Format déduit du Content-Type si le paramètre est absent.
+     * Exemple : curl --data-binary @carrieres.csv -H 'Content-Type: text/csv' .../api/carrieres/import
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importer(@RequestParam(required = false) String format, HttpServletRequest request) {
+        try {
+            FormatImport formatImport = format != null
+                    ? FormatImport.valueOf(format.toUpperCase(Locale.ROOT))
+                    : (request.getContentType() != null && request.getContentType().contains("json")
+                        ? FormatImport.NDJSON : FormatImport.CSV);
+            return ResponseEntity.ok(importCarrieresService.importer(request.getInputStream(), formatImport));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Lecture du flux impossible: " + e.getMessage()));
+        }
+    }
+
     @GetMapping
     public ResponseEntity<List<CarriereDTO>> getAll() {
         try {
@@ -5,6 +5,9 @@ import com.str.Models.Document;
 import com.str.Services.DocumentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -14,6 +17,12 @@ import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.validation.Valid;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
@@ -33,10 +42,11 @@ public class DocumentController {
 public ResponseEntity<?> uploadDocumentWithPath(
         @PathVariable Long dossierId,
         @RequestParam("file") MultipartFile file,
-        @RequestParam(value = "description", required = false) String description) {
+        @RequestParam(value = "description", required = false) String description,
+        @RequestParam(value = "sha256", required = false) String sha256) {
     try {
         log.info("Tentative d'upload d'un document pour le dossier {}", dossierId);
-        DocumentDTO response = documentService.uploadDocument(dossierId, file, description);
+        DocumentDTO response = documentService.uploadDocument(dossierId, file, description, sha256);
         return ResponseEntity.ok(Map.of(
             "success", true,
             "document", response
@@ -60,10 +70,11 @@ public ResponseEntity<?> uploadDocumentWithPath(
 public ResponseEntity<?> uploadDocument(
         @RequestParam("dossierId") Long dossierId,
         @RequestParam("file") MultipartFile file,
-        @RequestParam(value = "description", required = false) String description) {
+        @RequestParam(value = "description", required = false) String description,
+        @RequestParam(value = "sha256", required = false) String sha256) {
     try {
         log.info("Tentative d'upload d'un document pour le dossier {}", dossierId);
-        DocumentDTO response = documentService.uploadDocument(dossierId, file, description);
+        DocumentDTO response = documentService.uploadDocument(dossierId, file, description, sha256);
         return ResponseEntity.ok(Map.of(
             "success", true,
             "document", response
@@ -112,23 +123,52 @@ public ResponseEntity<?> uploadDocument(
         }
     }
 
+   /*
+    * Le contenu est renvoyé comme Resource : Spring le recopie par tampon fixe depuis le BlobStore et
+    * gère Range (206) ainsi que If-None-Match / If-Modified-Since (304) à partir de l'ETag et de Last-Modified.
+    */
    @GetMapping("/{id}/download")
-public ResponseEntity<byte[]> downloadDocument(@PathVariable Long id) {
+public ResponseEntity<Resource> downloadDocument(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
     try {
         Document document = documentService.getDocumentEntityById(id);
-        byte[] content = document.getContenu();
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                       "attachment; filename=\"" + document.getNomFichier() + "\"")
+        Resource content = documentService.downloadDocument(document);
+        String etag = "\"" + document.getContentHash() + "\"";
+        Instant lastModified = document.getDateUpload().atZone(ZoneId.systemDefault()).toInstant();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                // Nom encodé (RFC 5987) : ni injection d'en-tête ni nom non ASCII altéré
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(document.getNomFichier(), StandardCharsets.UTF_8).build().toString())
                 .contentType(MediaType.parseMediaType(document.getTypeMime()))
-                .contentLength(content.length)
-                .body(content);
+                .eTag(etag)
+                .lastModified(lastModified);
+
+        if (ifRange != null && !ifRangeValide(ifRange, etag, lastModified)) {
+            // Validateur périmé : contenu complet ; Spring n'applique pas Range à un InputStreamResource
+            return response.contentLength(content.contentLength())
+                    .body(new InputStreamResource(content.getInputStream()));
+        }
+        return response.body(content);
     } catch (Exception e) {
         log.error("Erreur lors du téléchargement: {}", e.getMessage());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 }
 
+    // If-Range porte soit un ETag fort, soit une date HTTP (comparée à la seconde)
+    private static boolean ifRangeValide(String ifRange, String etag, Instant lastModified) {
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            Instant date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return date.getEpochSecond() == lastModified.getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
 
 @DeleteMapping("/{id}")
 public ResponseEntity<?> deleteDocument(@PathVariable Long id) {
@@ -1,12 +1,18 @@
 package com.str.Controllers;
 
+import com.str.DTO.CursorPageDTO;
 import com.str.DTO.DossierDTO;
+import com.str.DTO.DossierResumeDTO;
+import com.str.Enum.RegimeRetraite;
 import com.str.Enum.StatutDossier;
+import com.str.Enum.VueDossier;
 import com.str.Services.DossierService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,23 +51,50 @@ public class DossierController {
 
     @GetMapping
     public ResponseEntity<List<DossierDTO>> getAll(
-            @RequestParam(required = false) StatutDossier statut) {
+            @RequestParam(required = false) StatutDossier statut,
+            @RequestParam(defaultValue = "full") String view) {
         try {
+            VueDossier vue = VueDossier.fromCode(view);
             if (statut != null) {
-                return ResponseEntity.ok(dossierService.getDossiersByStatut(statut));
+                return ResponseEntity.ok(dossierService.getDossiersByStatut(statut, vue));
             } else {
-                return ResponseEntity.ok(dossierService.getAllDossiers());
+                return ResponseEntity.ok(dossierService.getAllDossiers(vue));
             }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<?> getPage(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) StatutDossier statut,
+            @RequestParam(required = false) RegimeRetraite regime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin,
+            @RequestParam(required = false) String nom) {
+        try {
+            CursorPageDTO<DossierResumeDTO> page = dossierService.getDossiersPage(limit, cursor, statut, regime,
+                    dateDebut, dateFin, nom);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     @GetMapping("/statut/{statut}")
-    public ResponseEntity<List<DossierDTO>> getByStatut(@PathVariable StatutDossier statut) {
+    public ResponseEntity<List<DossierDTO>> getByStatut(@PathVariable StatutDossier statut,
+                                                        @RequestParam(defaultValue = "full") String view) {
         try {
-            List<DossierDTO> dossiers = dossierService.getDossiersByStatut(statut);
+            List<DossierDTO> dossiers = dossierService.getDossiersByStatut(statut, VueDossier.fromCode(view));
             return ResponseEntity.ok(dossiers);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -75,8 +108,9 @@ public class DossierController {
             Map<String, Object> response = new HashMap<>();
 
             // Récupérer le montant depuis le Map
-            Double montant = (Double) result.get("montant");
-            response.put("montant", Math.round(montant));
+            Number montant = (Number) result.get("montant");
+            response.put("montant", Math.round(montant.doubleValue()));
+            response.put("montantMensuel", result.get("montantMensuel"));
 
             // Récupérer les détails depuis le Map
             @SuppressWarnings("unchecked")
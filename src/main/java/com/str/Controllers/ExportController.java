@@ -0,0 +1,104 @@
+package com.str.Controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.str.Enum.FormatExport;
+import com.str.Enum.RegimeRetraite;
+import com.str.Enum.StatutDossier;
+import com.str.Services.ExportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/exports")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ExportController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType APPLICATION_GZIP = new MediaType("application", "gzip");
+
+    private final ExportService exportService;
+    private final ObjectMapper objectMapper;
+
+    public ExportController(ExportService exportService, ObjectMapper objectMapper) {
+        this.exportService = exportService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/dossiers")
+    public ResponseEntity<StreamingResponseBody> exporterDossiers(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) StatutDossier statut,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return exporter("dossiers", format, gzip, (f, sortie) -> exportService.exporterDossiers(statut, f, sortie));
+    }
+
+    @GetMapping("/carrieres")
+    public ResponseEntity<StreamingResponseBody> exporterCarrieres(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) RegimeRetraite regime,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return exporter("carrieres", format, gzip, (f, sortie) -> exportService.exporterCarrieres(regime, f, sortie));
+    }
+
+    // periode au format yyyy-MM (paiements des campagnes mensuelles)
+    @GetMapping("/paiements")
+    public ResponseEntity<StreamingResponseBody> exporterPaiements(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String periode,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return exporter("paiements", format, gzip, (f, sortie) -> exportService.exporterPaiements(periode, f, sortie));
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        long ecrire(FormatExport format, OutputStream sortie) throws IOException;
+    }
+
+    /*
+     * Le corps est écrit hors du thread de la requête, au fil de la lecture en base (fichier joint,
+     * compressé en gzip sur demande). Une erreur en cours d'export ne peut plus changer le statut :
+     * la réponse est interrompue.
+     */
+    private ResponseEntity<StreamingResponseBody> exporter(String nom, String format, boolean gzip, Export export) {
+        FormatExport formatExport;
+        try {
+            formatExport = FormatExport.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return erreur(HttpStatus.BAD_REQUEST, "Format d'export invalide (ndjson ou csv): " + format);
+        }
+        String fichier = nom + (formatExport == FormatExport.CSV ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        StreamingResponseBody corps = sortie -> {
+            if (gzip) {
+                GZIPOutputStream compression = new GZIPOutputStream(sortie, 1 << 16);
+                export.ecrire(formatExport, compression);
+                compression.finish();
+            } else {
+                export.ecrire(formatExport, sortie);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? APPLICATION_GZIP
+                        : formatExport == FormatExport.CSV ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fichier).build().toString())
+                .body(corps);
+    }
+
+    // Le type de retour impose un corps en flux : l'erreur y est écrite en une fois
+    private ResponseEntity<StreamingResponseBody> erreur(HttpStatus statut, String message) {
+        return ResponseEntity.status(statut)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(sortie -> objectMapper.writeValue(sortie, Map.of("error", message)));
+    }
+}
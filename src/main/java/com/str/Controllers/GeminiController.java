@@ -1,8 +1,22 @@
 package com.str.Controllers;
 
+import com.str.DTO.ContexteDossierDTO;
+import com.str.DTO.IntentionDTO;
+import com.str.DTO.ReponseChatDTO;
+import com.str.Services.ContexteDossierService;
+import com.str.Services.GeminiService;
+import com.str.Services.ReponseCache;
+import com.str.Services.ReponsesPredefinies;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.util.Map;
 
 @RestController
@@ -11,78 +25,102 @@ import java.util.Map;
 
 public class GeminiController {
 
-    @PostMapping("/chat")
-    public ResponseEntity<Map<String, String>> chat(@RequestBody Map<String, String> request) {
-        String message = request.get("message");
-
-        // Simulation d'une réponse du chatbot Gemini
-        String response = generateResponse(message);
-
-        return ResponseEntity.ok(Map.of("message", response));
+    private final GeminiService geminiService;
+    private final ReponseCache reponseCache;
+    private final ReponsesPredefinies reponsesPredefinies;
+    private final ContexteDossierService contexteDossierService;
+
+    public GeminiController(GeminiService geminiService, ReponseCache reponseCache,
+                            ReponsesPredefinies reponsesPredefinies, ContexteDossierService contexteDossierService) {
+        this.geminiService = geminiService;
+        this.reponseCache = reponseCache;
+        this.reponsesPredefinies = reponsesPredefinies;
+        this.contexteDossierService = contexteDossierService;
     }
 
-    private String generateResponse(String message) {
-        if (message == null || message.trim().isEmpty()) {
-            return "Je n'ai pas compris votre message. Pouvez-vous reformuler ?";
-        }
-
-        String lowerMessage = message.toLowerCase().trim();
-
-        // Réponses basiques
-        if (lowerMessage.equals("oui") || lowerMessage.equals("yes")) {
-            return "Parfait ! Comment puis-je vous aider davantage ?";
-        }
-
-        if (lowerMessage.equals("non") || lowerMessage.equals("no")) {
-            return "D'accord, avez-vous d'autres questions ?";
-        }
-
-        if (lowerMessage.contains("bonjour") || lowerMessage.contains("salut") || lowerMessage.contains("hello")) {
-            return "Bonjour ! Je suis votre assistant virtuel pour les questions de retraite. Comment puis-je vous aider ?";
-        }
-
-        if (lowerMessage.contains("merci") || lowerMessage.contains("thank")) {
-            return "Je vous en prie ! N'hésitez pas si vous avez d'autres questions.";
-        }
+    // Traitement asynchrone : le thread de la requête est libéré pendant l'appel au modèle
+    @PostMapping("/chat")
+    public Mono<ResponseEntity<ReponseChatDTO>> chat(@RequestBody Map<String, String> request) {
+        return geminiService.repondre(request.get("message")).map(ResponseEntity::ok);
+    }
 
-        // Questions sur la retraite
-        if (lowerMessage.contains("retraite") || lowerMessage.contains("pension")) {
-            return "Je peux vous aider avec vos questions sur la retraite. Voulez-vous savoir comment calculer votre pension, connaître vos droits, ou autre chose ?";
-        }
+    // Réponse relayée au fil de la génération (événements fragment, puis fin ou erreur)
+    @PostMapping(value = "/chat/flux", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> chatEnFlux(@RequestBody Map<String, String> request) {
+        return geminiService.repondreEnFlux(request.get("message"));
+    }
 
-        if (lowerMessage.contains("calcul") || lowerMessage.contains("calculer")) {
-            return "Pour calculer votre pension de retraite, nous prenons en compte vos trimestres validés, votre salaire moyen et votre âge de départ. Avez-vous une question spécifique sur le calcul ?";
+    // Question sur un dossier : le prompt porte le résumé du dossier, la réponse n'est jamais mise en cache
+    @PostMapping("/dossiers/{dossierId}/chat")
+    public Mono<ResponseEntity<?>> chatDossier(@PathVariable Long dossierId, @RequestBody Map<String, String> request) {
+        String message = request.get("message");
+        try {
+            String prompt = contexteDossierService.construirePrompt(dossierId, message);
+            return geminiService.repondreAvecContexte(message, prompt).<ResponseEntity<?>>map(ResponseEntity::ok);
+        } catch (EntityNotFoundException e) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage())));
         }
+    }
 
-        if (lowerMessage.contains("trimestre")) {
-            return "Les trimestres sont des périodes de cotisation qui déterminent vos droits à la retraite. Il faut généralement 160 à 172 trimestres pour une retraite à taux plein selon votre année de naissance.";
+    @PostMapping(value = "/dossiers/{dossierId}/chat/flux", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> chatDossierEnFlux(@PathVariable Long dossierId,
+                                                                           @RequestBody Map<String, String> request) {
+        String message = request.get("message");
+        try {
+            String prompt = contexteDossierService.construirePrompt(dossierId, message);
+            return ResponseEntity.ok(geminiService.repondreEnFluxAvecContexte(message, prompt));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
         }
+    }
 
-        if (lowerMessage.contains("âge") || lowerMessage.contains("age")) {
-            return "L'âge légal de départ à la retraite varie selon votre année de naissance. Il est généralement entre 62 et 67 ans. Voulez-vous plus de détails ?";
+    // Résumé transmis au modèle pour ce dossier, tel qu'en cache
+    @GetMapping("/dossiers/{dossierId}/contexte")
+    public ResponseEntity<?> getContexte(@PathVariable Long dossierId) {
+        try {
+            ContexteDossierDTO contexte = contexteDossierService.getContexte(dossierId);
+            return ResponseEntity.ok(contexte);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
         }
+    }
 
-        if (lowerMessage.contains("dossier")) {
-            return "Concernant votre dossier de retraite, vous pouvez consulter son statut, ajouter des documents ou suivre l'avancement de votre demande. Que souhaitez-vous faire ?";
-        }
+    @GetMapping("/contexte/etat")
+    public ResponseEntity<Map<String, Object>> getEtatContexte() {
+        return ResponseEntity.ok(contexteDossierService.getStatistiques());
+    }
 
-        if (lowerMessage.contains("document")) {
-            return "Vous pouvez télécharger vos documents justificatifs (bulletins de salaire, attestations, etc.) dans votre dossier. Avez-vous besoin d'aide pour l'upload ?";
-        }
+    // État du disjoncteur et des appels au modèle
+    @GetMapping("/etat")
+    public ResponseEntity<Map<String, Object>> getEtat() {
+        return ResponseEntity.ok(geminiService.getStatistiques());
+    }
 
-        if (lowerMessage.contains("carrière") || lowerMessage.contains("carriere")) {
-            return "Votre carrière professionnelle influence le calcul de votre retraite. Vous pouvez consulter et mettre à jour vos périodes d'emploi dans votre dossier.";
-        }
+    // Intention reconnue par les réponses prédéfinies, pour vérifier une définition
+    @GetMapping("/intentions")
+    public ResponseEntity<IntentionDTO> classer(@RequestParam String message) {
+        return ResponseEntity.ok(reponsesPredefinies.classer(message));
+    }
 
-        if (lowerMessage.contains("paiement")) {
-            return "Vous pouvez consulter l'historique de vos paiements de pension et vérifier les montants versés. Avez-vous une question spécifique ?";
-        }
+    @GetMapping("/intentions/etat")
+    public ResponseEntity<Map<String, Object>> getEtatIntentions() {
+        return ResponseEntity.ok(reponsesPredefinies.getStatistiques());
+    }
 
-        if (lowerMessage.contains("aide") || lowerMessage.contains("help")) {
-            return "Je peux vous aider avec :\n- Le calcul de votre pension\n- La gestion de votre dossier\n- Les questions sur vos droits\n- L'upload de documents\n\nQue souhaitez-vous savoir ?";
+    // Relit la définition des intentions ; refusée si invalide (l'ancienne reste active)
+    @PostMapping("/intentions/rechargement")
+    public ResponseEntity<?> rechargerIntentions() {
+        try {
+            return ResponseEntity.ok(reponsesPredefinies.recharger());
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Définition des intentions invalide: " + e.getMessage()));
         }
+    }
 
-        // Réponse par défaut
-        return "Je comprends votre question sur '" + message + "'. Pour des questions spécifiques sur votre dossier de retraite, n'hésitez pas à consulter votre espace personnel ou à contacter notre service client.";
+    // Oublie les réponses mémorisées (changement de modèle ou de consignes)
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> viderCache() {
+        reponseCache.vider();
+        return ResponseEntity.noContent().build();
     }
 }
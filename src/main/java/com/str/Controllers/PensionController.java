@@ -0,0 +1,88 @@
+package com.str.Controllers;
+
+import com.str.DTO.CampagnePensionDTO;
+import com.str.DTO.PensionCalculeeDTO;
+import com.str.Services.CampagnePensionService;
+import com.str.Services.PensionCache;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/pensions")
+@CrossOrigin(origins = "http://localhost:3000")
+public class PensionController {
+
+    private final CampagnePensionService campagnePensionService;
+    private final PensionCache pensionCache;
+
+    public PensionController(CampagnePensionService campagnePensionService,
+                             PensionCache pensionCache) {
+        this.campagnePensionService = campagnePensionService;
+        this.pensionCache = pensionCache;
+    }
+
+    // Lance le calcul de tous les dossiers ; la progression se suit sur GET /campagnes/{id}
+    @PostMapping("/campagnes")
+    public ResponseEntity<?> demarrer() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(campagnePensionService.demarrer());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/campagnes")
+    public ResponseEntity<List<CampagnePensionDTO>> getCampagnes() {
+        return ResponseEntity.ok(campagnePensionService.getCampagnes());
+    }
+
+    @GetMapping("/campagnes/{id}")
+    public ResponseEntity<?> getProgression(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(campagnePensionService.getProgression(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/campagnes/{id}/reprendre")
+    public ResponseEntity<?> reprendre(@PathVariable Long id) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(campagnePensionService.reprendre(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/campagnes/{id}/interrompre")
+    public ResponseEntity<?> interrompre(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(campagnePensionService.interrompre(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Dernier résultat calculé pour un dossier
+    @GetMapping("/dossiers/{dossierId}")
+    public ResponseEntity<PensionCalculeeDTO> getPensionCalculee(@PathVariable Long dossierId) {
+        return campagnePensionService.getPensionCalculee(dossierId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Taille, taux de succès et évictions du cache des pensions
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getStatistiquesCache() {
+        return ResponseEntity.ok(pensionCache.getStatistiques());
+    }
+}
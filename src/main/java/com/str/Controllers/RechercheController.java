@@ -0,0 +1,64 @@
+package com.str.Controllers;
+
+import com.str.Enum.TypeRecherche;
+import com.str.Services.ExtractionTexteService;
+import com.str.Services.RechercheService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "http://localhost:3000")
+public class RechercheController {
+
+    private final RechercheService rechercheService;
+    private final ExtractionTexteService extractionTexteService;
+
+    public RechercheController(RechercheService rechercheService, ExtractionTexteService extractionTexteService) {
+        this.rechercheService = rechercheService;
+        this.extractionTexteService = extractionTexteService;
+    }
+
+    // Bénéficiaires, carrières et documents classés par pertinence ; type restreint à une catégorie
+    @GetMapping
+    public ResponseEntity<?> rechercher(
+            @RequestParam String q,
+            @RequestParam(required = false) TypeRecherche type,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int taille) {
+        try {
+            return ResponseEntity.ok(rechercheService.rechercher(q, type, page, taille));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Index de recherche illisible: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/index")
+    public ResponseEntity<Map<String, Object>> getStatistiques() {
+        return ResponseEntity.ok(rechercheService.getStatistiques());
+    }
+
+    // Extraction du texte des contenus : pool, file d'attente, contenus traités par statut
+    @GetMapping("/extraction")
+    public ResponseEntity<Map<String, Object>> getStatistiquesExtraction() {
+        return ResponseEntity.ok(extractionTexteService.getStatistiques());
+    }
+
+    // Reconstruit l'index à partir de la base, en arrière-plan (suivi sur GET /index)
+    @PostMapping("/index/reconstruction")
+    public ResponseEntity<?> reconstruire() {
+        try {
+            rechercheService.demanderReconstruction();
+            return ResponseEntity.accepted().body(rechercheService.getStatistiques());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.str.Controllers;
 
+import com.str.DTO.ActiviteDTO;
+import com.str.DTO.CursorPageDTO;
+import com.str.Services.ActiviteService;
 import com.str.Services.ReportingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -15,13 +18,32 @@ public class ReportingController {
     @Autowired
     private ReportingService reportingService;
 
+    @Autowired
+    private ActiviteService activiteService;
+
     @GetMapping("/dashboard-stats")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
         return ResponseEntity.ok(reportingService.getDashboardStatistics());
     }
 
     @GetMapping("/monthly-stats")
-    public ResponseEntity<Map<String, Object>> getMonthlyStats() {
-        return ResponseEntity.ok(reportingService.getMonthlyStatistics());
+    public ResponseEntity<Map<String, Object>> getMonthlyStats(@RequestParam(defaultValue = "12") int months) {
+        try {
+            return ResponseEntity.ok(reportingService.getMonthlyStatistics(months));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/recent-activities")
+    public ResponseEntity<?> getRecentActivities(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor) {
+        try {
+            CursorPageDTO<ActiviteDTO> activites = activiteService.getActivites(limit, cursor);
+            return ResponseEntity.ok(activites);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 }
@@ -0,0 +1,60 @@
+package com.str.Controllers;
+
+import com.str.DTO.SimulationDTO;
+import com.str.Services.SimulationService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/simulations")
+@CrossOrigin(origins = "http://localhost:3000")
+public class SimulationController {
+
+    private final SimulationService simulationService;
+    private final long delaiMs;
+
+    public SimulationController(SimulationService simulationService,
+                                @Value("${app.simulation.delai-ms:30000}") long delaiMs) {
+        this.simulationService = simulationService;
+        this.delaiMs = delaiMs;
+    }
+
+    /*
+     * Un scénario par ligne (application/x-ndjson), envoyés au fil du calcul.
+     * Dossier et grille sont validés avant l'ouverture du flux : les erreurs gardent leur statut HTTP.
+     */
+    @PostMapping("/dossiers/{dossierId}")
+    public ResponseEntity<ResponseBodyEmitter> simuler(@PathVariable Long dossierId, @RequestBody SimulationDTO grille)
+            throws IOException {
+        SimulationService.Simulation simulation;
+        try {
+            simulation = simulationService.preparer(dossierId, grille);
+        } catch (EntityNotFoundException e) {
+            return erreur(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return erreur(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(delaiMs);
+        simulationService.executer(simulation, emitter);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header("X-Scenarios", String.valueOf(simulation.nombreScenarios()))
+                .body(emitter);
+    }
+
+    // Le type de retour impose un émetteur : l'erreur y est écrite en une fois
+    private static ResponseEntity<ResponseBodyEmitter> erreur(HttpStatus statut, String message) throws IOException {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        emitter.send(Map.of("error", message), MediaType.APPLICATION_JSON);
+        emitter.complete();
+        return ResponseEntity.status(statut).contentType(MediaType.APPLICATION_JSON).body(emitter);
+    }
+}
@@ -0,0 +1,113 @@
+package com.str.Controllers;
+
+import com.str.DTO.DocumentDTO;
+import com.str.DTO.UploadInitDTO;
+import com.str.DTO.UploadStatutDTO;
+import com.str.Services.UploadMorceauxService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Upload reprenable par morceaux :
+ * POST /api/documents/uploads                         ouverture (dossierId, nom, typeMime, taille, sha256)
+ * PUT  /api/documents/uploads/{uploadId}?offset=N     corps brut du morceau commençant à l'octet N
+ *                                                     (en-tête X-Morceau-Sha256 facultatif : empreinte du morceau)
+ * GET  /api/documents/uploads/{uploadId}              morceaux reçus / manquants
+ * POST /api/documents/uploads/{uploadId}/complete     vérification SHA-256 et rattachement au dossier ; en cas
+ *                                                     d'écart, les morceaux à renvoyer redeviennent manquants
+ * DELETE /api/documents/uploads/{uploadId}            abandon
+ */
+@RestController
+@RequestMapping("/api/documents/uploads")
+@CrossOrigin(origins = "http://localhost:3000", allowCredentials = "true")
+public class UploadController {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadController.class);
+    private final UploadMorceauxService uploadMorceauxService;
+
+    public UploadController(UploadMorceauxService uploadMorceauxService) {
+        this.uploadMorceauxService = uploadMorceauxService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> ouvrir(@RequestBody UploadInitDTO init) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadMorceauxService.ouvrir(init));
+        } catch (Exception e) {
+            return erreur(e);
+        }
+    }
+
+    @PutMapping(value = "/{uploadId}", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<?> envoyerMorceau(@PathVariable String uploadId,
+                                            @RequestParam long offset,
+                                            @RequestHeader(value = "X-Morceau-Sha256", required = false) String empreinte,
+                                            HttpServletRequest request) {
+        try (InputStream corps = request.getInputStream()) {
+            UploadStatutDTO statut = uploadMorceauxService.ecrireMorceau(uploadId, offset, corps, empreinte);
+            return ResponseEntity.ok(statut);
+        } catch (Exception e) {
+            return erreur(e);
+        }
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> getStatut(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(uploadMorceauxService.getStatut(uploadId));
+        } catch (Exception e) {
+            return erreur(e);
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<?> terminer(@PathVariable String uploadId) {
+        try {
+            DocumentDTO document = uploadMorceauxService.terminer(uploadId);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "document", document
+            ));
+        } catch (Exception e) {
+            return erreur(e);
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<?> annuler(@PathVariable String uploadId) {
+        try {
+            uploadMorceauxService.annuler(uploadId);
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return erreur(e);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> erreur(Exception e) {
+        HttpStatus status;
+        if (e instanceof NoSuchElementException || e instanceof EntityNotFoundException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (e instanceof IllegalStateException) {
+            status = HttpStatus.CONFLICT;
+        } else if (e instanceof IllegalArgumentException) {
+            status = HttpStatus.BAD_REQUEST;
+        } else {
+            log.error("Erreur lors de l'upload par morceaux: {}", e.getMessage(), e);
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        return ResponseEntity.status(status).body(Map.of(
+            "success", false,
+            "message", String.valueOf(e.getMessage())
+        ));
+    }
+}
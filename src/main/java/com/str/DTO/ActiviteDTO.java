@@ -0,0 +1,14 @@
+package com.str.DTO;
+
+import com.str.Enum.TypeActivite;
+
+import java.time.LocalDateTime;
+
+public record ActiviteDTO(
+        TypeActivite type,
+        String description,
+        LocalDateTime date,
+        Long entityId,
+        Long dossierId
+) {
+}
@@ -0,0 +1,24 @@
+package com.str.DTO;
+
+import com.str.Enum.StatutCampagne;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record CampagnePaiementDTO(
+        Long id,
+        String periode,
+        LocalDate dateVersement,
+        StatutCampagne statut,
+        long totalDossiers,
+        long dossiersTraites,
+        long paiementsCrees,
+        BigDecimal montantTotal,
+        double pourcentage,
+        double dossiersParSeconde,
+        LocalDateTime dateDebut,
+        LocalDateTime dateFin,
+        String message
+) {
+}
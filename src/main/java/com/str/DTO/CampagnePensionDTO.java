@@ -0,0 +1,18 @@
+package com.str.DTO;
+
+import com.str.Enum.StatutCampagne;
+
+import java.time.LocalDateTime;
+
+public record CampagnePensionDTO(
+        Long id,
+        StatutCampagne statut,
+        long totalDossiers,
+        long dossiersTraites,
+        double pourcentage,
+        double dossiersParSeconde,
+        LocalDateTime dateDebut,
+        LocalDateTime dateFin,
+        String message
+) {
+}
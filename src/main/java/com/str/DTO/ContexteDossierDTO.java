@@ -0,0 +1,25 @@
+package com.str.DTO;
+
+import com.str.Enum.StatutDossier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// Résumé d'un dossier transmis à l'assistant : ni identité du bénéficiaire ni numéro de sécurité sociale
+public record ContexteDossierDTO(
+        Long dossierId,
+        StatutDossier statut,
+        LocalDate dateCreation,
+        long nombreCarrieres,
+        long carrieresEnCours,
+        int trimestresValides,
+        BigDecimal pensionMensuelleEstimee,
+        BigDecimal tauxPension,
+        List<Versement> derniersPaiements,
+        long nombreDocuments,
+        List<String> documentsManquants
+) {
+
+    public record Versement(String periode, BigDecimal montant, LocalDate dateVersement, String statut) {}
+}
@@ -0,0 +1,10 @@
+package com.str.DTO;
+
+import java.util.List;
+
+// Page d'une pagination par curseur : nextCursor est null lorsqu'il n'y a plus d'éléments
+public record CursorPageDTO<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
@@ -20,6 +20,7 @@ public class DocumentDTO {
     private String description;
     private Long tailleFichier;
     private Long dossierId;
+    private String contentHash;
 
     // Getters/Setters explicites pour DocumentDTO principal
     public Long getId() { return id; }
@@ -49,6 +50,10 @@ public class DocumentDTO {
     public Long getDossierId() { return dossierId; }
     public void setDossierId(Long dossierId) { this.dossierId = dossierId; }
 
+    // Empreinte SHA-256 du contenu (identique pour deux fichiers identiques)
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -91,6 +96,26 @@ public class DocumentDTO {
         public void setDescription(String description) { this.description = description; }
     }
 
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Update {
+        // Seules les métadonnées sont modifiables ; les champs null sont ignorés
+        private String nom;
+        private String type;
+        private String description;
+
+        // Getters/Setters explicites
+        public String getNom() { return nom; }
+        public void setNom(String nom) { this.nom = nom; }
+
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -104,6 +129,7 @@ public class DocumentDTO {
         private String description;
         private Long tailleFichier;
         private Long dossierId;
+        private String contentHash;
         private String extension;
         private Boolean isPdf;
         private Boolean isImage;
@@ -137,6 +163,9 @@ public class DocumentDTO {
         public Long getDossierId() { return dossierId; }
         public void setDossierId(Long dossierId) { this.dossierId = dossierId; }
 
+        public String getContentHash() { return contentHash; }
+        public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
         public String getExtension() { return extension; }
         public void setExtension(String extension) { this.extension = extension; }
 
@@ -0,0 +1,16 @@
+package com.str.DTO;
+
+import com.str.Enum.StatutDossier;
+
+import java.time.LocalDate;
+
+// Projection légère d'un dossier pour les listes paginées (sans carrières, paiements ni documents)
+public record DossierResumeDTO(
+        Long id,
+        String numeroSecuriteSociale,
+        String nom,
+        String prenom,
+        StatutDossier statut,
+        LocalDate dateCreation
+) {
+}
@@ -0,0 +1,17 @@
+package com.str.DTO;
+
+import java.util.List;
+
+public record ImportCarrieresDTO(
+        long lignesLues,
+        long carrieresImportees,
+        long lignesRejetees,
+        long dossiersModifies,
+        long dureeMs,
+        List<ErreurLigne> erreurs,
+        boolean erreursTronquees
+) {
+    // Numéro de ligne dans le fichier (en-tête CSV compris) et motif du rejet
+    public record ErreurLigne(long ligne, String message) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.str.DTO;
+
+// Intention reconnue dans un message ; intention null si aucune ne correspond (réponse par défaut)
+public record IntentionDTO(
+        String intention,
+        double score,
+        String reponse
+) {
+}
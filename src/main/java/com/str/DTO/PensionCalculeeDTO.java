@@ -0,0 +1,16 @@
+package com.str.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Dernière pension calculée pour un dossier par une campagne
+public record PensionCalculeeDTO(
+        Long dossierId,
+        Long campagneId,
+        BigDecimal salaireMoyenAnnuel,
+        int trimestresValides,
+        BigDecimal tauxPension,
+        BigDecimal montant,
+        LocalDateTime dateCalcul
+) {
+}
@@ -0,0 +1,15 @@
+package com.str.DTO;
+
+import java.util.List;
+
+// Page de résultats classés par pertinence ; total est un minorant lorsque totalExact vaut false
+public record RechercheDTO(
+        String requete,
+        long total,
+        boolean totalExact,
+        int page,
+        int taille,
+        double dureeMs,
+        List<ResultatRechercheDTO> resultats
+) {
+}
@@ -0,0 +1,11 @@
+package com.str.DTO;
+
+import com.str.Enum.SourceReponse;
+
+// Réponse de l'assistant ; source CACHE si déjà générée pour une question identique ou proche,
+// REGLES quand le modèle n'a pas pu répondre (repli)
+public record ReponseChatDTO(
+        String message,
+        SourceReponse source
+) {
+}
@@ -0,0 +1,13 @@
+package com.str.DTO;
+
+import com.str.Enum.TypeRecherche;
+
+public record ResultatRechercheDTO(
+        TypeRecherche type,
+        Long id,
+        Long dossierId,
+        String titre,
+        String detail,
+        float score
+) {
+}
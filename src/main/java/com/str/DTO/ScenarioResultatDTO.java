@@ -0,0 +1,19 @@
+package com.str.DTO;
+
+import java.math.BigDecimal;
+
+// Une ligne NDJSON du flux de simulation ; index = rang du scénario dans la grille
+public record ScenarioResultatDTO(
+        int index,
+        Integer ageDepart,
+        int trimestresSupplementaires,
+        double croissanceSalaire,
+        int trimestresRachetes,
+        int trimestresValides,
+        BigDecimal salaireMoyenAnnuel,
+        BigDecimal tauxPension,
+        BigDecimal pensionAnnuelle,
+        BigDecimal pensionMensuelle,
+        BigDecimal coutRachat
+) {
+}
@@ -0,0 +1,12 @@
+package com.str.DTO;
+
+import java.util.List;
+
+// Grille d'hypothèses : chaque combinaison des quatre listes est un scénario (liste absente = valeur neutre)
+public record SimulationDTO(
+        List<Integer> agesDepart,
+        List<Integer> trimestresSupplementaires,
+        List<Double> croissancesSalaire,
+        List<Integer> trimestresRachetes
+) {
+}
@@ -0,0 +1,55 @@
+package com.str.DTO;
+
+import com.str.Enum.StatutDossier;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+public record StatistiquesDashboardDTO(
+        long totalDossiers,
+        Map<StatutDossier, Long> dossiersParStatut,
+        long totalCarrieres,
+        BigDecimal sommeSalaires,
+        long totalPaiements,
+        BigDecimal montantTotalPaiements,
+        long totalDocuments
+) {
+    // Normalisation pour que deux instantanés (mémoire / base) soient comparables avec equals
+    public StatistiquesDashboardDTO {
+        Map<StatutDossier, Long> parStatut = new EnumMap<>(StatutDossier.class);
+        for (StatutDossier statut : StatutDossier.values()) {
+            parStatut.put(statut, dossiersParStatut != null ? dossiersParStatut.getOrDefault(statut, 0L) : 0L);
+        }
+        dossiersParStatut = Map.copyOf(parStatut);
+        sommeSalaires = normaliser(sommeSalaires);
+        montantTotalPaiements = normaliser(montantTotalPaiements);
+    }
+
+    public BigDecimal salaireMoyen() {
+        return totalCarrieres == 0
+                ? BigDecimal.ZERO
+                : sommeSalaires.divide(BigDecimal.valueOf(totalCarrieres), 2, RoundingMode.HALF_UP);
+    }
+
+    // Format historique de /api/reporting/dashboard-stats
+    public Map<String, Object> toMap() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalDossiers", totalDossiers);
+        stats.put("dossiersEnCours", dossiersParStatut.get(StatutDossier.EN_COURS));
+        stats.put("dossiersValides", dossiersParStatut.get(StatutDossier.VALIDE));
+        stats.put("dossiersRejetes", dossiersParStatut.get(StatutDossier.REJETE));
+        stats.put("totalCarrieres", totalCarrieres);
+        stats.put("salaireMoyen", salaireMoyen());
+        stats.put("totalPaiements", totalPaiements);
+        stats.put("montantTotalPaiements", montantTotalPaiements);
+        stats.put("totalDocuments", totalDocuments);
+        return stats;
+    }
+
+    private static BigDecimal normaliser(BigDecimal valeur) {
+        return (valeur != null ? valeur : BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,12 @@
+package com.str.DTO;
+
+// Ouverture d'un upload par morceaux : taille et SHA-256 du fichier complet sont annoncés d'emblée
+public record UploadInitDTO(
+        Long dossierId,
+        String nom,
+        String typeMime,
+        Long taille,
+        String sha256,
+        String description
+) {
+}
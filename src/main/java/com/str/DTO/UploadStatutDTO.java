@@ -0,0 +1,15 @@
+package com.str.DTO;
+
+import java.util.List;
+
+// État d'un upload par morceaux : le morceau i couvre [i * tailleMorceau, min((i + 1) * tailleMorceau, taille))
+public record UploadStatutDTO(
+        String uploadId,
+        long taille,
+        int tailleMorceau,
+        int nombreMorceaux,
+        long octetsRecus,
+        List<Integer> morceauxManquants,
+        boolean complet
+) {
+}
@@ -0,0 +1,6 @@
+package com.str.Enum;
+
+public enum FormatExport {
+    NDJSON,
+    CSV
+}
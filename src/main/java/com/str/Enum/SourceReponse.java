@@ -0,0 +1,7 @@
+package com.str.Enum;
+
+public enum SourceReponse {
+    GEMINI,
+    CACHE,
+    REGLES
+}
@@ -0,0 +1,8 @@
+package com.str.Enum;
+
+public enum StatutCampagne {
+    EN_COURS,
+    INTERROMPUE,
+    TERMINEE,
+    ECHOUEE
+}
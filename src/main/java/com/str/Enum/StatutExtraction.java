@@ -0,0 +1,8 @@
+package com.str.Enum;
+
+public enum StatutExtraction {
+    EXTRAIT,
+    VIDE,
+    NON_SUPPORTE,
+    ECHEC
+}
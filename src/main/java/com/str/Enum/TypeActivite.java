@@ -0,0 +1,9 @@
+package com.str.Enum;
+
+// L'ordre de déclaration départage les activités de même date dans le fil d'activité
+public enum TypeActivite {
+    CARRIERE_AJOUTEE,
+    PAIEMENT_VERSE,
+    DOCUMENT_UPLOAD,
+    DOSSIER_CREE
+}
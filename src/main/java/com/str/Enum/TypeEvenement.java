@@ -0,0 +1,7 @@
+package com.str.Enum;
+
+public enum TypeEvenement {
+    CREATION,
+    MODIFICATION,
+    SUPPRESSION
+}
@@ -0,0 +1,7 @@
+package com.str.Enum;
+
+public enum TypeRecherche {
+    DOSSIER,
+    CARRIERE,
+    DOCUMENT
+}
@@ -0,0 +1,27 @@
+package com.str.Enum;
+
+// Plan de chargement d'un dossier : détermine les collections lues et renvoyées
+public enum VueDossier {
+    RESUME("summary"),
+    AVEC_CARRIERES("with-careers"),
+    COMPLET("full");
+
+    private final String code;
+
+    VueDossier(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public static VueDossier fromCode(String code) {
+        for (VueDossier vue : values()) {
+            if (vue.code.equalsIgnoreCase(code) || vue.name().equalsIgnoreCase(code)) {
+                return vue;
+            }
+        }
+        throw new IllegalArgumentException("Vue inconnue: " + code + " (valeurs possibles: summary, with-careers, full)");
+    }
+}
@@ -0,0 +1,16 @@
+package com.str.Events;
+
+import com.str.Enum.TypeEvenement;
+
+import java.math.BigDecimal;
+
+// Publié par CarriereService (et DossierService lors d'une suppression en cascade)
+public record CarriereEvent(
+        TypeEvenement type,
+        Long carriereId,
+        Long dossierId,
+        String entreprise,
+        BigDecimal ancienSalaire,
+        BigDecimal nouveauSalaire
+) {
+}
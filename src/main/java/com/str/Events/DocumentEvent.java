@@ -0,0 +1,13 @@
+package com.str.Events;
+
+import com.str.Enum.TypeEvenement;
+
+// Publié par DocumentService (et DossierService lors d'une suppression en cascade)
+public record DocumentEvent(
+        TypeEvenement type,
+        Long documentId,
+        Long dossierId,
+        String nom,
+        String contentHash
+) {
+}
@@ -0,0 +1,14 @@
+package com.str.Events;
+
+import com.str.Enum.StatutDossier;
+import com.str.Enum.TypeEvenement;
+
+// Publié par DossierService après chaque création, modification ou suppression d'un dossier
+public record DossierEvent(
+        TypeEvenement type,
+        Long dossierId,
+        String numeroSecuriteSociale,
+        StatutDossier ancienStatut,
+        StatutDossier nouveauStatut
+) {
+}
@@ -0,0 +1,12 @@
+package com.str.Events;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+// Publié par ImportCarrieresService pour chaque lot de carrières importé (un seul événement par lot)
+public record LotCarrieresEvent(
+        int nombreCarrieres,
+        BigDecimal sommeSalaires,
+        Set<Long> dossierIds
+) {
+}
@@ -0,0 +1,14 @@
+package com.str.Events;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+// Publié par CampagnePaiementService pour chaque lot de versements inséré (un seul événement par lot)
+public record LotPaiementsEvent(
+        Long campagneId,
+        String periode,
+        int nombrePaiements,
+        BigDecimal montantTotal,
+        Set<Long> dossierIds
+) {
+}
@@ -0,0 +1,16 @@
+package com.str.Events;
+
+import com.str.Enum.TypeEvenement;
+
+import java.math.BigDecimal;
+
+// Publié par PaiementService après chaque création, modification ou suppression d'un paiement
+public record PaiementEvent(
+        TypeEvenement type,
+        Long paiementId,
+        Long dossierId,
+        String reference,
+        BigDecimal ancienMontant,
+        BigDecimal nouveauMontant
+) {
+}
@@ -0,0 +1,14 @@
+package com.str.Events;
+
+import com.str.Enum.StatutExtraction;
+
+import java.util.List;
+
+// Publié par ExtractionTexteService quand le texte d'un contenu est enregistré (dossiers des documents qui le partagent)
+public record TexteExtraitEvent(
+        String contentHash,
+        StatutExtraction statut,
+        int caracteres,
+        List<Long> dossierIds
+) {
+}
@@ -16,6 +16,7 @@ public interface CarriereMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "dossier", ignore = true)
+    @Mapping(target = "dateCreation", ignore = true)
     @Mapping(target = "dateDebut", expression = "java(dto.getDateDebut() != null ? java.time.LocalDate.parse(dto.getDateDebut()) : null)")
     @Mapping(target = "dateFin", expression = "java(dto.getDateFin() != null && !dto.getDateFin().isEmpty() ? java.time.LocalDate.parse(dto.getDateFin()) : null)")
     @Mapping(target = "salaireMoyen", expression = "java(dto.getSalaireMoyen() != null ? java.math.BigDecimal.valueOf(dto.getSalaireMoyen()) : null)")
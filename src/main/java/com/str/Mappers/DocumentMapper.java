@@ -22,6 +22,7 @@ public class DocumentMapper {
         response.setDescription(document.getDescription());
         response.setDossierId(document.getDossier() != null ? document.getDossier().getId() : null);
         response.setTailleFichier(document.getTailleFichier());
+        response.setContentHash(document.getContentHash());
 
         // Méthodes utilitaires pour déterminer le type de fichier
         response.setExtension(getFileExtension(document.getNomFichier()));
@@ -42,13 +43,12 @@ public class DocumentMapper {
         document.setNomFichier(dto.getNomFichier());
         document.setType(dto.getType());
         document.setTypeMime(dto.getTypeMime());
-        document.setContenu(dto.getContenu());
         document.setDescription(dto.getDescription());
         // Note: tailleFichier sera calculé depuis le contenu ou défini dans le service
         if (dto.getContenu() != null) {
             document.setTailleFichier((long) dto.getContenu().length);
         }
-        // Les autres champs (id, dossier, dateUpload) seront définis dans le service
+        // Les autres champs (id, dossier, dateUpload, contentHash) seront définis dans le service
 
         return document;
     }
@@ -68,6 +68,7 @@ public class DocumentMapper {
         dto.setDescription(document.getDescription());
         dto.setTailleFichier(document.getTailleFichier());
         dto.setDossierId(document.getDossier() != null ? document.getDossier().getId() : null);
+        dto.setContentHash(document.getContentHash());
 
         return dto;
     }
@@ -1,6 +1,7 @@
 package com.str.Mappers;
 
 import com.str.DTO.DossierDTO;
+import com.str.Enum.VueDossier;
 import com.str.Models.DossierRetraite;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -21,9 +22,33 @@ public interface DossierMapper {
     @Mapping(target = "age", expression = "java(calculateAge(entity))")
     DossierDTO toDto(DossierRetraite entity);
 
+    // Vue "summary" : aucune collection n'est touchée, donc aucun chargement paresseux
     @Mapping(target = "carrieres", ignore = true)
     @Mapping(target = "paiements", ignore = true)
     @Mapping(target = "documents", ignore = true)
+    @Mapping(target = "pensionMensuelle", ignore = true)
+    @Mapping(target = "age", expression = "java(calculateAge(entity))")
+    DossierDTO toSummaryDto(DossierRetraite entity);
+
+    // Vue "with-careers" : seules les carrières sont mappées
+    @Mapping(target = "paiements", ignore = true)
+    @Mapping(target = "documents", ignore = true)
+    @Mapping(target = "pensionMensuelle", ignore = true)
+    @Mapping(target = "age", expression = "java(calculateAge(entity))")
+    DossierDTO toDtoWithCarrieres(DossierRetraite entity);
+
+    default DossierDTO toDto(DossierRetraite entity, VueDossier vue) {
+        return switch (vue) {
+            case RESUME -> toSummaryDto(entity);
+            case AVEC_CARRIERES -> toDtoWithCarrieres(entity);
+            case COMPLET -> toDto(entity);
+        };
+    }
+
+    @Mapping(target = "carrieres", ignore = true)
+    @Mapping(target = "paiements", ignore = true)
+    @Mapping(target = "documents", ignore = true)
+    @Mapping(target = "versionCarrieres", ignore = true)
     DossierRetraite toEntity(DossierDTO dto);
 
     default Integer calculateAge(DossierRetraite entity) {
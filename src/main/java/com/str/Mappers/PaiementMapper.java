@@ -17,6 +17,7 @@ public interface PaiementMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "dossier", ignore = true)
+    @Mapping(target = "periode", ignore = true)
     @Mapping(target = "typePaiement", source = "typePaiement")
     @Mapping(target = "dateVersement", source = "dateVersement")
     @Mapping(target = "datePaiement", source = "datePaiement")
@@ -0,0 +1,69 @@
+package com.str.Models;
+
+import jakarta.persistence.*;
+
+// Morceau d'un contenu stocké en base (backend app.storage.backend=database)
+@Entity
+@Table(name = "blob_chunks", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_blob_chunks_hash_numero", columnNames = {"hash", "numero"})
+})
+public class BlobChunk {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private int numero;
+
+    @Column(nullable = false)
+    private int taille;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] donnees;
+
+    public BlobChunk() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public int getNumero() {
+        return numero;
+    }
+
+    public void setNumero(int numero) {
+        this.numero = numero;
+    }
+
+    public int getTaille() {
+        return taille;
+    }
+
+    public void setTaille(int taille) {
+        this.taille = taille;
+    }
+
+    public byte[] getDonnees() {
+        return donnees;
+    }
+
+    public void setDonnees(byte[] donnees) {
+        this.donnees = donnees;
+    }
+}
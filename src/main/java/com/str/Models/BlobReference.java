@@ -0,0 +1,38 @@
+package com.str.Models;
+
+import jakarta.persistence.*;
+
+// Nombre de documents pointant vers un contenu du BlobStore ; le contenu est libéré à zéro
+@Entity
+@Table(name = "blob_references")
+public class BlobReference {
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(name = "nombre_references", nullable = false)
+    private long nombreReferences;
+
+    public BlobReference() {}
+
+    public BlobReference(String hash, long nombreReferences) {
+        this.hash = hash;
+        this.nombreReferences = nombreReferences;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public long getNombreReferences() {
+        return nombreReferences;
+    }
+
+    public void setNombreReferences(long nombreReferences) {
+        this.nombreReferences = nombreReferences;
+    }
+}
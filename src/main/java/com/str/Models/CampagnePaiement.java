@@ -0,0 +1,152 @@
+package com.str.Models;
+
+import com.str.Enum.StatutCampagne;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Campagne de versement mensuel des pensions : une période (yyyy-MM), un point de reprise avancé à chaque lot validé
+@Entity
+@Table(name = "campagnes_paiement", indexes = {
+        @Index(name = "idx_campagnes_paiement_periode", columnList = "periode")
+})
+public class CampagnePaiement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 7)
+    private String periode;
+
+    @Column(name = "date_versement", nullable = false)
+    private LocalDate dateVersement;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatutCampagne statut;
+
+    // Plus grand id de dossier déjà traité ; la reprise repart de l'id suivant
+    @Column(name = "dernier_dossier_id", nullable = false)
+    private Long dernierDossierId = 0L;
+
+    @Column(name = "dossiers_traites", nullable = false)
+    private long dossiersTraites;
+
+    @Column(name = "total_dossiers", nullable = false)
+    private long totalDossiers;
+
+    @Column(name = "paiements_crees", nullable = false)
+    private long paiementsCrees;
+
+    @Column(name = "montant_total", precision = 15, scale = 2, nullable = false)
+    private BigDecimal montantTotal = BigDecimal.ZERO;
+
+    @Column(name = "date_debut", nullable = false)
+    private LocalDateTime dateDebut;
+
+    @Column(name = "date_fin")
+    private LocalDateTime dateFin;
+
+    @Column(length = 1000)
+    private String message;
+
+    public CampagnePaiement() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPeriode() {
+        return periode;
+    }
+
+    public void setPeriode(String periode) {
+        this.periode = periode;
+    }
+
+    public LocalDate getDateVersement() {
+        return dateVersement;
+    }
+
+    public void setDateVersement(LocalDate dateVersement) {
+        this.dateVersement = dateVersement;
+    }
+
+    public StatutCampagne getStatut() {
+        return statut;
+    }
+
+    public void setStatut(StatutCampagne statut) {
+        this.statut = statut;
+    }
+
+    public Long getDernierDossierId() {
+        return dernierDossierId;
+    }
+
+    public void setDernierDossierId(Long dernierDossierId) {
+        this.dernierDossierId = dernierDossierId;
+    }
+
+    public long getDossiersTraites() {
+        return dossiersTraites;
+    }
+
+    public void setDossiersTraites(long dossiersTraites) {
+        this.dossiersTraites = dossiersTraites;
+    }
+
+    public long getTotalDossiers() {
+        return totalDossiers;
+    }
+
+    public void setTotalDossiers(long totalDossiers) {
+        this.totalDossiers = totalDossiers;
+    }
+
+    public long getPaiementsCrees() {
+        return paiementsCrees;
+    }
+
+    public void setPaiementsCrees(long paiementsCrees) {
+        this.paiementsCrees = paiementsCrees;
+    }
+
+    public BigDecimal getMontantTotal() {
+        return montantTotal;
+    }
+
+    public void setMontantTotal(BigDecimal montantTotal) {
+        this.montantTotal = montantTotal;
+    }
+
+    public LocalDateTime getDateDebut() {
+        return dateDebut;
+    }
+
+    public void setDateDebut(LocalDateTime dateDebut) {
+        this.dateDebut = dateDebut;
+    }
+
+    public LocalDateTime getDateFin() {
+        return dateFin;
+    }
+
+    public void setDateFin(LocalDateTime dateFin) {
+        this.dateFin = dateFin;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,104 @@
+package com.str.Models;
+
+import com.str.Enum.StatutCampagne;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Campagne de calcul des pensions : le point de reprise avance à chaque lot validé
+@Entity
+@Table(name = "campagnes_pension")
+public class CampagnePension {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatutCampagne statut;
+
+    // Plus grand id de dossier déjà calculé ; la reprise repart de l'id suivant
+    @Column(name = "dernier_dossier_id", nullable = false)
+    private Long dernierDossierId = 0L;
+
+    @Column(name = "dossiers_traites", nullable = false)
+    private long dossiersTraites;
+
+    @Column(name = "total_dossiers", nullable = false)
+    private long totalDossiers;
+
+    @Column(name = "date_debut", nullable = false)
+    private LocalDateTime dateDebut;
+
+    @Column(name = "date_fin")
+    private LocalDateTime dateFin;
+
+    @Column(length = 1000)
+    private String message;
+
+    public CampagnePension() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public StatutCampagne getStatut() {
+        return statut;
+    }
+
+    public void setStatut(StatutCampagne statut) {
+        this.statut = statut;
+    }
+
+    public Long getDernierDossierId() {
+        return dernierDossierId;
+    }
+
+    public void setDernierDossierId(Long dernierDossierId) {
+        this.dernierDossierId = dernierDossierId;
+    }
+
+    public long getDossiersTraites() {
+        return dossiersTraites;
+    }
+
+    public void setDossiersTraites(long dossiersTraites) {
+        this.dossiersTraites = dossiersTraites;
+    }
+
+    public long getTotalDossiers() {
+        return totalDossiers;
+    }
+
+    public void setTotalDossiers(long totalDossiers) {
+        this.totalDossiers = totalDossiers;
+    }
+
+    public LocalDateTime getDateDebut() {
+        return dateDebut;
+    }
+
+    public void setDateDebut(LocalDateTime dateDebut) {
+        this.dateDebut = dateDebut;
+    }
+
+    public LocalDateTime getDateFin() {
+        return dateFin;
+    }
+
+    public void setDateFin(LocalDateTime dateFin) {
+        this.dateFin = dateFin;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -5,12 +5,18 @@ import jakarta.persistence.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "carrieres")
+@Table(name = "carrieres", indexes = {
+        @Index(name = "idx_carrieres_date_creation", columnList = "date_creation")
+})
 public class Carriere {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "carrieres_ids")
+    @TableGenerator(name = "carrieres_ids", table = Identifiants.TABLE, pkColumnName = Identifiants.COLONNE_ENTITE,
+            valueColumnName = Identifiants.COLONNE_VALEUR, pkColumnValue = "carrieres",
+            allocationSize = Identifiants.TAILLE_BLOC)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -39,6 +45,9 @@ public class Carriere {
     @Column(name = "trimestres_valides")
     private Integer trimestresValides;
 
+    @Column(name = "date_creation", updatable = false)
+    private LocalDateTime dateCreation = LocalDateTime.now();
+
     // Constructeurs
     public Carriere() {}
 
@@ -129,6 +138,14 @@ public class Carriere {
         this.trimestresValides = trimestresValides;
     }
 
+    public LocalDateTime getDateCreation() {
+        return dateCreation;
+    }
+
+    public void setDateCreation(LocalDateTime dateCreation) {
+        this.dateCreation = dateCreation;
+    }
+
     // Méthodes pour compatibilité avec le frontend
     public String getEmployeur() {
         return entreprise;
@@ -5,10 +5,16 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_documents_date_upload", columnList = "date_upload"),
+        @Index(name = "idx_documents_content_hash", columnList = "content_hash")
+})
 public class Document {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "documents_ids")
+    @TableGenerator(name = "documents_ids", table = Identifiants.TABLE, pkColumnName = Identifiants.COLONNE_ENTITE,
+            valueColumnName = Identifiants.COLONNE_VALEUR, pkColumnValue = "documents",
+            allocationSize = Identifiants.TAILLE_BLOC)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -27,9 +33,9 @@ public class Document {
     @Column(nullable = false)
     private String typeMime;
 
-    @Lob
-    @Column(columnDefinition = "LONGBLOB")
-    private byte[] contenu;
+    // Empreinte SHA-256 du contenu dans le BlobStore ; les octets ne sont jamais chargés avec l'entité
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
 
     @Column(nullable = false)
     private LocalDateTime dateUpload;
@@ -44,7 +50,7 @@ public class Document {
     public Document() {}
 
     public Document(Long id, DossierRetraite dossier, String nom, String nomFichier,
-                   String type, String typeMime, byte[] contenu, LocalDateTime dateUpload,
+                   String type, String typeMime, String contentHash, LocalDateTime dateUpload,
                    String description, Long tailleFichier) {
         this.id = id;
         this.dossier = dossier;
@@ -52,7 +58,7 @@ public class Document {
         this.nomFichier = nomFichier;
         this.type = type;
         this.typeMime = typeMime;
-        this.contenu = contenu;
+        this.contentHash = contentHash;
         this.dateUpload = dateUpload;
         this.description = description;
         this.tailleFichier = tailleFichier;
@@ -107,12 +113,12 @@ public class Document {
         this.typeMime = typeMime;
     }
 
-    public byte[] getContenu() {
-        return contenu;
+    public String getContentHash() {
+        return contentHash;
     }
 
-    public void setContenu(byte[] contenu) {
-        this.contenu = contenu;
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
     }
 
     public LocalDateTime getDateUpload() {
@@ -2,6 +2,7 @@ package com.str.Models;
 import com.str.Enum.StatutDossier;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -11,13 +12,23 @@ import java.util.UUID;
 
 
 @Entity
-@Table(name = "dossiers")
+@NamedEntityGraph(name = DossierRetraite.GRAPHE_CARRIERES, attributeNodes = @NamedAttributeNode("carrieres"))
+@Table(name = "dossiers", indexes = {
+        @Index(name = "idx_dossiers_statut", columnList = "statut"),
+        @Index(name = "idx_dossiers_date_creation", columnList = "date_creation"),
+        @Index(name = "idx_dossiers_nom", columnList = "nom")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class DossierRetraite {
+    public static final String GRAPHE_CARRIERES = "DossierRetraite.carrieres";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "dossiers_ids")
+    @TableGenerator(name = "dossiers_ids", table = Identifiants.TABLE, pkColumnName = Identifiants.COLONNE_ENTITE,
+            valueColumnName = Identifiants.COLONNE_VALEUR, pkColumnValue = "dossiers",
+            allocationSize = Identifiants.TAILLE_BLOC)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -41,6 +52,12 @@ public class DossierRetraite {
     @Column(updatable = false)
     private LocalDate dateCreation = LocalDate.now();
 
+    // Incrémentée à chaque modification des carrières : tampon de version du cache des pensions.
+    // Écrite uniquement par DossierRepository.marquerCarrieresModifiees (jamais par la mise à jour de l'entité)
+    @Column(name = "version_carrieres", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long versionCarrieres;
+
     public void updateFrom(DossierRetraite source) {
         if (source.getBeneficiaire() != null) {
             this.beneficiaire = source.getBeneficiaire();
@@ -117,6 +134,14 @@ public class DossierRetraite {
         this.dateCreation = dateCreation;
     }
 
+    public long getVersionCarrieres() {
+        return versionCarrieres;
+    }
+
+    public void setVersionCarrieres(long versionCarrieres) {
+        this.versionCarrieres = versionCarrieres;
+    }
+
     // Méthode pour mettre à jour le statut
     public void updateStatut(StatutDossier nouveauStatut) {
         this.statut = nouveauStatut;
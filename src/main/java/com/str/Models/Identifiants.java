@@ -0,0 +1,17 @@
+package com.str.Models;
+
+/**
+ * Génération des identifiants des entités créées en volume (dossiers, carrières, paiements, documents).
+ * Une ligne par entité dans la table id_generateurs ; chaque accès réserve un bloc de TAILLE_BLOC ids
+ * distribués ensuite en mémoire (optimiseur pooled), ce qui laisse Hibernate regrouper les insertions en batch JDBC.
+ */
+public final class Identifiants {
+
+    public static final String TABLE = "id_generateurs";
+    public static final String COLONNE_ENTITE = "entite";
+    public static final String COLONNE_VALEUR = "prochain_id";
+    public static final int TAILLE_BLOC = 50;
+
+    private Identifiants() {
+    }
+}
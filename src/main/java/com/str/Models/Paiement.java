@@ -6,10 +6,16 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "paiements")
+@Table(name = "paiements", indexes = {
+        @Index(name = "idx_paiements_date_versement", columnList = "date_versement"),
+        @Index(name = "uk_paiements_periode_dossier", columnList = "periode, dossier_id", unique = true)
+})
 public class Paiement {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "paiements_ids")
+    @TableGenerator(name = "paiements_ids", table = Identifiants.TABLE, pkColumnName = Identifiants.COLONNE_ENTITE,
+            valueColumnName = Identifiants.COLONNE_VALEUR, pkColumnValue = "paiements",
+            allocationSize = Identifiants.TAILLE_BLOC)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,6 +42,10 @@ public class Paiement {
     @Column(name = "date_execution")
     private LocalDate dateExecution;
 
+    // Période (yyyy-MM) des versements générés par campagne ; vide pour un paiement saisi à l'unité
+    @Column(length = 7)
+    private String periode;
+
     // Constructeurs
     public Paiement() {}
 
@@ -139,4 +149,12 @@ public class Paiement {
     public Long getDossierId() {
         return dossier != null ? dossier.getId() : null;
     }
-}
\ No newline at end of file
+
+    public String getPeriode() {
+        return periode;
+    }
+
+    public void setPeriode(String periode) {
+        this.periode = periode;
+    }
+}
@@ -0,0 +1,93 @@
+package com.str.Models;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Dernier résultat de calcul de pension d'un dossier (écrit par lots JDBC par CampagnePensionService)
+@Entity
+@Table(name = "pensions_calculees", indexes = {
+        @Index(name = "idx_pensions_calculees_campagne", columnList = "campagne_id")
+})
+public class PensionCalculee {
+    @Id
+    @Column(name = "dossier_id")
+    private Long dossierId;
+
+    @Column(name = "campagne_id")
+    private Long campagneId;
+
+    @Column(name = "salaire_moyen_annuel", precision = 12, scale = 2, nullable = false)
+    private BigDecimal salaireMoyenAnnuel;
+
+    @Column(name = "trimestres_valides", nullable = false)
+    private int trimestresValides;
+
+    @Column(name = "taux_pension", precision = 5, scale = 2, nullable = false)
+    private BigDecimal tauxPension;
+
+    @Column(precision = 12, scale = 2, nullable = false)
+    private BigDecimal montant;
+
+    @Column(name = "date_calcul", nullable = false)
+    private LocalDateTime dateCalcul;
+
+    public PensionCalculee() {}
+
+    public Long getDossierId() {
+        return dossierId;
+    }
+
+    public void setDossierId(Long dossierId) {
+        this.dossierId = dossierId;
+    }
+
+    public Long getCampagneId() {
+        return campagneId;
+    }
+
+    public void setCampagneId(Long campagneId) {
+        this.campagneId = campagneId;
+    }
+
+    public BigDecimal getSalaireMoyenAnnuel() {
+        return salaireMoyenAnnuel;
+    }
+
+    public void setSalaireMoyenAnnuel(BigDecimal salaireMoyenAnnuel) {
+        this.salaireMoyenAnnuel = salaireMoyenAnnuel;
+    }
+
+    public int getTrimestresValides() {
+        return trimestresValides;
+    }
+
+    public void setTrimestresValides(int trimestresValides) {
+        this.trimestresValides = trimestresValides;
+    }
+
+    public BigDecimal getTauxPension() {
+        return tauxPension;
+    }
+
+    public void setTauxPension(BigDecimal tauxPension) {
+        this.tauxPension = tauxPension;
+    }
+
+    public BigDecimal getMontant() {
+        return montant;
+    }
+
+    public void setMontant(BigDecimal montant) {
+        this.montant = montant;
+    }
+
+    public LocalDateTime getDateCalcul() {
+        return dateCalcul;
+    }
+
+    public void setDateCalcul(LocalDateTime dateCalcul) {
+        this.dateCalcul = dateCalcul;
+    }
+}
@@ -0,0 +1,119 @@
+package com.str.Models;
+
+import com.str.Enum.StatutExtraction;
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+// Texte extrait d'un contenu du BlobStore (une ligne par empreinte, partagée par les documents de même contenu)
+@Entity
+@Table(name = "textes_extraits")
+public class TexteExtrait {
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatutExtraction statut;
+
+    @Lob
+    @Column(columnDefinition = "LONGTEXT")
+    private String texte;
+
+    @Column(nullable = false)
+    private int caracteres;
+
+    // Texte coupé à app.extraction.caracteres-max
+    @Column(nullable = false)
+    private boolean tronque;
+
+    @Column(length = 500)
+    private String message;
+
+    @Column(name = "duree_ms", nullable = false)
+    private long dureeMs;
+
+    @Column(name = "date_extraction", nullable = false)
+    private LocalDateTime dateExtraction;
+
+    // Extractions tentées pour ce contenu : un ECHEC est retenté jusqu'à app.extraction.tentatives-max
+    @Column(nullable = false)
+    @ColumnDefault("1")
+    private int tentatives;
+
+    public TexteExtrait() {}
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public StatutExtraction getStatut() {
+        return statut;
+    }
+
+    public void setStatut(StatutExtraction statut) {
+        this.statut = statut;
+    }
+
+    public String getTexte() {
+        return texte;
+    }
+
+    public void setTexte(String texte) {
+        this.texte = texte;
+    }
+
+    public int getCaracteres() {
+        return caracteres;
+    }
+
+    public void setCaracteres(int caracteres) {
+        this.caracteres = caracteres;
+    }
+
+    public boolean isTronque() {
+        return tronque;
+    }
+
+    public void setTronque(boolean tronque) {
+        this.tronque = tronque;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getDureeMs() {
+        return dureeMs;
+    }
+
+    public void setDureeMs(long dureeMs) {
+        this.dureeMs = dureeMs;
+    }
+
+    public LocalDateTime getDateExtraction() {
+        return dateExtraction;
+    }
+
+    public void setDateExtraction(LocalDateTime dateExtraction) {
+        this.dateExtraction = dateExtraction;
+    }
+
+    public int getTentatives() {
+        return tentatives;
+    }
+
+    public void setTentatives(int tentatives) {
+        this.tentatives = tentatives;
+    }
+}
@@ -0,0 +1,27 @@
+package com.str.Repositories;
+
+import com.str.Models.BlobChunk;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface BlobChunkRepository extends JpaRepository<BlobChunk, Long> {
+
+    boolean existsByHash(String hash);
+
+    // Un seul morceau à la fois : le contenu complet n'est jamais chargé en mémoire
+    @Query("SELECT c.donnees FROM BlobChunk c WHERE c.hash = :hash AND c.numero = :numero")
+    byte[] findDonnees(@Param("hash") String hash, @Param("numero") int numero);
+
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.taille), 0) FROM BlobChunk c WHERE c.hash = :hash")
+    List<Object[]> compterMorceaux(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BlobChunk c WHERE c.hash = :hash")
+    void deleteByHash(@Param("hash") String hash);
+}
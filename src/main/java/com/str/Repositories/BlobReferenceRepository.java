@@ -0,0 +1,38 @@
+package com.str.Repositories;
+
+import com.str.Models.BlobReference;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+// Les mises à jour s'exécutent dans la transaction de l'appelant (création / suppression de document)
+public interface BlobReferenceRepository extends JpaRepository<BlobReference, String> {
+
+    // Crée la ligne ou l'incrémente en une instruction : deux premiers ajouts concurrents ne se heurtent pas
+    // sur la clé primaire, et le verrou de ligne tient le nettoyeur à l'écart jusqu'au commit
+    @Modifying
+    @Query(value = """
+            INSERT INTO blob_references (hash, nombre_references) VALUES (:hash, 1)
+            ON DUPLICATE KEY UPDATE nombre_references = nombre_references + 1
+            """, nativeQuery = true)
+    int referencer(@Param("hash") String hash);
+
+    // Verrouille la ligne jusqu'au commit : DocumentBlobCleaner attend, puis voit ce qui a été écrit entre-temps
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM BlobReference r WHERE r.hash = :hash")
+    Optional<BlobReference> verrouiller(@Param("hash") String hash);
+
+    @Modifying
+    @Query("UPDATE BlobReference r SET r.nombreReferences = r.nombreReferences - 1 WHERE r.hash = :hash AND r.nombreReferences > 0")
+    int decrementer(@Param("hash") String hash);
+
+    // Ne retire la ligne que si plus aucun document ne la référence (un ajout concurrent la conserve)
+    @Modifying
+    @Query("DELETE FROM BlobReference r WHERE r.hash = :hash AND r.nombreReferences <= 0")
+    int supprimerSiOrpheline(@Param("hash") String hash);
+}
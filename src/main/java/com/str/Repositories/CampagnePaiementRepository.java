@@ -0,0 +1,14 @@
+package com.str.Repositories;
+
+import com.str.Enum.StatutCampagne;
+import com.str.Models.CampagnePaiement;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface CampagnePaiementRepository extends JpaRepository<CampagnePaiement, Long> {
+
+    List<CampagnePaiement> findByStatut(StatutCampagne statut);
+
+    List<CampagnePaiement> findTop20ByOrderByIdDesc();
+}
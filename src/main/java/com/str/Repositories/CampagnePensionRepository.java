@@ -0,0 +1,14 @@
+package com.str.Repositories;
+
+import com.str.Enum.StatutCampagne;
+import com.str.Models.CampagnePension;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface CampagnePensionRepository extends JpaRepository<CampagnePension, Long> {
+
+    List<CampagnePension> findByStatut(StatutCampagne statut);
+
+    List<CampagnePension> findTop20ByOrderByIdDesc();
+}
@@ -2,13 +2,20 @@ package com.str.Repositories;
 
 import com.str.Enum.RegimeRetraite;
 import com.str.Models.Carriere;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface CarriereRepository extends JpaRepository<Carriere, Long> {
 
@@ -35,7 +42,54 @@ public interface CarriereRepository extends JpaRepository<Carriere, Long> {
     @Query("SELECT AVG(c.salaireMoyen) FROM Carriere c WHERE c.dossier.id = :dossierId")
     Double calculerSalaireMoyenAnnuel(@Param("dossierId") Long dossierId);
 
+    // Agrégats globaux pour le tableau de bord : [nombre de carrières, somme des salaires moyens]
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.salaireMoyen), 0) FROM Carriere c")
+    List<Object[]> aggregerSalaires();
+
     // Trouver les carrières en cours (sans date de fin)
     @Query("SELECT c FROM Carriere c WHERE c.dateFin IS NULL AND c.dossier.id = :dossierId")
     List<Carriere> findCarrieresEnCours(@Param("dossierId") Long dossierId);
+
+    // Fil d'activité : ajouts de carrières antérieurs au curseur (borne, idMax), les plus récents d'abord
+    @Query("""
+        SELECT c.id, c.dossier.id, CONCAT(c.entreprise, ' - ', c.poste), c.dateCreation
+        FROM Carriere c
+        WHERE c.dateCreation < :borne OR (c.dateCreation = :borne AND c.id < :idMax)
+        ORDER BY c.dateCreation DESC, c.id DESC
+        """)
+    List<Object[]> findActivitesAvant(@Param("borne") LocalDateTime borne, @Param("idMax") Long idMax, Pageable pageable);
+
+    @Query("SELECT c.id, c.dossier.id, CONCAT(c.entreprise, ' - ', c.poste), c.dateCreation FROM Carriere c WHERE c.id = :id AND c.dateCreation IS NOT NULL")
+    List<Object[]> findActiviteById(@Param("id") Long id);
+
+    // Calcul des pensions : une ligne [dossierId, régime, nombre de carrières, somme des salaires, somme des trimestres]
+    // par dossier et par régime, pour tout un lot de dossiers en une requête
+    @Query("""
+        SELECT c.dossier.id, c.regimeRetraite, COUNT(c),
+               COALESCE(SUM(c.salaireMoyen), 0), COALESCE(SUM(c.trimestresValides), 0)
+        FROM Carriere c
+        WHERE c.dossier.id IN :dossierIds
+        GROUP BY c.dossier.id, c.regimeRetraite
+        """)
+    List<Object[]> agregerParDossierEtRegime(@Param("dossierIds") List<Long> dossierIds);
+
+    // Contexte de l'assistant : [nombre de carrières, nombre de carrières en cours]
+    @Query("""
+        SELECT COUNT(c), COALESCE(SUM(CASE WHEN c.dateFin IS NULL THEN 1 ELSE 0 END), 0)
+        FROM Carriere c
+        WHERE c.dossier.id = :dossierId
+        """)
+    List<Object[]> compterPourContexte(@Param("dossierId") Long dossierId);
+
+    // Export en flux, mêmes réglages que DossierRepository.streamPourExport
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Carriere c WHERE :regime IS NULL OR c.regimeRetraite = :regime ORDER BY c.id")
+    Stream<Carriere> streamPourExport(@Param("regime") RegimeRetraite regime);
+
+    // Champs indexés pour la recherche : [id, dossierId, entreprise, poste, regimeRetraite]
+    @Query("SELECT c.id, c.dossier.id, c.entreprise, c.poste, c.regimeRetraite FROM Carriere c WHERE c.dossier.id IN :dossierIds")
+    List<Object[]> findPourIndex(@Param("dossierIds") Collection<Long> dossierIds);
 }
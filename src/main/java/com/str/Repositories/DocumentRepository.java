@@ -1,7 +1,9 @@
 package com.str.Repositories;
 
+import com.str.Enum.StatutExtraction;
 import com.str.Models.Document;
 import com.str.Models.DossierRetraite;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +11,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import jakarta.transaction.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -39,4 +43,47 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     // Recherche par description
     @Query("SELECT d FROM Document d WHERE d.description LIKE %:description%")
     List<Document> findByDescriptionContaining(@Param("description") String description);
+
+    // Fil d'activité : uploads antérieurs au curseur (borne, idMax), sans lire le contenu des fichiers
+    @Query("""
+        SELECT d.id, d.dossier.id, d.nom, d.dateUpload
+        FROM Document d
+        WHERE d.dateUpload < :borne OR (d.dateUpload = :borne AND d.id < :idMax)
+        ORDER BY d.dateUpload DESC, d.id DESC
+        """)
+    List<Object[]> findActivitesAvant(@Param("borne") LocalDateTime borne, @Param("idMax") Long idMax, Pageable pageable);
+
+    @Query("SELECT d.id, d.dossier.id, d.nom, d.dateUpload FROM Document d WHERE d.id = :id")
+    List<Object[]> findActiviteById(@Param("id") Long id);
+
+    // Contexte de l'assistant : [nom, nomFichier, type] des documents d'un dossier, sans contenu ni description
+    @Query("SELECT d.nom, d.nomFichier, d.type FROM Document d WHERE d.dossier.id = :dossierId")
+    List<Object[]> findPourContexte(@Param("dossierId") Long dossierId);
+
+    // Champs indexés pour la recherche : [id, dossierId, nom, nomFichier, description, type, contentHash]
+    // Le texte extrait (jusqu'à app.extraction.caracteres-max) est lu à part, un document à la fois
+    @Query("""
+        SELECT d.id, d.dossier.id, d.nom, d.nomFichier, d.description, d.type, d.contentHash
+        FROM Document d
+        WHERE d.dossier.id IN :dossierIds
+        """)
+    List<Object[]> findPourIndex(@Param("dossierIds") Collection<Long> dossierIds);
+
+    /*
+     * Contenus référencés à extraire : [contentHash, un nom de fichier]. Sans texte enregistré, ou en échec
+     * avec moins de tentativesMax tentatives, la dernière antérieure à la borne.
+     */
+    @Query("""
+        SELECT d.contentHash, MIN(d.nomFichier) FROM Document d
+        WHERE d.contentHash IS NOT NULL
+          AND NOT EXISTS (SELECT t.contentHash FROM TexteExtrait t WHERE t.contentHash = d.contentHash
+                          AND (t.statut <> :echec OR t.tentatives >= :tentativesMax OR t.dateExtraction > :borne))
+        GROUP BY d.contentHash
+        """)
+    List<Object[]> findContenusAExtraire(@Param("echec") StatutExtraction echec,
+                                         @Param("tentativesMax") int tentativesMax,
+                                         @Param("borne") LocalDateTime borne, Pageable pageable);
+
+    @Query("SELECT DISTINCT d.dossier.id FROM Document d WHERE d.contentHash = :contentHash AND d.dossier IS NOT NULL")
+    List<Long> findDossierIdsByContentHash(@Param("contentHash") String contentHash);
 }
@@ -1,14 +1,25 @@
 package com.str.Repositories;
 
+import com.str.DTO.DossierResumeDTO;
+import com.str.Enum.RegimeRetraite;
 import com.str.Enum.StatutDossier;
 import com.str.Models.DossierRetraite;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -24,11 +35,134 @@ public interface DossierRepository extends JpaRepository<DossierRetraite, Long>
     // Filtrage par statut
     List<DossierRetraite> findByStatut(StatutDossier statut);
 
-    // Requête native pour statistiques
-    @Query(value = """
-        SELECT COUNT(d), d.statut 
-        FROM DossierRetraite d 
+    // Parcours par lots (clé croissante) pour les traitements de masse
+    @Query("SELECT d.id FROM DossierRetraite d WHERE d.id > :apresId ORDER BY d.id")
+    List<Long> findIdsApres(@Param("apresId") Long apresId, Pageable pageable);
+
+    long countByIdGreaterThan(Long id);
+
+    // Dossiers d'un statut sans paiement pour la période : [id, versionCarrieres], par ids croissants
+    @Query("""
+        SELECT d.id, d.versionCarrieres FROM DossierRetraite d
+        WHERE d.statut = :statut AND d.id > :apresId
+          AND NOT EXISTS (SELECT p.id FROM Paiement p WHERE p.dossier = d AND p.periode = :periode)
+        ORDER BY d.id
+        """)
+    List<Object[]> findSansPaiementApres(@Param("statut") StatutDossier statut, @Param("periode") String periode,
+                                         @Param("apresId") Long apresId, Pageable pageable);
+
+    @Query("""
+        SELECT COUNT(d) FROM DossierRetraite d
+        WHERE d.statut = :statut AND d.id > :apresId
+          AND NOT EXISTS (SELECT p.id FROM Paiement p WHERE p.dossier = d AND p.periode = :periode)
+        """)
+    long countSansPaiementApres(@Param("statut") StatutDossier statut, @Param("periode") String periode,
+                                @Param("apresId") Long apresId);
+
+    // Tampon de version des carrières, sans charger le dossier (clé du cache des pensions)
+    @Query("SELECT d.versionCarrieres FROM DossierRetraite d WHERE d.id = :id")
+    Optional<Long> findVersionCarrieres(@Param("id") Long id);
+
+    // Contexte de l'assistant : [statut, dateCreation, versionCarrieres], sans bénéficiaire ni collections
+    @Query("SELECT d.statut, d.dateCreation, d.versionCarrieres FROM DossierRetraite d WHERE d.id = :id")
+    List<Object[]> findPourContexte(@Param("id") Long id);
+
+    // Correspondance numéro de sécurité sociale -> id de tous les dossiers, lue en flux (dans une transaction)
+    @Query("SELECT d.numeroSecuriteSociale, d.id FROM DossierRetraite d")
+    Stream<Object[]> streamNumerosSecuriteSociale();
+
+    // Incrémente le tampon de version des carrières en base : deux modifications concurrentes comptent chacune
+    @Modifying
+    @Query("UPDATE DossierRetraite d SET d.versionCarrieres = d.versionCarrieres + 1 WHERE d.id = :id")
+    int marquerCarrieresModifiees(@Param("id") Long id);
+
+    // Incrémente le tampon de version des carrières de plusieurs dossiers en une requête (imports de masse)
+    @Modifying
+    @Query("UPDATE DossierRetraite d SET d.versionCarrieres = d.versionCarrieres + 1 WHERE d.id IN :ids")
+    int marquerCarrieresModifiees(@Param("ids") Collection<Long> ids);
+
+    /*
+     * Export : curseur en avant seul, lu ligne à ligne (fetch size Integer.MIN_VALUE pour MySQL Connector/J),
+     * entités en lecture seule. À consommer dans une transaction, sans autre requête sur la connexion
+     * tant que le flux est ouvert.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d FROM DossierRetraite d WHERE :statut IS NULL OR d.statut = :statut ORDER BY d.id")
+    Stream<DossierRetraite> streamPourExport(@Param("statut") StatutDossier statut);
+
+    // Variantes chargeant les carrières dans la même requête (les autres collections restent paresseuses)
+    @EntityGraph(DossierRetraite.GRAPHE_CARRIERES)
+    @Query("SELECT d FROM DossierRetraite d")
+    List<DossierRetraite> findAllWithCarrieres();
+
+    @EntityGraph(DossierRetraite.GRAPHE_CARRIERES)
+    @Query("SELECT d FROM DossierRetraite d WHERE d.statut = :statut")
+    List<DossierRetraite> findByStatutWithCarrieres(@Param("statut") StatutDossier statut);
+
+    // Nombre de dossiers par statut (une ligne [statut, total] par statut, sans charger les entités)
+    @Query("""
+        SELECT d.statut, COUNT(d)
+        FROM DossierRetraite d
         GROUP BY d.statut
-        """, nativeQuery = true)
+        """)
     List<Object[]> countByStatut();
-}
\ No newline at end of file
+
+    // Histogramme mensuel des créations par statut : [année, mois, statut, total]
+    @Query("""
+        SELECT YEAR(d.dateCreation), MONTH(d.dateCreation), d.statut, COUNT(d)
+        FROM DossierRetraite d
+        WHERE d.dateCreation >= :depuis
+        GROUP BY YEAR(d.dateCreation), MONTH(d.dateCreation), d.statut
+        """)
+    List<Object[]> countByMoisEtStatut(@Param("depuis") LocalDate depuis);
+
+    // Histogramme mensuel des créations par régime : [année, mois, régime, dossiers distincts]
+    @Query("""
+        SELECT YEAR(d.dateCreation), MONTH(d.dateCreation), c.regimeRetraite, COUNT(DISTINCT d.id)
+        FROM Carriere c JOIN c.dossier d
+        WHERE d.dateCreation >= :depuis
+        GROUP BY YEAR(d.dateCreation), MONTH(d.dateCreation), c.regimeRetraite
+        """)
+    List<Object[]> countByMoisEtRegime(@Param("depuis") LocalDate depuis);
+
+    // Fil d'activité : créations de dossiers antérieures au curseur (borne, idMax), les plus récentes d'abord
+    @Query("""
+        SELECT d.id, d.id, d.numeroSecuriteSociale, d.dateCreation
+        FROM DossierRetraite d
+        WHERE d.dateCreation < :borne OR (d.dateCreation = :borne AND d.id < :idMax)
+        ORDER BY d.dateCreation DESC, d.id DESC
+        """)
+    List<Object[]> findActivitesAvant(@Param("borne") LocalDate borne, @Param("idMax") Long idMax, Pageable pageable);
+
+    @Query("SELECT d.id, d.id, d.numeroSecuriteSociale, d.dateCreation FROM DossierRetraite d WHERE d.id = :id AND d.dateCreation IS NOT NULL")
+    List<Object[]> findActiviteById(@Param("id") Long id);
+
+    // Liste paginée par curseur (id décroissant = ordre de création), filtres optionnels, projection légère
+    @Query("""
+        SELECT new com.str.DTO.DossierResumeDTO(d.id, d.numeroSecuriteSociale, d.beneficiaire.nom,
+                                               d.beneficiaire.prenom, d.statut, d.dateCreation)
+        FROM DossierRetraite d
+        WHERE d.id < :apresId
+          AND (:statut IS NULL OR d.statut = :statut)
+          AND (:regime IS NULL OR EXISTS (
+                SELECT 1 FROM Carriere c WHERE c.dossier = d AND c.regimeRetraite = :regime))
+          AND (:dateDebut IS NULL OR d.dateCreation >= :dateDebut)
+          AND (:dateFin IS NULL OR d.dateCreation <= :dateFin)
+          AND (:prefixeNom IS NULL OR d.beneficiaire.nom LIKE CONCAT(:prefixeNom, '%') ESCAPE '!')
+        ORDER BY d.id DESC
+        """)
+    List<DossierResumeDTO> findResumes(@Param("apresId") Long apresId,
+                                       @Param("statut") StatutDossier statut,
+                                       @Param("regime") RegimeRetraite regime,
+                                       @Param("dateDebut") LocalDate dateDebut,
+                                       @Param("dateFin") LocalDate dateFin,
+                                       @Param("prefixeNom") String prefixeNom,
+                                       Pageable pageable);
+
+    // Champs indexés pour la recherche : [id, numeroSecuriteSociale, nom, prenom, statut]
+    @Query("SELECT d.id, d.numeroSecuriteSociale, d.beneficiaire.nom, d.beneficiaire.prenom, d.statut FROM DossierRetraite d WHERE d.id IN :ids")
+    List<Object[]> findPourIndex(@Param("ids") Collection<Long> ids);
+}
@@ -2,15 +2,21 @@ package com.str.Repositories;
 
 import com.str.Enum.TypePaiement;
 import com.str.Models.Paiement;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface PaiementRepository extends JpaRepository<Paiement, Long> {
 
@@ -34,6 +40,10 @@ public interface PaiementRepository extends JpaRepository<Paiement, Long> {
     @Query("SELECT SUM(p.montant) FROM Paiement p WHERE p.dossier.id = :dossierId")
     BigDecimal calculateTotalPaiementsByDossier(@Param("dossierId") Long dossierId);
 
+    // Agrégats globaux pour le tableau de bord : [nombre de paiements, montant total]
+    @Query("SELECT COUNT(p), COALESCE(SUM(p.montant), 0) FROM Paiement p")
+    List<Object[]> aggregerMontants();
+
     // Supprimer par dossier
     @Transactional
     @Modifying
@@ -42,4 +52,37 @@ public interface PaiementRepository extends JpaRepository<Paiement, Long> {
 
     // Trouver les paiements entre deux dates
     List<Paiement> findByDateVersementBetween(LocalDate startDate, LocalDate endDate);
-}
\ No newline at end of file
+
+    // Fil d'activité : versements antérieurs au curseur (borne, idMax), les plus récents d'abord
+    @Query("""
+        SELECT p.id, p.dossier.id, p.reference, p.dateVersement
+        FROM Paiement p
+        WHERE p.dateVersement < :borne OR (p.dateVersement = :borne AND p.id < :idMax)
+        ORDER BY p.dateVersement DESC, p.id DESC
+        """)
+    List<Object[]> findActivitesAvant(@Param("borne") LocalDate borne, @Param("idMax") Long idMax, Pageable pageable);
+
+    @Query("SELECT p.id, p.dossier.id, p.reference, p.dateVersement FROM Paiement p WHERE p.id = :id")
+    List<Object[]> findActiviteById(@Param("id") Long id);
+
+    // Dossiers, parmi ids, ayant déjà leur versement pour la période (campagne concurrente)
+    @Query("SELECT p.dossier.id FROM Paiement p WHERE p.periode = :periode AND p.dossier.id IN :ids")
+    List<Long> findDossiersPayes(@Param("periode") String periode, @Param("ids") Collection<Long> ids);
+
+    // Contexte de l'assistant : derniers versements d'un dossier [periode, montant, dateVersement, statut]
+    @Query("""
+        SELECT p.periode, p.montant, p.dateVersement, p.statut
+        FROM Paiement p
+        WHERE p.dossier.id = :dossierId
+        ORDER BY p.dateVersement DESC, p.id DESC
+        """)
+    List<Object[]> findDerniersPourContexte(@Param("dossierId") Long dossierId, Pageable pageable);
+
+    // Export en flux, mêmes réglages que DossierRepository.streamPourExport
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Paiement p WHERE :periode IS NULL OR p.periode = :periode ORDER BY p.id")
+    Stream<Paiement> streamPourExport(@Param("periode") String periode);
+}
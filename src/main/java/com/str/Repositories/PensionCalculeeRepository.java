@@ -0,0 +1,7 @@
+package com.str.Repositories;
+
+import com.str.Models.PensionCalculee;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PensionCalculeeRepository extends JpaRepository<PensionCalculee, Long> {
+}
@@ -0,0 +1,22 @@
+package com.str.Repositories;
+
+import com.str.Enum.StatutExtraction;
+import com.str.Models.TexteExtrait;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TexteExtraitRepository extends JpaRepository<TexteExtrait, String> {
+
+    // Nombre d'extractions par statut : [statut, total]
+    @Query("SELECT t.statut, COUNT(t) FROM TexteExtrait t GROUP BY t.statut")
+    List<Object[]> countByStatut();
+
+    long countByStatut(StatutExtraction statut);
+
+    // Texte d'un seul contenu, pour l'indexation (jamais joint en masse aux documents)
+    @Query("SELECT t.texte FROM TexteExtrait t WHERE t.contentHash = :contentHash")
+    String findTexte(@Param("contentHash") String contentHash);
+}
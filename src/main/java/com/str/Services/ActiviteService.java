@@ -0,0 +1,265 @@
+package com.str.Services;
+
+import com.str.DTO.ActiviteDTO;
+import com.str.DTO.CursorPageDTO;
+import com.str.Enum.TypeActivite;
+import com.str.Enum.TypeEvenement;
+import com.str.Events.CarriereEvent;
+import com.str.Events.DocumentEvent;
+import com.str.Events.DossierEvent;
+import com.str.Events.LotCarrieresEvent;
+import com.str.Events.LotPaiementsEvent;
+import com.str.Events.PaiementEvent;
+import com.str.Repositories.CarriereRepository;
+import com.str.Repositories.DocumentRepository;
+import com.str.Repositories.DossierRepository;
+import com.str.Repositories.PaiementRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Fil des activités récentes (dossiers, carrières, paiements, documents).
+ * <p>
+ * Chaque source est lue par une requête top-N sur sa colonne de date indexée ; les pages suivantes
+ * sont obtenues par curseur (date, type, id). Les activités les plus récentes sont conservées dans un
+ * tampon borné, tenu à jour par les événements métier, qui sert la première page sans requête.
+ */
+@Service
+public class ActiviteService {
+
+    public static final int LIMITE_MAX = 100;
+
+    // Du plus récent au plus ancien ; le type puis l'id départagent les activités de même date
+    private static final Comparator<ActiviteDTO> ORDRE = Comparator
+            .comparing(ActiviteDTO::date)
+            .thenComparing(ActiviteDTO::type)
+            .thenComparing(ActiviteDTO::entityId)
+            .reversed();
+
+    private static final LocalDateTime SANS_CURSEUR = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final DossierRepository dossierRepository;
+    private final CarriereRepository carriereRepository;
+    private final PaiementRepository paiementRepository;
+    private final DocumentRepository documentRepository;
+    private final int capaciteTampon;
+
+    // Les N activités les plus récentes ; toutes les activités existantes si "complet"
+    private final TreeSet<ActiviteDTO> tampon = new TreeSet<>(ORDRE);
+    private boolean tamponCharge = false;
+    private boolean tamponComplet = false;
+
+    public ActiviteService(DossierRepository dossierRepository,
+                           CarriereRepository carriereRepository,
+                           PaiementRepository paiementRepository,
+                           DocumentRepository documentRepository,
+                           @Value("${app.activites.tampon:50}") int capaciteTampon) {
+        this.dossierRepository = dossierRepository;
+        this.carriereRepository = carriereRepository;
+        this.paiementRepository = paiementRepository;
+        this.documentRepository = documentRepository;
+        this.capaciteTampon = capaciteTampon;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ActiviteDTO> getActivites(int limite, String curseur) {
+        if (limite < 1 || limite > LIMITE_MAX) {
+            throw new IllegalArgumentException("La limite doit être comprise entre 1 et " + LIMITE_MAX);
+        }
+
+        if (curseur == null) {
+            CursorPageDTO<ActiviteDTO> depuisTampon = lireTampon(limite);
+            if (depuisTampon != null) {
+                return depuisTampon;
+            }
+        }
+
+        List<ActiviteDTO> activites = chargerAvant(curseur != null ? decoderCurseur(curseur) : null, limite + 1);
+        if (activites.size() > limite) {
+            List<ActiviteDTO> page = activites.subList(0, limite);
+            return new CursorPageDTO<>(List.copyOf(page), encoderCurseur(page.get(limite - 1)));
+        }
+        return new CursorPageDTO<>(activites, null);
+    }
+
+    private synchronized CursorPageDTO<ActiviteDTO> lireTampon(int limite) {
+        if (!tamponCharge) {
+            List<ActiviteDTO> recentes = chargerAvant(null, capaciteTampon + 1);
+            tamponComplet = recentes.size() <= capaciteTampon;
+            tampon.addAll(recentes.subList(0, Math.min(recentes.size(), capaciteTampon)));
+            tamponCharge = true;
+        }
+        if (tampon.size() > limite) {
+            List<ActiviteDTO> page = new ArrayList<>(limite);
+            for (ActiviteDTO activite : tampon) {
+                if (page.size() == limite) {
+                    break;
+                }
+                page.add(activite);
+            }
+            return new CursorPageDTO<>(page, encoderCurseur(page.get(limite - 1)));
+        }
+        if (tamponComplet) {
+            return new CursorPageDTO<>(List.copyOf(tampon), null);
+        }
+        return null;
+    }
+
+    // Fusionne les top-N de chaque source, strictement après le curseur dans l'ordre du fil
+    private List<ActiviteDTO> chargerAvant(ActiviteDTO curseur, int limite) {
+        Pageable page = PageRequest.of(0, limite);
+        List<ActiviteDTO> activites = new ArrayList<>();
+
+        Borne dossiers = borne(curseur, TypeActivite.DOSSIER_CREE, true);
+        dossierRepository.findActivitesAvant(dossiers.date().toLocalDate(), dossiers.idMax(), page)
+                .forEach(ligne -> activites.add(versActivite(TypeActivite.DOSSIER_CREE, ligne)));
+
+        Borne carrieres = borne(curseur, TypeActivite.CARRIERE_AJOUTEE, false);
+        carriereRepository.findActivitesAvant(carrieres.date(), carrieres.idMax(), page)
+                .forEach(ligne -> activites.add(versActivite(TypeActivite.CARRIERE_AJOUTEE, ligne)));
+
+        Borne paiements = borne(curseur, TypeActivite.PAIEMENT_VERSE, true);
+        paiementRepository.findActivitesAvant(paiements.date().toLocalDate(), paiements.idMax(), page)
+                .forEach(ligne -> activites.add(versActivite(TypeActivite.PAIEMENT_VERSE, ligne)));
+
+        Borne documents = borne(curseur, TypeActivite.DOCUMENT_UPLOAD, false);
+        documentRepository.findActivitesAvant(documents.date(), documents.idMax(), page)
+                .forEach(ligne -> activites.add(versActivite(TypeActivite.DOCUMENT_UPLOAD, ligne)));
+
+        activites.sort(ORDRE);
+        return activites.size() > limite ? new ArrayList<>(activites.subList(0, limite)) : activites;
+    }
+
+    private record Borne(LocalDateTime date, Long idMax) {}
+
+    /*
+     * Traduit le curseur en condition "date < borne OR (date = borne AND id < idMax)" pour une source.
+     * À date égale, seules les sources de type inférieur (ou le même type avec un id inférieur) suivent le curseur.
+     * Une source datée au jour (LocalDate) est à minuit : si le curseur ne l'est pas, tout le jour le précède.
+     */
+    private static Borne borne(ActiviteDTO curseur, TypeActivite type, boolean dateSeule) {
+        if (curseur == null) {
+            return new Borne(SANS_CURSEUR, Long.MAX_VALUE);
+        }
+        if (dateSeule && !curseur.date().toLocalTime().equals(LocalTime.MIDNIGHT)) {
+            return new Borne(curseur.date(), Long.MAX_VALUE);
+        }
+        int comparaison = type.compareTo(curseur.type());
+        long idMax = comparaison < 0 ? Long.MAX_VALUE : comparaison == 0 ? curseur.entityId() : Long.MIN_VALUE;
+        return new Borne(curseur.date(), idMax);
+    }
+
+    private static ActiviteDTO versActivite(TypeActivite type, Object[] ligne) {
+        Long id = (Long) ligne[0];
+        Long dossierId = (Long) ligne[1];
+        String libelle = String.valueOf(ligne[2]);
+        LocalDateTime date = ligne[3] instanceof LocalDate jour ? jour.atStartOfDay() : (LocalDateTime) ligne[3];
+
+        String description = switch (type) {
+            case DOSSIER_CREE -> "Nouveau dossier créé: " + libelle;
+            case CARRIERE_AJOUTEE -> "Carrière ajoutée: " + libelle;
+            case PAIEMENT_VERSE -> "Paiement versé: " + libelle;
+            case DOCUMENT_UPLOAD -> "Document uploadé: " + libelle;
+        };
+        return new ActiviteDTO(type, description, date, id, dossierId);
+    }
+
+    private static String encoderCurseur(ActiviteDTO activite) {
+        String valeur = activite.date() + "|" + activite.type() + "|" + activite.entityId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valeur.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ActiviteDTO decoderCurseur(String curseur) {
+        try {
+            String[] parties = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8).split("\\|");
+            return new ActiviteDTO(TypeActivite.valueOf(parties[1]), null,
+                    LocalDateTime.parse(parties[0]), Long.parseLong(parties[2]), null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur invalide: " + curseur);
+        }
+    }
+
+    // --- Mise à jour du tampon à partir des événements métier ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDossier(DossierEvent event) {
+        rafraichir(TypeActivite.DOSSIER_CREE, event.dossierId(), event.type());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarriere(CarriereEvent event) {
+        rafraichir(TypeActivite.CARRIERE_AJOUTEE, event.carriereId(), event.type());
+    }
+
+    // Un lot importé ne porte pas les ids de ses carrières : le tampon est relu à la prochaine page
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLotCarrieres(LotCarrieresEvent event) {
+        recharger();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaiement(PaiementEvent event) {
+        rafraichir(TypeActivite.PAIEMENT_VERSE, event.paiementId(), event.type());
+    }
+
+    // Un lot de campagne ne porte pas les ids de ses paiements : le tampon est relu à la prochaine page
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLotPaiements(LotPaiementsEvent event) {
+        recharger();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocument(DocumentEvent event) {
+        rafraichir(TypeActivite.DOCUMENT_UPLOAD, event.documentId(), event.type());
+    }
+
+    private synchronized void recharger() {
+        tampon.clear();
+        tamponCharge = false;
+    }
+
+    private synchronized void rafraichir(TypeActivite type, Long id, TypeEvenement evenement) {
+        if (!tamponCharge || id == null) {
+            return;
+        }
+        tampon.removeIf(activite -> activite.type() == type && activite.entityId().equals(id));
+        if (evenement == TypeEvenement.SUPPRESSION) {
+            return;
+        }
+
+        // Relecture de la ligne validée pour reprendre exactement la date stockée en base
+        List<Object[]> lignes = switch (type) {
+            case DOSSIER_CREE -> dossierRepository.findActiviteById(id);
+            case CARRIERE_AJOUTEE -> carriereRepository.findActiviteById(id);
+            case PAIEMENT_VERSE -> paiementRepository.findActiviteById(id);
+            case DOCUMENT_UPLOAD -> documentRepository.findActiviteById(id);
+        };
+        if (lignes.isEmpty()) {
+            return;
+        }
+        ActiviteDTO activite = versActivite(type, lignes.get(0));
+
+        // Le tampon ne reste exact que si l'activité n'est pas plus ancienne que la dernière conservée
+        if (tamponComplet || (!tampon.isEmpty() && ORDRE.compare(activite, tampon.last()) < 0)) {
+            tampon.add(activite);
+            if (tampon.size() > capaciteTampon) {
+                tampon.pollLast();
+                tamponComplet = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.str.Services;
+
+import com.str.DTO.IntentionDTO;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Intentions de l'assistant compilées en automate d'Aho-Corasick déterministe (table de transitions dense) :
+ * le message est replié (minuscules, sans accents, ponctuation en espace) et parcouru en une seule passe,
+ * quel que soit le nombre d'intentions et de mots-clés. Un mot-clé correspond au début d'un mot du message
+ * (« calcul » dans « calculer », pas « age » dans « message ») ; un mot de motsEntiers doit aussi finir avec le
+ * mot du message (« âge » mais pas « agent » ni « agence ») ; messageEntier exige que le message se réduise
+ * au mot-clé. Score d'une intention : somme des poids de ses mots-clés distincts trouvés ; à score égal, la
+ * priorité la plus haute l'emporte. Immuable : un rechargement compile un nouvel automate.
+ */
+public final class AutomateIntentions {
+
+    // Définition lue en JSON (ReponsesPredefinies)
+    public record Definition(String reponseVide, String reponseDefaut, List<Intention> intentions) {}
+
+    public record Intention(String nom, List<String> motsCles, List<String> motsEntiers, Double poids,
+                            Integer priorite, Boolean messageEntier, String reponse) {}
+
+    // Classes de caractères : a-z, 0-9, espace, autre (lettre hors alphabet latin, jamais dans un mot-clé)
+    private static final int ESPACE = 36;
+    private static final int AUTRE = 37;
+    private static final int ALPHABET = 38;
+    private static final String PLACEHOLDER_MESSAGE = "{message}";
+
+    // Caractère replié des 0x250 premiers points de code (latin étendu) ; ' ' pour la ponctuation
+    private static final char[] PLIAGE = new char[0x250];
+
+    static {
+        for (char c = 0; c < PLIAGE.length; c++) {
+            String base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            char replie = Character.toLowerCase(base.charAt(0));
+            PLIAGE[c] = (replie >= 'a' && replie <= 'z') || (replie >= '0' && replie <= '9') ? replie
+                    : Character.isLetterOrDigit(c) ? c : ' ';
+        }
+    }
+
+    private final String reponseVide;
+    private final String reponseDefaut;
+    private final String[] noms;
+    private final String[] reponses;
+    private final double[] poids;
+    private final int[] priorites;
+    private final boolean[] messageEntier;
+
+    private final int[][] transitions;
+    // Mots-clés reconnus dans chaque état (y compris par les liens de suffixe)
+    private final int[][] sorties;
+    private final int[] longueurMot;
+    private final int[] intentionDuMot;
+
+    public AutomateIntentions(Definition definition) {
+        if (definition == null || definition.intentions() == null || definition.intentions().isEmpty()) {
+            throw new IllegalArgumentException("Aucune intention définie");
+        }
+        List<Intention> intentions = definition.intentions();
+        int nombre = intentions.size();
+        this.reponseVide = exiger(definition.reponseVide(), "reponseVide");
+        this.reponseDefaut = exiger(definition.reponseDefaut(), "reponseDefaut");
+        this.noms = new String[nombre];
+        this.reponses = new String[nombre];
+        this.poids = new double[nombre];
+        this.priorites = new int[nombre];
+        this.messageEntier = new boolean[nombre];
+
+        List<int[]> trie = new ArrayList<>();
+        trie.add(nouvelEtat());
+        List<int[]> motsParEtat = new ArrayList<>();
+        motsParEtat.add(new int[0]);
+        List<Integer> longueurs = new ArrayList<>();
+        List<Integer> intentionsDesMots = new ArrayList<>();
+
+        for (int i = 0; i < nombre; i++) {
+            Intention intention = intentions.get(i);
+            noms[i] = exiger(intention.nom(), "nom");
+            reponses[i] = exiger(intention.reponse(), "reponse de " + intention.nom());
+            poids[i] = intention.poids() != null ? intention.poids() : 1.0;
+            priorites[i] = intention.priorite() != null ? intention.priorite() : 0;
+            messageEntier[i] = Boolean.TRUE.equals(intention.messageEntier());
+            List<String> motsCles = intention.motsCles() != null ? intention.motsCles() : List.of();
+            List<String> motsEntiers = intention.motsEntiers() != null ? intention.motsEntiers() : List.of();
+            if ((motsCles.isEmpty() && motsEntiers.isEmpty()) || poids[i] <= 0) {
+                throw new IllegalArgumentException("Intention " + intention.nom() + " sans mot-clé ou de poids nul");
+            }
+            for (int m = 0; m < motsCles.size() + motsEntiers.size(); m++) {
+                boolean entier = m >= motsCles.size();
+                String motCle = entier ? motsEntiers.get(m - motsCles.size()) : motsCles.get(m);
+                String replie = motCle == null ? "" : replier(motCle).trim();
+                if (replie.isEmpty() || replie.chars().anyMatch(c -> classe((char) c) == AUTRE)) {
+                    throw new IllegalArgumentException("Mot-clé non pris en charge : '" + motCle + "' (" + intention.nom() + ")");
+                }
+                // Espace initial : début de mot ; espace final : fin de mot, ou fin du message avec messageEntier
+                String sequence = " " + replie + (entier || messageEntier[i] ? " " : "");
+                int etat = 0;
+                for (int k = 0; k < sequence.length(); k++) {
+                    int c = classe(sequence.charAt(k));
+                    if (trie.get(etat)[c] <= 0) {
+                        trie.get(etat)[c] = trie.size();
+                        trie.add(nouvelEtat());
+                        motsParEtat.add(new int[0]);
+                    }
+                    etat = trie.get(etat)[c];
+                }
+                int mot = longueurs.size();
+                longueurs.add(sequence.length());
+                intentionsDesMots.add(i);
+                int[] mots = motsParEtat.get(etat);
+                int[] ajout = Arrays.copyOf(mots, mots.length + 1);
+                ajout[mots.length] = mot;
+                motsParEtat.set(etat, ajout);
+            }
+        }
+
+        // Liens de suffixe en largeur, puis transitions manquantes reprises de l'état de repli (automate déterministe)
+        int etats = trie.size();
+        this.transitions = trie.toArray(new int[0][]);
+        this.sorties = motsParEtat.toArray(new int[0][]);
+        int[] repli = new int[etats];
+        Deque<Integer> file = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int suivant = transitions[0][c];
+            if (suivant > 0) {
+                repli[suivant] = 0;
+                file.add(suivant);
+            } else {
+                transitions[0][c] = 0;
+            }
+        }
+        while (!file.isEmpty()) {
+            int etat = file.poll();
+            if (sorties[repli[etat]].length > 0) {
+                int[] fusion = Arrays.copyOf(sorties[etat], sorties[etat].length + sorties[repli[etat]].length);
+                System.arraycopy(sorties[repli[etat]], 0, fusion, sorties[etat].length, sorties[repli[etat]].length);
+                sorties[etat] = fusion;
+            }
+            for (int c = 0; c < ALPHABET; c++) {
+                int suivant = transitions[etat][c];
+                if (suivant > 0) {
+                    repli[suivant] = transitions[repli[etat]][c];
+                    file.add(suivant);
+                } else {
+                    transitions[etat][c] = transitions[repli[etat]][c];
+                }
+            }
+        }
+        this.longueurMot = longueurs.stream().mapToInt(Integer::intValue).toArray();
+        this.intentionDuMot = intentionsDesMots.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public IntentionDTO classer(String message) {
+        if (message == null || message.isBlank()) {
+            return new IntentionDTO(null, 0, reponseVide);
+        }
+        Parcours parcours = new Parcours();
+        parcours.avancer(ESPACE);
+        boolean espace = true;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            char replie = c < PLIAGE.length ? PLIAGE[c] : Character.isLetterOrDigit(c) ? c : ' ';
+            if (replie == ' ') {
+                if (!espace) {
+                    parcours.avancer(ESPACE);
+                    espace = true;
+                }
+                continue;
+            }
+            espace = false;
+            // Ligatures : deux lettres
+            switch (replie) {
+                case 'œ', 'Œ' -> { parcours.avancer(classe('o')); parcours.avancer(classe('e')); }
+                case 'æ', 'Æ' -> { parcours.avancer(classe('a')); parcours.avancer(classe('e')); }
+                case 'ß' -> { parcours.avancer(classe('s')); parcours.avancer(classe('s')); }
+                default -> parcours.avancer(classe(replie));
+            }
+        }
+        if (!espace) {
+            parcours.avancer(ESPACE);
+        }
+        return parcours.resultat(message);
+    }
+
+    public int nombreIntentions() {
+        return noms.length;
+    }
+
+    public int nombreMotsCles() {
+        return longueurMot.length;
+    }
+
+    public int nombreEtats() {
+        return transitions.length;
+    }
+
+    // Mots-clés distincts trouvés au fil du parcours (peu nombreux : liste plutôt qu'ensemble)
+    private final class Parcours {
+        private int etat;
+        private int position = -1;
+        private int[] trouves = new int[8];
+        private int nombre;
+
+        void avancer(int classe) {
+            etat = transitions[etat][classe];
+            position++;
+            for (int mot : sorties[etat]) {
+                ajouter(mot);
+            }
+        }
+
+        private void ajouter(int mot) {
+            for (int i = 0; i < nombre; i++) {
+                if (trouves[i] == mot) {
+                    return;
+                }
+            }
+            if (nombre == trouves.length) {
+                trouves = Arrays.copyOf(trouves, nombre * 2);
+            }
+            trouves[nombre++] = mot;
+        }
+
+        IntentionDTO resultat(String message) {
+            int meilleure = -1;
+            double meilleurScore = 0;
+            // Mots numérotés par intention : tri puis cumul par intention
+            Arrays.sort(trouves, 0, nombre);
+            int i = 0;
+            while (i < nombre) {
+                int intention = intentionDuMot[trouves[i]];
+                double score = 0;
+                for (; i < nombre && intentionDuMot[trouves[i]] == intention; i++) {
+                    // Message entier : le mot-clé (espaces virtuels compris) couvre tout le parcours
+                    if (!messageEntier[intention] || longueurMot[trouves[i]] == position + 1) {
+                        score += poids[intention];
+                    }
+                }
+                if (score > meilleurScore || (score > 0 && score == meilleurScore && priorites[intention] > priorites[meilleure])) {
+                    meilleure = intention;
+                    meilleurScore = score;
+                }
+            }
+            if (meilleure < 0) {
+                return new IntentionDTO(null, 0, reponseDefaut.replace(PLACEHOLDER_MESSAGE, message));
+            }
+            return new IntentionDTO(noms[meilleure], meilleurScore, reponses[meilleure].replace(PLACEHOLDER_MESSAGE, message));
+        }
+    }
+
+    private static int[] nouvelEtat() {
+        return new int[ALPHABET];
+    }
+
+    private static int classe(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= '0' && c <= '9') {
+            return 26 + c - '0';
+        }
+        return c == ' ' ? ESPACE : AUTRE;
+    }
+
+    // Même repliement que le parcours, pour les mots-clés (espaces multiples réduits)
+    static String replier(String texte) {
+        StringBuilder replie = new StringBuilder(texte.length());
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            char r = c < PLIAGE.length ? PLIAGE[c] : Character.isLetterOrDigit(c) ? c : ' ';
+            switch (r) {
+                case 'œ', 'Œ' -> replie.append("oe");
+                case 'æ', 'Æ' -> replie.append("ae");
+                case 'ß' -> replie.append("ss");
+                case ' ' -> {
+                    if (replie.length() > 0 && replie.charAt(replie.length() - 1) != ' ') {
+                        replie.append(' ');
+                    }
+                }
+                default -> replie.append(r);
+            }
+        }
+        return replie.toString();
+    }
+
+    private static String exiger(String valeur, String champ) {
+        if (valeur == null || valeur.isBlank()) {
+            throw new IllegalArgumentException("Champ obligatoire manquant : " + champ);
+        }
+        return valeur;
+    }
+}
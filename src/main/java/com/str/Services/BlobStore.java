@@ -0,0 +1,74 @@
+package com.str.Services;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Stockage des contenus de documents, adressé par empreinte SHA-256 (hexadécimal, minuscules).
+ * Un même contenu n'est stocké qu'une fois ; les métadonnées (Document) ne gardent que l'empreinte.
+ * Le backend est choisi par la propriété app.storage.backend (filesystem par défaut, ou database).
+ */
+public interface BlobStore {
+
+    Pattern EMPREINTE = Pattern.compile("[0-9a-f]{64}");
+
+    // Stocke le flux (lu jusqu'au bout, non fermé) et renvoie son empreinte
+    String store(InputStream contenu) throws IOException;
+
+    // Stocke un fichier complet puis le retire de son emplacement (déplacé sans recopie si possible)
+    default String importer(Path fichier) throws IOException {
+        String hash;
+        try (InputStream contenu = Files.newInputStream(fichier)) {
+            hash = store(contenu);
+        }
+        Files.deleteIfExists(fichier);
+        return hash;
+    }
+
+    // Contenu en lecture seule, lu à la demande ; NoSuchFileException si l'empreinte est inconnue
+    Resource load(String hash) throws IOException;
+
+    boolean exists(String hash);
+
+    void delete(String hash) throws IOException;
+
+    static String verifierEmpreinte(String hash) {
+        if (hash == null || !EMPREINTE.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Empreinte de contenu invalide: " + hash);
+        }
+        return hash;
+    }
+
+    // Copie le flux dans le fichier cible en calculant l'empreinte au passage
+    static String copierAvecEmpreinte(InputStream contenu, Path cible) throws IOException {
+        try (OutputStream sortie = Files.newOutputStream(cible)) {
+            return copierAvecEmpreinte(contenu, sortie);
+        }
+    }
+
+    // Empreinte seule : le flux est lu sans être écrit nulle part
+    static String empreinte(InputStream contenu) throws IOException {
+        return copierAvecEmpreinte(contenu, OutputStream.nullOutputStream());
+    }
+
+    private static String copierAvecEmpreinte(InputStream contenu, OutputStream sortie) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+        new DigestInputStream(contenu, digest).transferTo(sortie);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
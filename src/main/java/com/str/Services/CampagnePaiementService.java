@@ -0,0 +1,302 @@
+package com.str.Services;
+
+import com.str.DTO.CampagnePaiementDTO;
+import com.str.Enum.StatutCampagne;
+import com.str.Enum.StatutDossier;
+import com.str.Enum.TypePaiement;
+import com.str.Events.LotPaiementsEvent;
+import com.str.Models.CampagnePaiement;
+import com.str.Models.Paiement;
+import com.str.Repositories.CampagnePaiementRepository;
+import com.str.Repositories.DossierRepository;
+import com.str.Repositories.PaiementRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Génération mensuelle des versements de pension pour les dossiers VALIDE.
+ * <p>
+ * Une campagne porte sur une période (yyyy-MM). Les dossiers sans paiement pour cette période sont parcourus
+ * par lots d'ids croissants ; les montants mensuels viennent du cache des pensions (une requête d'agrégation
+ * par lot au plus) et les paiements sont insérés en batch (ids par blocs, voir Identifiants), avec
+ * l'avancement de la campagne, dans une même transaction. La référence PEN-yyyyMM-&lt;dossier&gt; et l'index
+ * unique (periode, dossier_id) rendent une période idempotente : relancer ou reprendre une campagne ne crée
+ * que les versements manquants.
+ * <p>
+ * L'exclusion entre campagnes repose sur cet index, pas sur campagneActive (qui ne vaut que pour ce
+ * processus) : un lot refusé pour doublon est rejoué sans les dossiers déjà payés entre-temps.
+ */
+@Service
+public class CampagnePaiementService {
+
+    private static final Logger log = LoggerFactory.getLogger(CampagnePaiementService.class);
+    private static final DateTimeFormatter FORMAT_REFERENCE = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final CampagnePaiementRepository campagneRepository;
+    private final DossierRepository dossierRepository;
+    private final PaiementRepository paiementRepository;
+    private final PensionCache pensionCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tailleLot;
+
+    private final ExecutorService coordinateur = Executors.newSingleThreadExecutor(tache -> {
+        Thread thread = new Thread(tache, "campagne-paiement");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Campagne en cours d'exécution dans ce processus (au plus une)
+    private volatile Long campagneActive;
+    private volatile boolean interruptionDemandee;
+
+    public CampagnePaiementService(CampagnePaiementRepository campagneRepository,
+                                   DossierRepository dossierRepository,
+                                   PaiementRepository paiementRepository,
+                                   PensionCache pensionCache,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${app.paiement.batch.taille-lot:2000}") int tailleLot) {
+        this.campagneRepository = campagneRepository;
+        this.dossierRepository = dossierRepository;
+        this.paiementRepository = paiementRepository;
+        this.pensionCache = pensionCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.tailleLot = tailleLot;
+    }
+
+    public synchronized CampagnePaiementDTO demarrer(YearMonth periode, LocalDate dateVersement) {
+        verifierAucuneCampagneActive();
+        CampagnePaiement campagne = new CampagnePaiement();
+        campagne.setPeriode(periode.toString());
+        campagne.setDateVersement(dateVersement != null ? dateVersement : periode.atEndOfMonth());
+        campagne.setStatut(StatutCampagne.EN_COURS);
+        campagne.setTotalDossiers(dossierRepository.countSansPaiementApres(StatutDossier.VALIDE, periode.toString(), 0L));
+        campagne.setDateDebut(LocalDateTime.now());
+        campagne = campagneRepository.save(campagne);
+        lancer(campagne.getId());
+        return toDto(campagne);
+    }
+
+    public synchronized CampagnePaiementDTO reprendre(Long id) {
+        verifierAucuneCampagneActive();
+        CampagnePaiement campagne = getCampagne(id);
+        if (campagne.getStatut() != StatutCampagne.INTERROMPUE && campagne.getStatut() != StatutCampagne.ECHOUEE) {
+            throw new IllegalStateException("Seule une campagne interrompue ou en échec peut être reprise");
+        }
+        campagne.setStatut(StatutCampagne.EN_COURS);
+        campagne.setDateFin(null);
+        campagne.setMessage(null);
+        campagne.setTotalDossiers(campagne.getDossiersTraites()
+                + dossierRepository.countSansPaiementApres(StatutDossier.VALIDE, campagne.getPeriode(),
+                        campagne.getDernierDossierId()));
+        campagne = campagneRepository.save(campagne);
+        lancer(campagne.getId());
+        return toDto(campagne);
+    }
+
+    // L'arrêt intervient à la fin du lot en cours, déjà validé
+    public CampagnePaiementDTO interrompre(Long id) {
+        CampagnePaiement campagne = getCampagne(id);
+        if (!id.equals(campagneActive)) {
+            throw new IllegalStateException("La campagne " + id + " n'est pas en cours d'exécution");
+        }
+        interruptionDemandee = true;
+        return toDto(campagne);
+    }
+
+    public CampagnePaiementDTO getProgression(Long id) {
+        return toDto(getCampagne(id));
+    }
+
+    public List<CampagnePaiementDTO> getCampagnes() {
+        return campagneRepository.findTop20ByOrderByIdDesc().stream().map(this::toDto).toList();
+    }
+
+    private void lancer(Long id) {
+        campagneActive = id;
+        interruptionDemandee = false;
+        coordinateur.submit(() -> executer(id));
+    }
+
+    private void executer(Long id) {
+        long debut = System.nanoTime();
+        long traitesDepuisLancement = 0;
+        try {
+            CampagnePaiement campagne = getCampagne(id);
+            String periode = campagne.getPeriode();
+            String prefixeReference = "PEN-" + YearMonth.parse(periode).format(FORMAT_REFERENCE) + "-";
+            Long dernierId = campagne.getDernierDossierId();
+            while (!interruptionDemandee) {
+                List<Object[]> dossiers = dossierRepository.findSansPaiementApres(StatutDossier.VALIDE, periode,
+                        dernierId, PageRequest.of(0, tailleLot));
+                if (dossiers.isEmpty()) {
+                    break;
+                }
+                Map<Long, Long> versions = new HashMap<>(dossiers.size() * 2);
+                for (Object[] dossier : dossiers) {
+                    versions.put((Long) dossier[0], ((Number) dossier[1]).longValue());
+                }
+                Map<Long, PensionResultat> pensions = pensionCache.getAll(versions);
+
+                // Pas de versement pour une pension nulle
+                List<Long> aPayer = new ArrayList<>(dossiers.size());
+                for (Object[] dossier : dossiers) {
+                    if (pensions.get((Long) dossier[0]).montantMensuelCentimes() > 0) {
+                        aPayer.add((Long) dossier[0]);
+                    }
+                }
+                dernierId = (Long) dossiers.get(dossiers.size() - 1)[0];
+                enregistrerLot(campagne, prefixeReference, aPayer, pensions, dossiers.size(), dernierId);
+                traitesDepuisLancement += dossiers.size();
+            }
+            terminer(id, interruptionDemandee ? StatutCampagne.INTERROMPUE : StatutCampagne.TERMINEE, null);
+            double secondes = Math.max(1, System.nanoTime() - debut) / 1e9;
+            log.info("Campagne de paiement {} ({}) : {} dossiers en {} s ({} dossiers/s)", id, periode,
+                    traitesDepuisLancement, String.format("%.1f", secondes), Math.round(traitesDepuisLancement / secondes));
+        } catch (Exception e) {
+            log.error("Campagne de paiement {} en échec", id, e);
+            terminer(id, StatutCampagne.ECHOUEE, e.getMessage());
+        } finally {
+            campagneActive = null;
+        }
+    }
+
+    // Rejoue le lot sans les dossiers payés par une campagne concurrente ; chaque tentative en retire au moins un
+    private void enregistrerLot(CampagnePaiement campagne, String prefixeReference, List<Long> aPayer,
+                                Map<Long, PensionResultat> pensions, int dossiersTraites, Long dernierId) {
+        List<Long> restants = aPayer;
+        while (true) {
+            try {
+                inserer(campagne, prefixeReference, restants, pensions, dossiersTraites, dernierId);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                Set<Long> dejaPayes = restants.isEmpty() ? Set.of()
+                        : new HashSet<>(paiementRepository.findDossiersPayes(campagne.getPeriode(), restants));
+                if (dejaPayes.isEmpty()) {
+                    throw e;
+                }
+                log.info("Campagne de paiement {} : {} dossiers déjà payés pour {}, ignorés",
+                        campagne.getId(), dejaPayes.size(), campagne.getPeriode());
+                restants = restants.stream().filter(dossierId -> !dejaPayes.contains(dossierId)).toList();
+            }
+        }
+    }
+
+    /*
+     * Paiements persistés par JPA dans un contexte neuf par lot : ids pris dans le bloc en mémoire,
+     * insertions regroupées au flush (hibernate.jdbc.batch_size), dossiers référencés sans être chargés.
+     */
+    private void inserer(CampagnePaiement campagne, String prefixeReference, List<Long> aPayer,
+                         Map<Long, PensionResultat> pensions, int dossiersTraites, Long dernierId) {
+        long montantCentimes = 0;
+        List<Paiement> paiements = new ArrayList<>(aPayer.size());
+        for (Long dossierId : aPayer) {
+            PensionResultat pension = pensions.get(dossierId);
+            montantCentimes += pension.montantMensuelCentimes();
+            Paiement paiement = new Paiement();
+            paiement.setMontant(pension.montantMensuel());
+            paiement.setDateVersement(campagne.getDateVersement());
+            paiement.setTypePaiement(TypePaiement.PENSION);
+            paiement.setReference(prefixeReference + dossierId);
+            paiement.setPeriode(campagne.getPeriode());
+            paiements.add(paiement);
+        }
+        BigDecimal montant = BigDecimal.valueOf(montantCentimes, 2);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < paiements.size(); i++) {
+                paiements.get(i).setDossier(dossierRepository.getReferenceById(aPayer.get(i)));
+            }
+            paiementRepository.saveAll(paiements);
+            jdbcTemplate.update("""
+                UPDATE campagnes_paiement
+                SET dernier_dossier_id = ?, dossiers_traites = dossiers_traites + ?,
+                    paiements_crees = paiements_crees + ?, montant_total = montant_total + ?
+                WHERE id = ?
+                """, dernierId, dossiersTraites, paiements.size(), montant, campagne.getId());
+            if (!paiements.isEmpty()) {
+                eventPublisher.publishEvent(new LotPaiementsEvent(campagne.getId(), campagne.getPeriode(),
+                        paiements.size(), montant, Set.copyOf(aPayer)));
+            }
+        });
+    }
+
+    private void terminer(Long id, StatutCampagne statut, String message) {
+        campagneRepository.findById(id).ifPresent(campagne -> {
+            campagne.setStatut(statut);
+            campagne.setDateFin(LocalDateTime.now());
+            campagne.setMessage(message);
+            campagneRepository.save(campagne);
+        });
+    }
+
+    private void verifierAucuneCampagneActive() {
+        if (campagneActive != null) {
+            throw new IllegalStateException("La campagne de paiement " + campagneActive + " est déjà en cours");
+        }
+    }
+
+    private CampagnePaiement getCampagne(Long id) {
+        return campagneRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Campagne de paiement non trouvée avec l'ID: " + id));
+    }
+
+    private CampagnePaiementDTO toDto(CampagnePaiement campagne) {
+        double pourcentage = campagne.getTotalDossiers() > 0
+                ? Math.min(100.0, 100.0 * campagne.getDossiersTraites() / campagne.getTotalDossiers())
+                : (campagne.getStatut() == StatutCampagne.TERMINEE ? 100.0 : 0.0);
+        LocalDateTime fin = campagne.getDateFin() != null ? campagne.getDateFin() : LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(campagne.getDateDebut(), fin).toMillis());
+        return new CampagnePaiementDTO(campagne.getId(), campagne.getPeriode(), campagne.getDateVersement(),
+                campagne.getStatut(), campagne.getTotalDossiers(), campagne.getDossiersTraites(),
+                campagne.getPaiementsCrees(), campagne.getMontantTotal(), Math.round(pourcentage * 10) / 10.0,
+                Math.round(campagne.getDossiersTraites() * 1000.0 / millis * 10) / 10.0,
+                campagne.getDateDebut(), campagne.getDateFin(), campagne.getMessage());
+    }
+
+    // Une campagne restée EN_COURS vient d'un arrêt du processus : elle devient reprenable
+    @EventListener(ApplicationReadyEvent.class)
+    public void marquerCampagnesInterrompues() {
+        campagneRepository.findByStatut(StatutCampagne.EN_COURS).forEach(campagne -> {
+            if (!campagne.getId().equals(campagneActive)) {
+                terminer(campagne.getId(), StatutCampagne.INTERROMPUE, "Arrêt de l'application pendant la génération");
+            }
+        });
+    }
+
+    @PreDestroy
+    public void arreter() {
+        interruptionDemandee = true;
+        coordinateur.shutdown();
+    }
+}
@@ -0,0 +1,276 @@
+package com.str.Services;
+
+import com.str.DTO.CampagnePensionDTO;
+import com.str.DTO.PensionCalculeeDTO;
+import com.str.Enum.StatutCampagne;
+import com.str.Enum.TypeEvenement;
+import com.str.Events.DossierEvent;
+import com.str.Models.CampagnePension;
+import com.str.Repositories.CampagnePensionRepository;
+import com.str.Repositories.CarriereRepository;
+import com.str.Repositories.DossierRepository;
+import com.str.Repositories.PensionCalculeeRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Calcul des pensions de tous les dossiers par campagne (revalorisation annuelle).
+ * <p>
+ * Les dossiers sont parcourus par lots d'ids croissants ; pour chaque lot, les carrières sont agrégées
+ * en une requête, les pensions calculées en parallèle (ForkJoinPool dédié) puis écrites dans
+ * pensions_calculees par lots JDBC. L'écriture d'un lot et l'avancement du point de reprise de la
+ * campagne sont validés dans la même transaction : une campagne interrompue reprend au lot suivant.
+ */
+@Service
+public class CampagnePensionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CampagnePensionService.class);
+
+    private final CampagnePensionRepository campagneRepository;
+    private final PensionCalculeeRepository pensionCalculeeRepository;
+    private final DossierRepository dossierRepository;
+    private final CarriereRepository carriereRepository;
+    private final PensionCalculator pensionCalculator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int tailleLot;
+
+    private final ForkJoinPool calcul;
+    private final ExecutorService coordinateur = Executors.newSingleThreadExecutor(tache -> {
+        Thread thread = new Thread(tache, "campagne-pension");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Campagne en cours d'exécution dans ce processus (au plus une)
+    private volatile Long campagneActive;
+    private volatile boolean interruptionDemandee;
+
+    public CampagnePensionService(CampagnePensionRepository campagneRepository,
+                                  PensionCalculeeRepository pensionCalculeeRepository,
+                                  DossierRepository dossierRepository,
+                                  CarriereRepository carriereRepository,
+                                  PensionCalculator pensionCalculator,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.pension.batch.taille-lot:1000}") int tailleLot,
+                                  @Value("${app.pension.batch.parallelisme:0}") int parallelisme) {
+        this.campagneRepository = campagneRepository;
+        this.pensionCalculeeRepository = pensionCalculeeRepository;
+        this.dossierRepository = dossierRepository;
+        this.carriereRepository = carriereRepository;
+        this.pensionCalculator = pensionCalculator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.tailleLot = tailleLot;
+        this.calcul = new ForkJoinPool(parallelisme > 0 ? parallelisme : Runtime.getRuntime().availableProcessors());
+    }
+
+    public synchronized CampagnePensionDTO demarrer() {
+        verifierAucuneCampagneActive();
+        CampagnePension campagne = new CampagnePension();
+        campagne.setStatut(StatutCampagne.EN_COURS);
+        campagne.setTotalDossiers(dossierRepository.count());
+        campagne.setDateDebut(LocalDateTime.now());
+        campagne = campagneRepository.save(campagne);
+        lancer(campagne.getId());
+        return toDto(campagne);
+    }
+
+    public synchronized CampagnePensionDTO reprendre(Long id) {
+        verifierAucuneCampagneActive();
+        CampagnePension campagne = getCampagne(id);
+        if (campagne.getStatut() != StatutCampagne.INTERROMPUE && campagne.getStatut() != StatutCampagne.ECHOUEE) {
+            throw new IllegalStateException("Seule une campagne interrompue ou en échec peut être reprise");
+        }
+        campagne.setStatut(StatutCampagne.EN_COURS);
+        campagne.setDateFin(null);
+        campagne.setMessage(null);
+        // Des dossiers ont pu être créés depuis le démarrage
+        campagne.setTotalDossiers(campagne.getDossiersTraites()
+                + dossierRepository.countByIdGreaterThan(campagne.getDernierDossierId()));
+        campagne = campagneRepository.save(campagne);
+        lancer(campagne.getId());
+        return toDto(campagne);
+    }
+
+    // L'arrêt intervient à la fin du lot en cours, déjà validé
+    public CampagnePensionDTO interrompre(Long id) {
+        CampagnePension campagne = getCampagne(id);
+        if (!id.equals(campagneActive)) {
+            throw new IllegalStateException("La campagne " + id + " n'est pas en cours d'exécution");
+        }
+        interruptionDemandee = true;
+        return toDto(campagne);
+    }
+
+    public CampagnePensionDTO getProgression(Long id) {
+        return toDto(getCampagne(id));
+    }
+
+    public List<CampagnePensionDTO> getCampagnes() {
+        return campagneRepository.findTop20ByOrderByIdDesc().stream().map(this::toDto).toList();
+    }
+
+    public Optional<PensionCalculeeDTO> getPensionCalculee(Long dossierId) {
+        return pensionCalculeeRepository.findById(dossierId)
+                .map(pension -> new PensionCalculeeDTO(pension.getDossierId(), pension.getCampagneId(),
+                        pension.getSalaireMoyenAnnuel(), pension.getTrimestresValides(), pension.getTauxPension(),
+                        pension.getMontant(), pension.getDateCalcul()));
+    }
+
+    private void lancer(Long id) {
+        campagneActive = id;
+        interruptionDemandee = false;
+        coordinateur.submit(() -> executer(id));
+    }
+
+    private void executer(Long id) {
+        long debut = System.nanoTime();
+        long traitesDepuisLancement = 0;
+        try {
+            CampagnePension campagne = getCampagne(id);
+            Long dernierId = campagne.getDernierDossierId();
+            while (!interruptionDemandee) {
+                List<Long> ids = dossierRepository.findIdsApres(dernierId, PageRequest.of(0, tailleLot));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                List<Object[]> lignes = calculerLot(ids);
+                dernierId = ids.get(ids.size() - 1);
+                enregistrerLot(id, lignes, dernierId);
+                traitesDepuisLancement += ids.size();
+            }
+            terminer(id, interruptionDemandee ? StatutCampagne.INTERROMPUE : StatutCampagne.TERMINEE, null);
+            double secondes = Math.max(1, System.nanoTime() - debut) / 1e9;
+            log.info("Campagne de pension {} : {} dossiers en {} s ({} dossiers/s)", id, traitesDepuisLancement,
+                    String.format("%.1f", secondes), Math.round(traitesDepuisLancement / secondes));
+        } catch (Exception e) {
+            log.error("Campagne de pension {} en échec", id, e);
+            terminer(id, StatutCampagne.ECHOUEE, e.getMessage());
+        } finally {
+            campagneActive = null;
+        }
+    }
+
+    // Une ligne de paramètres JDBC par dossier : [salaire moyen, trimestres, taux, montant, dossierId]
+    private List<Object[]> calculerLot(List<Long> ids) throws InterruptedException, ExecutionException {
+        Map<Long, List<PensionCalculator.Agregat>> agregats =
+                PensionCalculator.parDossier(carriereRepository.agregerParDossierEtRegime(ids));
+        return calcul.submit(() -> ids.parallelStream()
+                .map(dossierId -> {
+                    PensionResultat resultat = pensionCalculator.calculer(agregats.get(dossierId));
+                    return new Object[]{
+                            resultat.salaireMoyenAnnuel(),
+                            resultat.trimestresValides(),
+                            resultat.tauxPension(),
+                            resultat.montantAnnuel(),
+                            dossierId};
+                })
+                .toList()).get();
+    }
+
+    private void enregistrerLot(Long campagneId, List<Object[]> lignes, Long dernierId) {
+        Timestamp maintenant = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> suppressions = new ArrayList<>(lignes.size());
+        List<Object[]> insertions = new ArrayList<>(lignes.size());
+        for (Object[] ligne : lignes) {
+            suppressions.add(new Object[]{ligne[4]});
+            insertions.add(new Object[]{ligne[4], campagneId, ligne[0], ligne[1], ligne[2], ligne[3], maintenant});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("DELETE FROM pensions_calculees WHERE dossier_id = ?", suppressions);
+            jdbcTemplate.batchUpdate("""
+                INSERT INTO pensions_calculees
+                    (dossier_id, campagne_id, salaire_moyen_annuel, trimestres_valides, taux_pension, montant, date_calcul)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """, insertions);
+            jdbcTemplate.update("""
+                UPDATE campagnes_pension
+                SET dernier_dossier_id = ?, dossiers_traites = dossiers_traites + ?
+                WHERE id = ?
+                """, dernierId, lignes.size(), campagneId);
+        });
+    }
+
+    private void terminer(Long id, StatutCampagne statut, String message) {
+        campagneRepository.findById(id).ifPresent(campagne -> {
+            campagne.setStatut(statut);
+            campagne.setDateFin(LocalDateTime.now());
+            campagne.setMessage(message);
+            campagneRepository.save(campagne);
+        });
+    }
+
+    private void verifierAucuneCampagneActive() {
+        if (campagneActive != null) {
+            throw new IllegalStateException("La campagne " + campagneActive + " est déjà en cours");
+        }
+    }
+
+    private CampagnePension getCampagne(Long id) {
+        return campagneRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Campagne non trouvée avec l'ID: " + id));
+    }
+
+    private CampagnePensionDTO toDto(CampagnePension campagne) {
+        double pourcentage = campagne.getTotalDossiers() > 0
+                ? Math.min(100.0, 100.0 * campagne.getDossiersTraites() / campagne.getTotalDossiers())
+                : (campagne.getStatut() == StatutCampagne.TERMINEE ? 100.0 : 0.0);
+        LocalDateTime fin = campagne.getDateFin() != null ? campagne.getDateFin() : LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(campagne.getDateDebut(), fin).toMillis());
+        return new CampagnePensionDTO(campagne.getId(), campagne.getStatut(), campagne.getTotalDossiers(),
+                campagne.getDossiersTraites(), Math.round(pourcentage * 10) / 10.0,
+                Math.round(campagne.getDossiersTraites() * 1000.0 / millis * 10) / 10.0,
+                campagne.getDateDebut(), campagne.getDateFin(), campagne.getMessage());
+    }
+
+    // Une campagne restée EN_COURS vient d'un arrêt du processus : elle devient reprenable
+    @EventListener(ApplicationReadyEvent.class)
+    public void marquerCampagnesInterrompues() {
+        campagneRepository.findByStatut(StatutCampagne.EN_COURS).forEach(campagne -> {
+            if (!campagne.getId().equals(campagneActive)) {
+                terminer(campagne.getId(), StatutCampagne.INTERROMPUE, "Arrêt de l'application pendant le calcul");
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onDossier(DossierEvent event) {
+        if (event.type() == TypeEvenement.SUPPRESSION) {
+            pensionCalculeeRepository.deleteById(event.dossierId());
+        }
+    }
+
+    @PreDestroy
+    public void arreter() {
+        interruptionDemandee = true;
+        coordinateur.shutdown();
+        calcul.shutdown();
+    }
+}
@@ -2,12 +2,15 @@ package com.str.Services;
 
 import com.str.DTO.CarriereDTO;
 import com.str.Enum.RegimeRetraite;
+import com.str.Enum.TypeEvenement;
+import com.str.Events.CarriereEvent;
 import com.str.Mappers.CarriereMapper;
 import com.str.Models.Carriere;
 import com.str.Models.DossierRetraite;
 import com.str.Repositories.CarriereRepository;
 import com.str.Repositories.DossierRepository;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,11 +24,14 @@ public class CarriereService {
     private final CarriereRepository carriereRepository;
     private final CarriereMapper carriereMapper;
     private final DossierRepository dossierRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CarriereService(CarriereRepository carriereRepository, CarriereMapper carriereMapper, DossierRepository dossierRepository) {
+    public CarriereService(CarriereRepository carriereRepository, CarriereMapper carriereMapper, DossierRepository dossierRepository,
+                           ApplicationEventPublisher eventPublisher) {
         this.carriereRepository = carriereRepository;
         this.carriereMapper = carriereMapper;
         this.dossierRepository = dossierRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -44,8 +50,11 @@ public class CarriereService {
         carriere.setRegimeRetraite(carriereDTO.getRegimeRetraite());
         carriere.setTrimestresValides(carriereDTO.getTrimestresValides());
         carriere.setDossier(dossier);
+        dossierRepository.marquerCarrieresModifiees(dossierId);
 
         Carriere saved = carriereRepository.save(carriere);
+        eventPublisher.publishEvent(new CarriereEvent(TypeEvenement.CREATION, saved.getId(), dossierId,
+                saved.getEntreprise(), null, saved.getSalaireMoyen()));
         return carriereMapper.toDto(saved);
     }
 
@@ -74,6 +83,7 @@ public class CarriereService {
     public CarriereDTO updateCarriere(Long id, CarriereDTO carriereDTO) {
         Carriere carriere = carriereRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Carrière non trouvée"));
+        BigDecimal ancienSalaire = carriere.getSalaireMoyen();
 
         carriere.setEntreprise(carriereDTO.getEntreprise());
         carriere.setPoste(carriereDTO.getPoste());
@@ -84,17 +94,22 @@ public class CarriereService {
         carriere.setSalaireMoyen(BigDecimal.valueOf(carriereDTO.getSalaireMoyen()));
         carriere.setRegimeRetraite(carriereDTO.getRegimeRetraite());
         carriere.setTrimestresValides(carriereDTO.getTrimestresValides());
+        dossierRepository.marquerCarrieresModifiees(carriere.getDossierId());
 
         Carriere updated = carriereRepository.save(carriere);
+        eventPublisher.publishEvent(new CarriereEvent(TypeEvenement.MODIFICATION, updated.getId(), updated.getDossierId(),
+                updated.getEntreprise(), ancienSalaire, updated.getSalaireMoyen()));
         return carriereMapper.toDto(updated);
     }
 
     @Transactional
     public void deleteCarriere(Long id) {
-        if (!carriereRepository.existsById(id)) {
-            throw new EntityNotFoundException("Carrière non trouvée");
-        }
-        carriereRepository.deleteById(id);
+        Carriere carriere = carriereRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Carrière non trouvée"));
+        dossierRepository.marquerCarrieresModifiees(carriere.getDossierId());
+        carriereRepository.delete(carriere);
+        eventPublisher.publishEvent(new CarriereEvent(TypeEvenement.SUPPRESSION, id, carriere.getDossierId(),
+                carriere.getEntreprise(), carriere.getSalaireMoyen(), null));
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,262 @@
+package com.str.Services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.str.Config.DocumentsAttendusProperties;
+import com.str.DTO.ContexteDossierDTO;
+import com.str.Enum.StatutDossier;
+import com.str.Events.CarriereEvent;
+import com.str.Events.DocumentEvent;
+import com.str.Events.DossierEvent;
+import com.str.Events.LotCarrieresEvent;
+import com.str.Events.LotPaiementsEvent;
+import com.str.Events.PaiementEvent;
+import com.str.Repositories.CarriereRepository;
+import com.str.Repositories.DocumentRepository;
+import com.str.Repositories.DossierRepository;
+import com.str.Repositories.PaiementRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contexte d'un dossier pour l'assistant : un résumé compact (statut, carrière et trimestres, pension estimée,
+ * derniers versements, justificatifs manquants) lu par requêtes de projection, sans charger le dossier ni ses
+ * collections, et rendu dans le prompt par GabaritPrompt. Le résumé et ses sections de texte sont mémorisés
+ * par dossier : un tour de conversation ne fait que le rendu du gabarit. Les événements du dossier, de ses
+ * carrières, paiements et documents invalident l'entrée après commit ; taille et durée de vie bornées
+ * (app.assistant.contexte.*). Ni le nom du bénéficiaire ni son numéro de sécurité sociale ne sont transmis.
+ */
+@Service
+public class ContexteDossierService {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private record Entree(ContexteDossierDTO resume, List<String> sections) {}
+
+    private record Justificatif(String libelle, List<String> motsCles) {}
+
+    private final DossierRepository dossierRepository;
+    private final CarriereRepository carriereRepository;
+    private final PaiementRepository paiementRepository;
+    private final DocumentRepository documentRepository;
+    private final PensionCache pensionCache;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Justificatif> justificatifs;
+    private final GabaritPrompt gabarit;
+    private final int paiements;
+    private final Cache<Long, Entree> cache;
+
+    private final LongAdder prompts = new LongAdder();
+    private final LongAdder dureePromptsNanos = new LongAdder();
+
+    public ContexteDossierService(DossierRepository dossierRepository, CarriereRepository carriereRepository,
+                                  PaiementRepository paiementRepository, DocumentRepository documentRepository,
+                                  PensionCache pensionCache, PlatformTransactionManager transactionManager,
+                                  DocumentsAttendusProperties documentsAttendus, ResourceLoader resourceLoader,
+                                  @Value("${app.assistant.contexte.gabarit:classpath:assistant/prompt-dossier.txt}") String gabarit,
+                                  @Value("${app.assistant.contexte.budget-tokens:800}") int budgetTokens,
+                                  @Value("${app.assistant.contexte.caracteres-par-token:4}") int caracteresParToken,
+                                  @Value("${app.assistant.contexte.paiements:3}") int paiements,
+                                  @Value("${app.assistant.contexte.taille-max:10000}") long tailleMax,
+                                  @Value("${app.assistant.contexte.duree-vie-secondes:300}") long dureeVieSecondes)
+            throws IOException {
+        this.dossierRepository = dossierRepository;
+        this.carriereRepository = carriereRepository;
+        this.paiementRepository = paiementRepository;
+        this.documentRepository = documentRepository;
+        this.pensionCache = pensionCache;
+        // Lectures du résumé dans une seule transaction en lecture seule (une connexion, pas de flush)
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.justificatifs = documentsAttendus.getDocumentsAttendus().stream()
+                .map(attendu -> new Justificatif(attendu.getLibelle(), attendu.getMotsCles().stream()
+                        .map(motCle -> " " + AutomateIntentions.replier(motCle).trim())
+                        .toList()))
+                .toList();
+        Resource source = resourceLoader.getResource(gabarit);
+        try (InputStream flux = source.getInputStream()) {
+            this.gabarit = new GabaritPrompt(new String(flux.readAllBytes(), StandardCharsets.UTF_8).stripTrailing(),
+                    budgetTokens * caracteresParToken);
+        }
+        this.paiements = paiements;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .expireAfterWrite(Duration.ofSeconds(dureeVieSecondes))
+                .recordStats()
+                .build();
+    }
+
+    public ContexteDossierDTO getContexte(Long dossierId) {
+        return cache.get(dossierId, this::charger).resume();
+    }
+
+    // Prompt à envoyer au modèle pour une question sur ce dossier ; EntityNotFoundException si le dossier n'existe pas
+    public String construirePrompt(Long dossierId, String question) {
+        long debut = System.nanoTime();
+        String prompt = gabarit.rendre(cache.get(dossierId, this::charger).sections(), question);
+        prompts.increment();
+        dureePromptsNanos.add(System.nanoTime() - debut);
+        return prompt;
+    }
+
+    public void invalider(Long dossierId) {
+        if (dossierId != null) {
+            cache.invalidate(dossierId);
+        }
+    }
+
+    public Map<String, Object> getStatistiques() {
+        CacheStats stats = cache.stats();
+        long nombre = prompts.sum();
+        Map<String, Object> statistiques = new LinkedHashMap<>();
+        statistiques.put("taille", cache.estimatedSize());
+        statistiques.put("succes", stats.hitCount());
+        statistiques.put("chargements", stats.loadCount());
+        statistiques.put("chargementMoyenMs", Math.round(stats.averageLoadPenalty() / 1000.0) / 1000.0);
+        statistiques.put("prompts", nombre);
+        statistiques.put("promptMoyenMicros", nombre > 0 ? dureePromptsNanos.sum() / nombre / 1000 : 0);
+        statistiques.put("caracteresMax", gabarit.getCaracteresMax());
+        return statistiques;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDossier(DossierEvent event) {
+        invalider(event.dossierId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarriere(CarriereEvent event) {
+        invalider(event.dossierId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLotCarrieres(LotCarrieresEvent event) {
+        cache.invalidateAll(event.dossierIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaiement(PaiementEvent event) {
+        invalider(event.dossierId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLotPaiements(LotPaiementsEvent event) {
+        cache.invalidateAll(event.dossierIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocument(DocumentEvent event) {
+        invalider(event.dossierId());
+    }
+
+    private Entree charger(Long dossierId) {
+        ContexteDossierDTO resume = transactionTemplate.execute(status -> lire(dossierId));
+        return new Entree(resume, sections(resume));
+    }
+
+    // Cinq requêtes de projection au plus (la pension vient de PensionCache), aucune entité chargée
+    private ContexteDossierDTO lire(Long dossierId) {
+        List<Object[]> dossier = dossierRepository.findPourContexte(dossierId);
+        if (dossier.isEmpty()) {
+            throw new EntityNotFoundException("Dossier non trouvé avec l'ID: " + dossierId);
+        }
+        StatutDossier statut = (StatutDossier) dossier.get(0)[0];
+        LocalDate dateCreation = (LocalDate) dossier.get(0)[1];
+        long version = ((Number) dossier.get(0)[2]).longValue();
+
+        Object[] carrieres = carriereRepository.compterPourContexte(dossierId).get(0);
+        PensionResultat pension = pensionCache.get(dossierId, version);
+
+        List<ContexteDossierDTO.Versement> versements = new ArrayList<>(paiements);
+        for (Object[] ligne : paiementRepository.findDerniersPourContexte(dossierId, PageRequest.of(0, paiements))) {
+            versements.add(new ContexteDossierDTO.Versement((String) ligne[0], (BigDecimal) ligne[1],
+                    (LocalDate) ligne[2], (String) ligne[3]));
+        }
+
+        List<Object[]> documents = documentRepository.findPourContexte(dossierId);
+        StringBuilder deposes = new StringBuilder();
+        for (Object[] document : documents) {
+            deposes.append(' ').append(AutomateIntentions.replier(document[0] + " " + document[1] + " " + document[2]));
+        }
+        String texteDeposes = deposes.toString();
+        List<String> manquants = new ArrayList<>();
+        for (Justificatif justificatif : justificatifs) {
+            if (justificatif.motsCles().stream().noneMatch(texteDeposes::contains)) {
+                manquants.add(justificatif.libelle());
+            }
+        }
+
+        return new ContexteDossierDTO(dossierId, statut, dateCreation,
+                ((Number) carrieres[0]).longValue(), ((Number) carrieres[1]).longValue(),
+                pension.trimestresValides(), pension.montantMensuel(), pension.tauxPension(),
+                List.copyOf(versements), documents.size(), List.copyOf(manquants));
+    }
+
+    // Sections du contexte par priorité décroissante : les dernières sont abandonnées si le budget manque
+    private static List<String> sections(ContexteDossierDTO resume) {
+        List<String> sections = new ArrayList<>();
+        sections.add("Statut du dossier : " + libelle(resume.statut())
+                + (resume.dateCreation() != null ? " (ouvert le " + DATE.format(resume.dateCreation()) + ")" : "") + ".");
+        sections.add(resume.documentsManquants().isEmpty()
+                ? "Justificatifs : tous les justificatifs attendus sont déposés (" + resume.nombreDocuments() + " documents)."
+                : "Justificatifs manquants : " + String.join(", ", resume.documentsManquants())
+                        + " (" + resume.nombreDocuments() + " documents déposés).");
+        sections.add("Carrière : " + resume.nombreCarrieres() + " période(s) enregistrée(s) dont "
+                + resume.carrieresEnCours() + " en cours, " + resume.trimestresValides() + " trimestres validés.");
+        sections.add(resume.pensionMensuelleEstimee().signum() > 0
+                ? "Pension estimée : " + montant(resume.pensionMensuelleEstimee()) + " € par mois, taux de "
+                        + montant(resume.tauxPension()) + " %."
+                : "Pension estimée : non calculable en l'état du dossier.");
+        List<ContexteDossierDTO.Versement> versements = resume.derniersPaiements();
+        if (versements.isEmpty()) {
+            sections.add("Paiements : aucun versement enregistré.");
+        }
+        for (int i = 0; i < versements.size(); i++) {
+            ContexteDossierDTO.Versement versement = versements.get(i);
+            sections.add((i == 0 ? "Derniers paiements :\n" : "") + "- "
+                    + (versement.periode() != null ? versement.periode() + " : " : "")
+                    + montant(versement.montant()) + " € versé le " + DATE.format(versement.dateVersement())
+                    + (versement.statut() != null ? " (" + versement.statut().toLowerCase(Locale.ROOT).replace('_', ' ') + ")" : ""));
+        }
+        return List.copyOf(sections);
+    }
+
+    private static String libelle(StatutDossier statut) {
+        if (statut == null) {
+            return "non renseigné";
+        }
+        return switch (statut) {
+            case BROUILLON -> "brouillon, pas encore déposé";
+            case EN_COURS -> "en cours d'instruction";
+            case VALIDE -> "validé";
+            case REJETE -> "rejeté";
+        };
+    }
+
+    private static String montant(BigDecimal valeur) {
+        return valeur.setScale(2, RoundingMode.HALF_UP).toPlainString().replace('.', ',');
+    }
+}
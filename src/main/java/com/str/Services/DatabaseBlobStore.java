@@ -0,0 +1,164 @@
+package com.str.Services;
+
+import com.str.Repositories.BlobChunkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Backend base de données : le contenu est découpé en morceaux de taille fixe (table blob_chunks),
+ * écrits dans une seule transaction et relus un par un à la lecture.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "database")
+public class DatabaseBlobStore implements BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseBlobStore.class);
+
+    private final BlobChunkRepository blobChunkRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int tailleMorceau;
+
+    public DatabaseBlobStore(BlobChunkRepository blobChunkRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.storage.chunk-size:262144}") int tailleMorceau) {
+        this.blobChunkRepository = blobChunkRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Transaction propre : l'écriture comme la suppression (appelée après commit) ne dépendent pas de l'appelant
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tailleMorceau = tailleMorceau;
+    }
+
+    @Override
+    public String store(InputStream contenu) throws IOException {
+        // L'empreinte n'est connue qu'en fin de flux : passage par un fichier temporaire
+        Path temporaire = Files.createTempFile("blob-", ".part");
+        try {
+            String hash = BlobStore.copierAvecEmpreinte(contenu, temporaire);
+            if (!blobChunkRepository.existsByHash(hash)) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> ecrireMorceaux(hash, temporaire));
+                } catch (DataIntegrityViolationException e) {
+                    // Même contenu écrit en parallèle
+                    log.debug("Contenu {} déjà présent", hash);
+                }
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+
+    private void ecrireMorceaux(String hash, Path fichier) {
+        try (InputStream entree = Files.newInputStream(fichier)) {
+            int numero = 0;
+            byte[] morceau;
+            while ((morceau = entree.readNBytes(tailleMorceau)).length > 0) {
+                jdbcTemplate.update("INSERT INTO blob_chunks (hash, numero, taille, donnees) VALUES (?, ?, ?, ?)",
+                        hash, numero++, morceau.length, morceau);
+            }
+            if (numero == 0) {
+                // Contenu vide : un morceau vide matérialise son existence
+                jdbcTemplate.update("INSERT INTO blob_chunks (hash, numero, taille, donnees) VALUES (?, 0, 0, ?)",
+                        hash, new byte[0]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Resource load(String hash) throws IOException {
+        BlobStore.verifierEmpreinte(hash);
+        List<Object[]> lignes = blobChunkRepository.compterMorceaux(hash);
+        long morceaux = lignes.isEmpty() ? 0 : ((Number) lignes.get(0)[0]).longValue();
+        if (morceaux == 0) {
+            throw new NoSuchFileException("Contenu introuvable: " + hash);
+        }
+        return new MorceauxResource(hash, (int) morceaux, ((Number) lignes.get(0)[1]).longValue());
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return blobChunkRepository.existsByHash(BlobStore.verifierEmpreinte(hash));
+    }
+
+    @Override
+    public void delete(String hash) {
+        BlobStore.verifierEmpreinte(hash);
+        transactionTemplate.executeWithoutResult(status -> blobChunkRepository.deleteByHash(hash));
+    }
+
+    // Ressource relisible : chaque ouverture enchaîne les morceaux à la demande
+    private class MorceauxResource extends AbstractResource {
+        private final String hash;
+        private final int morceaux;
+        private final long taille;
+
+        MorceauxResource(String hash, int morceaux, long taille) {
+            this.hash = hash;
+            this.morceaux = morceaux;
+            this.taille = taille;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new SequenceInputStream(new Enumeration<>() {
+                private int suivant = 0;
+
+                @Override
+                public boolean hasMoreElements() {
+                    return suivant < morceaux;
+                }
+
+                @Override
+                public InputStream nextElement() {
+                    if (suivant >= morceaux) {
+                        throw new NoSuchElementException();
+                    }
+                    byte[] donnees = blobChunkRepository.findDonnees(hash, suivant++);
+                    return new ByteArrayInputStream(donnees != null ? donnees : new byte[0]);
+                }
+            });
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return taille;
+        }
+
+        @Override
+        public String getDescription() {
+            return "blob [" + hash + "]";
+        }
+    }
+}
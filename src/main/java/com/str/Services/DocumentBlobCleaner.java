@@ -0,0 +1,55 @@
+package com.str.Services;
+
+import com.str.Enum.TypeEvenement;
+import com.str.Events.DocumentEvent;
+import com.str.Repositories.BlobReferenceRepository;
+import com.str.Repositories.TexteExtraitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+
+/**
+ * Libère un contenu du BlobStore, et son texte extrait, quand son compteur de références (blob_references)
+ * retombe à zéro.
+ * Exécuté après le commit de la suppression (y compris les suppressions en cascade d'un dossier).
+ */
+@Component
+public class DocumentBlobCleaner {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentBlobCleaner.class);
+
+    private final BlobReferenceRepository blobReferenceRepository;
+    private final TexteExtraitRepository texteExtraitRepository;
+    private final BlobStore blobStore;
+
+    public DocumentBlobCleaner(BlobReferenceRepository blobReferenceRepository,
+                               TexteExtraitRepository texteExtraitRepository, BlobStore blobStore) {
+        this.blobReferenceRepository = blobReferenceRepository;
+        this.texteExtraitRepository = texteExtraitRepository;
+        this.blobStore = blobStore;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onDocument(DocumentEvent event) {
+        if (event.type() != TypeEvenement.SUPPRESSION || event.contentHash() == null) {
+            return;
+        }
+        if (blobReferenceRepository.supprimerSiOrpheline(event.contentHash()) == 0) {
+            return;
+        }
+        if (texteExtraitRepository.existsById(event.contentHash())) {
+            texteExtraitRepository.deleteById(event.contentHash());
+        }
+        try {
+            blobStore.delete(event.contentHash());
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer le contenu {}", event.contentHash(), e);
+        }
+    }
+}
@@ -1,30 +1,34 @@
 package com.str.Services;
 
 import com.str.DTO.DocumentDTO;
+import com.str.Enum.TypeEvenement;
+import com.str.Events.DocumentEvent;
 import com.str.Mappers.DocumentMapper;
 import com.str.Models.Document;
 import com.str.Models.DossierRetraite;
+import com.str.Repositories.BlobReferenceRepository;
 import com.str.Repositories.DocumentRepository;
 import com.str.Repositories.DossierRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
+import java.util.Locale;
 
 @Service
 @Transactional
@@ -35,9 +39,9 @@ public class DocumentService {
     private final DocumentRepository documentRepository;
     private final DossierRepository dossierRepository;
     private final DocumentMapper documentMapper;
-
-    @Value("${app.upload.dir:uploads}")
-    private String uploadDir;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlobStore blobStore;
+    private final BlobReferenceRepository blobReferenceRepository;
 
     @Value("${app.upload.max-file-size:10485760}")
     private long maxFileSize;
@@ -53,13 +57,25 @@ public class DocumentService {
 
     public DocumentService(DocumentRepository documentRepository,
                           DossierRepository dossierRepository,
-                          DocumentMapper documentMapper) {
+                          DocumentMapper documentMapper,
+                          ApplicationEventPublisher eventPublisher,
+                          BlobStore blobStore,
+                          BlobReferenceRepository blobReferenceRepository) {
         this.documentRepository = documentRepository;
         this.dossierRepository = dossierRepository;
         this.documentMapper = documentMapper;
+        this.eventPublisher = eventPublisher;
+        this.blobStore = blobStore;
+        this.blobReferenceRepository = blobReferenceRepository;
     }
 
     public DocumentDTO uploadDocument(Long dossierId, MultipartFile file, String description) throws IOException {
+        return uploadDocument(dossierId, file, description, null);
+    }
+
+    // empreinteAttendue : SHA-256 annoncé par le client (optionnel), vérifié sur le contenu reçu
+    public DocumentDTO uploadDocument(Long dossierId, MultipartFile file, String description,
+                                      String empreinteAttendue) throws IOException {
         log.info("Début de l'upload du document pour le dossier {}", dossierId);
 
         // Vérifier que le dossier existe
@@ -72,48 +88,87 @@ public class DocumentService {
         // Validation du fichier
         validateFile(file);
 
-        // Créer le répertoire de stockage s'il n'existe pas
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-
-        // Générer un nom de fichier unique
+        // Sauvegarder le contenu dans le BlobStore (adressé par empreinte, partagé entre dossiers)
         String originalFilename = file.getOriginalFilename();
-        String fileExtension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        }
-        String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
+        String contentHash = stockerContenu(file, empreinteAttendue);
 
-        // Sauvegarder le fichier
-        Path filePath = uploadPath.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        Document savedDocument = enregistrer(dossier, originalFilename, file.getContentType(), file.getSize(),
+                description, contentHash);
+        return documentMapper.toDto(savedDocument);
+    }
+
+    /*
+     * Rattache au dossier un fichier déjà complet sur disque (upload par morceaux). Le fichier est
+     * déplacé dans le BlobStore sans recopie ; son empreinte doit correspondre à celle annoncée.
+     */
+    public DocumentDTO attacherFichier(Long dossierId, Path fichier, String nom, String typeMime,
+                                       String description, String empreinteAttendue) throws IOException {
+        DossierRetraite dossier = dossierRepository.findById(dossierId)
+                .orElseThrow(() -> new EntityNotFoundException("Dossier non trouvé avec l'ID: " + dossierId));
+        long taille = Files.size(fichier);
 
-        // Créer l'entité Document
+        String attendue;
+        if (empreinteAttendue != null) {
+            attendue = empreinteAttendue.toLowerCase(Locale.ROOT);
+        } else {
+            try (InputStream contenu = Files.newInputStream(fichier)) {
+                attendue = BlobStore.empreinte(contenu);
+            }
+        }
+        // Référence prise avant l'import : un nettoyage concurrent du même contenu est terminé ou écarté
+        blobReferenceRepository.referencer(attendue);
+        String contentHash = verifierEmpreinte(blobStore.importer(fichier), attendue);
+        return documentMapper.toDto(enregistrer(dossier, nom, typeMime, taille, description, contentHash));
+    }
+
+    private Document enregistrer(DossierRetraite dossier, String nom, String typeMime, long taille,
+                                 String description, String contentHash) {
         Document document = new Document();
-        document.setNom(originalFilename);
-        document.setType(file.getContentType());
-        document.setTypeMime(file.getContentType()); // Correction ici
-        document.setTailleFichier(file.getSize());
-        document.setNomFichier(filePath.toString());
+        document.setNom(nom);
+        document.setType(typeMime);
+        document.setTypeMime(typeMime);
+        document.setTailleFichier(taille);
+        document.setNomFichier(nom != null ? nom : contentHash);
+        document.setContentHash(contentHash);
         document.setDateUpload(LocalDateTime.now());
         document.setDescription(description);
         document.setDossier(dossier);
 
         Document savedDocument = documentRepository.save(document);
         log.info("Document sauvegardé avec l'ID {}", savedDocument.getId());
-
-        return documentMapper.toDto(savedDocument);
+        eventPublisher.publishEvent(new DocumentEvent(TypeEvenement.CREATION, savedDocument.getId(), dossier.getId(),
+                savedDocument.getNom(), contentHash));
+        return savedDocument;
     }
 
-    public DocumentDTO.Response createDocument(Long dossierId, DocumentDTO.Create dto) {
+    public DocumentDTO.Response createDocument(Long dossierId, DocumentDTO.Create dto) throws IOException {
         DossierRetraite dossier = dossierRepository.findById(dossierId)
             .orElseThrow(() -> new EntityNotFoundException("Dossier non trouvé avec l'ID: " + dossierId));
         Document document = documentMapper.toEntity(dto); // Conversion correcte du DTO en entité
+        document.setContentHash(stockerContenu(new ByteArrayResource(dto.getContenu()), null));
         document.setDossier(dossier);
         document.setDateUpload(LocalDateTime.now());
         Document saved = documentRepository.save(document);
+        eventPublisher.publishEvent(new DocumentEvent(TypeEvenement.CREATION, saved.getId(), dossierId,
+                saved.getNom(), saved.getContentHash()));
+        return documentMapper.toResponse(saved);
+    }
+
+    public DocumentDTO.Response updateDocument(Long id, DocumentDTO.Update dto) {
+        Document document = documentRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("Document non trouvé avec l'ID: " + id));
+        if (dto.getNom() != null) {
+            document.setNom(dto.getNom());
+        }
+        if (dto.getType() != null) {
+            document.setType(dto.getType());
+        }
+        if (dto.getDescription() != null) {
+            document.setDescription(dto.getDescription());
+        }
+        Document saved = documentRepository.save(document);
+        eventPublisher.publishEvent(new DocumentEvent(TypeEvenement.MODIFICATION, id,
+                saved.getDossier() != null ? saved.getDossier().getId() : null, saved.getNom(), saved.getContentHash()));
         return documentMapper.toResponse(saved);
     }
 
@@ -149,34 +204,79 @@ public class DocumentService {
                 .orElseThrow(() -> new EntityNotFoundException("Document non trouvé avec l'ID: " + id));
     }
 
+    @Transactional(readOnly = true)
     public Resource downloadDocument(Long documentId) throws IOException {
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new EntityNotFoundException("Document non trouvé avec l'ID: " + documentId));
+        return downloadDocument(document);
+    }
 
-        Path filePath = Paths.get(document.getNomFichier());
-        Resource resource = new UrlResource(filePath.toUri());
-
-        if (resource.exists() && resource.isReadable()) {
-            return resource;
-        } else {
-            throw new IOException("Fichier non trouvé ou non lisible: " + document.getNomFichier());
+    // Ouvre le contenu sans le lire : les octets ne sont parcourus qu'à l'écriture de la réponse
+    public Resource downloadDocument(Document document) throws IOException {
+        if (document.getContentHash() == null) {
+            throw new IOException("Aucun contenu enregistré pour le document: " + document.getId());
         }
+        return blobStore.load(document.getContentHash());
     }
 
-    public void deleteDocument(Long id) throws IOException {
+    public void deleteDocument(Long id) {
         Document document = documentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Document non trouvé avec l'ID: " + id));
 
-        // Supprimer le fichier physique
-        try {
-            Path filePath = Paths.get(document.getNomFichier());
-            Files.deleteIfExists(filePath);
-        } catch (IOException e) {
-            log.warn("Impossible de supprimer le fichier physique: {}", document.getNomFichier(), e);
+        // Supprimer l'enregistrement en base ; le contenu est libéré après commit s'il n'est plus référencé
+        documentRepository.delete(document);
+        if (document.getContentHash() != null) {
+            blobReferenceRepository.decrementer(document.getContentHash());
         }
+        eventPublisher.publishEvent(new DocumentEvent(TypeEvenement.SUPPRESSION, id,
+                document.getDossier() != null ? document.getDossier().getId() : null, document.getNom(),
+                document.getContentHash()));
+    }
 
-        // Supprimer l'enregistrement en base
-        documentRepository.delete(document);
+    /*
+     * Ajoute une référence au contenu et le stocke. La référence est prise en premier dès que l'empreinte
+     * est connue : une fois la ligne verrouillée, DocumentBlobCleaner ne peut plus libérer ce contenu, et
+     * s'il l'a libéré juste avant, il est réécrit ici. Si l'empreinte annoncée par le client est déjà
+     * stockée, le flux est seulement haché pour vérification : aucun octet n'est écrit.
+     */
+    private String stockerContenu(InputStreamSource source, String empreinteAttendue) throws IOException {
+        if (empreinteAttendue == null) {
+            String hash;
+            try (InputStream contenu = source.getInputStream()) {
+                hash = blobStore.store(contenu);
+            }
+            blobReferenceRepository.referencer(hash);
+            if (!blobStore.exists(hash)) {
+                try (InputStream contenu = source.getInputStream()) {
+                    blobStore.store(contenu);
+                }
+            }
+            return hash;
+        }
+        String attendue = empreinteAttendue.toLowerCase(Locale.ROOT);
+        blobReferenceRepository.referencer(attendue);
+        String hash;
+        try (InputStream contenu = source.getInputStream()) {
+            if (blobStore.exists(attendue)) {
+                log.info("Contenu {} déjà stocké, document dédoublonné", attendue);
+                hash = BlobStore.empreinte(contenu);
+            } else {
+                hash = blobStore.store(contenu);
+            }
+        }
+        // En cas d'écart, l'exception annule la transaction et donc la référence posée sur l'empreinte annoncée
+        return verifierEmpreinte(hash, attendue);
+    }
+
+    private String verifierEmpreinte(String hash, String empreinteAttendue) throws IOException {
+        if (empreinteAttendue != null && !empreinteAttendue.equalsIgnoreCase(hash)) {
+            // Contenu écrit sous une autre empreinte que celle référencée : il serait orphelin
+            if (!blobReferenceRepository.existsById(hash)) {
+                blobStore.delete(hash);
+            }
+            throw new IllegalArgumentException("L'empreinte SHA-256 du fichier ne correspond pas à celle annoncée");
+        }
+        return hash;
     }
 
     private void validateFile(MultipartFile file) {
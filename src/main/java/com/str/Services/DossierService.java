@@ -1,16 +1,26 @@
 package com.str.Services;
 
+import com.str.DTO.CursorPageDTO;
 import com.str.DTO.DossierDTO;
+import com.str.DTO.DossierResumeDTO;
+import com.str.Enum.RegimeRetraite;
 import com.str.Enum.StatutDossier;
+import com.str.Enum.TypeEvenement;
+import com.str.Enum.VueDossier;
+import com.str.Events.CarriereEvent;
+import com.str.Events.DocumentEvent;
+import com.str.Events.DossierEvent;
 import com.str.Mappers.DossierMapper;
 import com.str.Models.DossierRetraite;
 import com.str.Models.Beneficiaire;
+import com.str.Repositories.BlobReferenceRepository;
 import com.str.Repositories.DossierRepository;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -19,12 +29,23 @@ import java.util.Map;
 @Service
 @Transactional
 public class DossierService {
+    public static final int LIMITE_PAGE_MAX = 200;
+
     private final DossierRepository dossierRepository;
     private final DossierMapper dossierMapper;
-
-    public DossierService(DossierRepository dossierRepository, DossierMapper dossierMapper) {
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlobReferenceRepository blobReferenceRepository;
+    private final PensionCache pensionCache;
+
+    public DossierService(DossierRepository dossierRepository, DossierMapper dossierMapper,
+                          ApplicationEventPublisher eventPublisher,
+                          BlobReferenceRepository blobReferenceRepository,
+                          PensionCache pensionCache) {
         this.dossierRepository = dossierRepository;
         this.dossierMapper = dossierMapper;
+        this.eventPublisher = eventPublisher;
+        this.blobReferenceRepository = blobReferenceRepository;
+        this.pensionCache = pensionCache;
     }
 
     public DossierDTO createDossier(DossierDTO dossierDTO) {
@@ -33,35 +54,95 @@ public class DossierService {
         dossier.setDateCreation(LocalDate.now());
 
         DossierRetraite savedDossier = dossierRepository.save(dossier);
+        eventPublisher.publishEvent(new DossierEvent(TypeEvenement.CREATION, savedDossier.getId(),
+                savedDossier.getNumeroSecuriteSociale(), null, savedDossier.getStatut()));
         return dossierMapper.toDto(savedDossier);
     }
 
     @Transactional(readOnly = true)
     public DossierDTO getDossierById(Long id) {
-        return dossierRepository.findById(id)
-                .map(dossierMapper::toDto)
+        DossierRetraite dossier = dossierRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Dossier non trouvé avec l'ID: " + id));
+        DossierDTO dto = dossierMapper.toDto(dossier);
+        dto.setPensionMensuelle(pensionCache.get(id, dossier.getVersionCarrieres()).montantMensuel());
+        return dto;
     }
 
     @Transactional(readOnly = true)
     public List<DossierDTO> getAllDossiers() {
-        return dossierRepository.findAll()
-                .stream()
-                .map(dossierMapper::toDto)
-                .toList();
+        return getAllDossiers(VueDossier.COMPLET);
+    }
+
+    /*
+     * Les carrières sont lues par jointure (entity graph) ; paiements et documents sont initialisés
+     * par lots (hibernate.default_batch_fetch_size) : le nombre de requêtes ne dépend plus de N.
+     */
+    @Transactional(readOnly = true)
+    public List<DossierDTO> getAllDossiers(VueDossier vue) {
+        List<DossierRetraite> dossiers = vue == VueDossier.RESUME
+                ? dossierRepository.findAll()
+                : dossierRepository.findAllWithCarrieres();
+        return toDtos(dossiers, vue);
     }
 
     @Transactional(readOnly = true)
     public List<DossierDTO> getDossiersByStatut(StatutDossier statut) {
-        return dossierRepository.findByStatut(statut)
-                .stream()
-                .map(dossierMapper::toDto)
+        return getDossiersByStatut(statut, VueDossier.COMPLET);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DossierDTO> getDossiersByStatut(StatutDossier statut, VueDossier vue) {
+        List<DossierRetraite> dossiers = vue == VueDossier.RESUME
+                ? dossierRepository.findByStatut(statut)
+                : dossierRepository.findByStatutWithCarrieres(statut);
+        return toDtos(dossiers, vue);
+    }
+
+    // Pension mensuelle lue dans le cache ; les dossiers absents sont calculés en une requête
+    private List<DossierDTO> toDtos(List<DossierRetraite> dossiers, VueDossier vue) {
+        Map<Long, Long> versions = new HashMap<>(dossiers.size() * 2);
+        dossiers.forEach(dossier -> versions.put(dossier.getId(), dossier.getVersionCarrieres()));
+        Map<Long, PensionResultat> pensions = pensionCache.getAll(versions);
+        return dossiers.stream()
+                .map(dossier -> {
+                    DossierDTO dto = dossierMapper.toDto(dossier, vue);
+                    dto.setPensionMensuelle(pensions.get(dossier.getId()).montantMensuel());
+                    return dto;
+                })
                 .toList();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<DossierResumeDTO> getDossiersPage(int limite, String curseur, StatutDossier statut,
+                                                           RegimeRetraite regime, LocalDate dateDebut,
+                                                           LocalDate dateFin, String prefixeNom) {
+        if (limite < 1 || limite > LIMITE_PAGE_MAX) {
+            throw new IllegalArgumentException("La limite doit être comprise entre 1 et " + LIMITE_PAGE_MAX);
+        }
+        long apresId;
+        try {
+            apresId = curseur != null ? Long.parseLong(curseur) : Long.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Curseur invalide: " + curseur);
+        }
+        String prefixe = prefixeNom != null && !prefixeNom.isBlank()
+                ? prefixeNom.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_")
+                : null;
+
+        // Une ligne de plus que demandé pour savoir s'il existe une page suivante
+        List<DossierResumeDTO> resumes = dossierRepository.findResumes(apresId, statut, regime, dateDebut, dateFin,
+                prefixe, PageRequest.of(0, limite + 1));
+        if (resumes.size() > limite) {
+            List<DossierResumeDTO> page = resumes.subList(0, limite);
+            return new CursorPageDTO<>(List.copyOf(page), String.valueOf(page.get(limite - 1).id()));
+        }
+        return new CursorPageDTO<>(resumes, null);
+    }
+
     public DossierDTO updateDossier(Long id, DossierDTO dossierDTO) {
         DossierRetraite existingDossier = dossierRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Dossier non trouvé avec l'ID: " + id));
+        StatutDossier ancienStatut = existingDossier.getStatut();
 
         // Mettre à jour les champs modifiables
         if (dossierDTO.getNumeroSecuriteSociale() != null) {
@@ -101,6 +182,8 @@ public class DossierService {
 
 
         DossierRetraite updatedDossier = dossierRepository.save(existingDossier);
+        eventPublisher.publishEvent(new DossierEvent(TypeEvenement.MODIFICATION, updatedDossier.getId(),
+                updatedDossier.getNumeroSecuriteSociale(), ancienStatut, updatedDossier.getStatut()));
         return dossierMapper.toDto(updatedDossier);
     }
 
@@ -108,48 +191,53 @@ public class DossierService {
         DossierRetraite dossier = dossierRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Dossier non trouvé avec l'ID: " + id));
 
+        StatutDossier ancienStatut = dossier.getStatut();
         dossier.setStatut(nouveauStatut);
         DossierRetraite updatedDossier = dossierRepository.save(dossier);
+        eventPublisher.publishEvent(new DossierEvent(TypeEvenement.MODIFICATION, updatedDossier.getId(),
+                updatedDossier.getNumeroSecuriteSociale(), ancienStatut, nouveauStatut));
         return dossierMapper.toDto(updatedDossier);
     }
 
     public void deleteDossier(Long id) {
-        if (!dossierRepository.existsById(id)) {
-            throw new EntityNotFoundException("Dossier non trouvé avec l'ID: " + id);
+        DossierRetraite dossier = dossierRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Dossier non trouvé avec l'ID: " + id));
+
+        // Les carrières et documents sont supprimés en cascade : on le signale aussi
+        if (dossier.getCarrieres() != null) {
+            dossier.getCarrieres().forEach(carriere -> eventPublisher.publishEvent(new CarriereEvent(
+                    TypeEvenement.SUPPRESSION, carriere.getId(), id, carriere.getEntreprise(), carriere.getSalaireMoyen(), null)));
         }
-        dossierRepository.deleteById(id);
+        if (dossier.getDocuments() != null) {
+            dossier.getDocuments().forEach(document -> {
+                if (document.getContentHash() != null) {
+                    blobReferenceRepository.decrementer(document.getContentHash());
+                }
+                eventPublisher.publishEvent(new DocumentEvent(
+                        TypeEvenement.SUPPRESSION, document.getId(), id, document.getNom(), document.getContentHash()));
+            });
+        }
+        dossierRepository.delete(dossier);
+        eventPublisher.publishEvent(new DossierEvent(TypeEvenement.SUPPRESSION, id,
+                dossier.getNumeroSecuriteSociale(), dossier.getStatut(), null));
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> calculatePension(Long dossierId) {
-        DossierRetraite dossier = dossierRepository.findById(dossierId)
+        long version = dossierRepository.findVersionCarrieres(dossierId)
                 .orElseThrow(() -> new EntityNotFoundException("Dossier non trouvé avec l'ID: " + dossierId));
 
-        // Calcul simplifié de la pension basé sur les carrières
-        double salaireMoyenAnnuel = 0.0;
-        int trimestresValides = 0;
-
-        if (dossier.getCarrieres() != null && !dossier.getCarrieres().isEmpty()) {
-            salaireMoyenAnnuel = dossier.getCarrieres().stream()
-                    .mapToDouble(carriere -> carriere.getSalaireMoyen() != null ? carriere.getSalaireMoyen().doubleValue() : 0)
-                    .average()
-                    .orElse(0.0);
-
-            trimestresValides = dossier.getCarrieres().stream()
-                    .mapToInt(carriere -> carriere.getTrimestresValides() != null ? carriere.getTrimestresValides() : 0)
-                    .sum();
-        }
-
-        // Formule simplifiée : 50% du salaire moyen si 160 trimestres ou plus
-        double tauxPension = Math.min(50.0, (trimestresValides / 160.0) * 50.0);
-        double montantPension = (salaireMoyenAnnuel * tauxPension) / 100.0;
+        // Carrières agrégées en base (même chemin que le calcul par campagne), mémorisées par version
+        PensionResultat calcul = pensionCache.get(dossierId, version);
 
         Map<String, Object> resultat = new HashMap<>();
-        resultat.put("montant", BigDecimal.valueOf(montantPension));
+        resultat.put("montant", calcul.montantAnnuel());
+        resultat.put("montantMensuel", calcul.montantMensuel());
 
         Map<String, Object> details = new HashMap<>();
-        details.put("salaireMoyenAnnuel", salaireMoyenAnnuel);
-        details.put("trimestresValides", trimestresValides);
-        details.put("tauxPension", tauxPension);
+        details.put("salaireMoyenAnnuel", calcul.salaireMoyenAnnuel().doubleValue());
+        details.put("trimestresValides", calcul.trimestresValides());
+        details.put("tauxPension", calcul.tauxPension().doubleValue());
         resultat.put("details", details);
 
         return resultat;
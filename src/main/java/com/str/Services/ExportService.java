@@ -0,0 +1,208 @@
+package com.str.Services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.str.DTO.CarriereDTO;
+import com.str.DTO.DossierDTO;
+import com.str.DTO.PaiementDTO;
+import com.str.Enum.FormatExport;
+import com.str.Enum.RegimeRetraite;
+import com.str.Enum.StatutDossier;
+import com.str.Mappers.CarriereMapper;
+import com.str.Mappers.DossierMapper;
+import com.str.Mappers.PaiementMapper;
+import com.str.Models.Beneficiaire;
+import com.str.Models.Carriere;
+import com.str.Models.DossierRetraite;
+import com.str.Models.Paiement;
+import com.str.Repositories.CarriereRepository;
+import com.str.Repositories.DossierRepository;
+import com.str.Repositories.PaiementRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exports en flux des dossiers (vue résumé), carrières et paiements, en NDJSON ou CSV.
+ * Les lignes sont lues sur un curseur en avant seul (méthodes streamPourExport des repositories), converties
+ * par les mappers et écrites aussitôt : le contexte de persistance est vidé toutes les
+ * app.export.lignes-par-purge lignes, la mémoire ne dépend donc pas du nombre de lignes exportées.
+ * Les mappers utilisés ne touchent aucune association paresseuse (l'id du dossier est lu sur le proxy) :
+ * aucune autre requête n'est émise pendant la lecture du curseur.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private record Colonne<T>(String nom, Function<T, Object> valeur) {}
+
+    private static final List<Colonne<DossierDTO>> COLONNES_DOSSIERS = List.of(
+            new Colonne<>("id", DossierDTO::getId),
+            new Colonne<>("numeroSecuriteSociale", DossierDTO::getNumeroSecuriteSociale),
+            new Colonne<>("nom", d -> beneficiaire(d, Beneficiaire::getNom)),
+            new Colonne<>("prenom", d -> beneficiaire(d, Beneficiaire::getPrenom)),
+            new Colonne<>("dateNaissance", d -> beneficiaire(d, Beneficiaire::getDateNaissance)),
+            new Colonne<>("adresse", d -> beneficiaire(d, Beneficiaire::getAdresse)),
+            new Colonne<>("email", d -> beneficiaire(d, Beneficiaire::getEmail)),
+            new Colonne<>("telephone", d -> beneficiaire(d, Beneficiaire::getTelephone)),
+            new Colonne<>("statut", DossierDTO::getStatut),
+            new Colonne<>("dateCreation", DossierDTO::getDateCreation),
+            new Colonne<>("age", DossierDTO::getAge));
+
+    private static final List<Colonne<CarriereDTO>> COLONNES_CARRIERES = List.of(
+            new Colonne<>("id", CarriereDTO::getId),
+            new Colonne<>("dossierId", CarriereDTO::getDossierId),
+            new Colonne<>("entreprise", CarriereDTO::getEntreprise),
+            new Colonne<>("poste", CarriereDTO::getPoste),
+            new Colonne<>("dateDebut", CarriereDTO::getDateDebut),
+            new Colonne<>("dateFin", CarriereDTO::getDateFin),
+            new Colonne<>("salaireMoyen", CarriereDTO::getSalaireMoyen),
+            new Colonne<>("regimeRetraite", CarriereDTO::getRegimeRetraite),
+            new Colonne<>("trimestresValides", CarriereDTO::getTrimestresValides));
+
+    private static final List<Colonne<PaiementDTO>> COLONNES_PAIEMENTS = List.of(
+            new Colonne<>("id", PaiementDTO::id),
+            new Colonne<>("dossierId", PaiementDTO::dossierId),
+            new Colonne<>("reference", PaiementDTO::reference),
+            new Colonne<>("montant", PaiementDTO::montant),
+            new Colonne<>("typePaiement", PaiementDTO::typePaiement),
+            new Colonne<>("statut", PaiementDTO::statut),
+            new Colonne<>("dateVersement", PaiementDTO::dateVersement),
+            new Colonne<>("datePaiement", PaiementDTO::datePaiement),
+            new Colonne<>("dateExecution", PaiementDTO::dateExecution));
+
+    private final DossierRepository dossierRepository;
+    private final CarriereRepository carriereRepository;
+    private final PaiementRepository paiementRepository;
+    private final DossierMapper dossierMapper;
+    private final CarriereMapper carriereMapper;
+    private final PaiementMapper paiementMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    // Sans flush après chaque objet : le tampon de l'écrivain décide des écritures sur la réponse
+    private final ObjectWriter jsonWriter;
+    private final int lignesParPurge;
+
+    public ExportService(DossierRepository dossierRepository, CarriereRepository carriereRepository,
+                         PaiementRepository paiementRepository, DossierMapper dossierMapper,
+                         CarriereMapper carriereMapper, PaiementMapper paiementMapper, EntityManager entityManager,
+                         ObjectMapper objectMapper,
+                         @Value("${app.export.lignes-par-purge:1000}") int lignesParPurge) {
+        this.dossierRepository = dossierRepository;
+        this.carriereRepository = carriereRepository;
+        this.paiementRepository = paiementRepository;
+        this.dossierMapper = dossierMapper;
+        this.carriereMapper = carriereMapper;
+        this.paiementMapper = paiementMapper;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.lignesParPurge = lignesParPurge;
+    }
+
+    @Transactional(readOnly = true)
+    public long exporterDossiers(StatutDossier statut, FormatExport format, OutputStream sortie) throws IOException {
+        try (Stream<DossierRetraite> dossiers = dossierRepository.streamPourExport(statut)) {
+            return ecrire("dossiers", dossiers, dossierMapper::toSummaryDto, COLONNES_DOSSIERS, format, sortie);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exporterCarrieres(RegimeRetraite regime, FormatExport format, OutputStream sortie) throws IOException {
+        try (Stream<Carriere> carrieres = carriereRepository.streamPourExport(regime)) {
+            return ecrire("carrieres", carrieres, carriereMapper::toDto, COLONNES_CARRIERES, format, sortie);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exporterPaiements(String periode, FormatExport format, OutputStream sortie) throws IOException {
+        try (Stream<Paiement> paiements = paiementRepository.streamPourExport(periode)) {
+            return ecrire("paiements", paiements, paiementMapper::toDto, COLONNES_PAIEMENTS, format, sortie);
+        }
+    }
+
+    private <E, D> long ecrire(String nom, Stream<E> entites, Function<E, D> mapper, List<Colonne<D>> colonnes,
+                               FormatExport format, OutputStream sortie) throws IOException {
+        long debut = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(sortie, StandardCharsets.UTF_8), 1 << 16);
+        JsonGenerator json = null;
+        if (format == FormatExport.NDJSON) {
+            json = objectMapper.getFactory().createGenerator(writer);
+            json.setRootValueSeparator(null);
+        } else {
+            for (int i = 0; i < colonnes.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(colonnes.get(i).nom());
+            }
+            writer.write('\n');
+        }
+
+        long lignes = 0;
+        Iterator<E> iterateur = entites.iterator();
+        while (iterateur.hasNext()) {
+            D dto = mapper.apply(iterateur.next());
+            if (json != null) {
+                jsonWriter.writeValue(json, dto);
+                json.writeRaw('\n');
+            } else {
+                ligneCsv(writer, colonnes, dto);
+            }
+            if (++lignes % lignesParPurge == 0) {
+                entityManager.clear();
+            }
+        }
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        log.info("Export {} ({}) : {} lignes en {} ms", nom, format, lignes, (System.nanoTime() - debut) / 1_000_000);
+        return lignes;
+    }
+
+    private static <D> void ligneCsv(Writer writer, List<Colonne<D>> colonnes, D dto) throws IOException {
+        for (int i = 0; i < colonnes.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object valeur = colonnes.get(i).valeur().apply(dto);
+            if (valeur == null) {
+                continue;
+            }
+            String texte = valeur instanceof Double nombre ? BigDecimal.valueOf(nombre).toPlainString()
+                    : valeur instanceof BigDecimal decimal ? decimal.toPlainString()
+                    : valeur.toString();
+            if (texte.indexOf(',') >= 0 || texte.indexOf('"') >= 0 || texte.indexOf('\n') >= 0 || texte.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(texte.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(texte);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static Object beneficiaire(DossierDTO dossier, Function<Beneficiaire, Object> champ) {
+        return dossier.getBeneficiaire() != null ? champ.apply(dossier.getBeneficiaire()) : null;
+    }
+}
@@ -0,0 +1,377 @@
+package com.str.Services;
+
+import com.str.Enum.StatutExtraction;
+import com.str.Enum.TypeEvenement;
+import com.str.Events.DocumentEvent;
+import com.str.Events.TexteExtraitEvent;
+import com.str.Models.TexteExtrait;
+import com.str.Repositories.BlobReferenceRepository;
+import com.str.Repositories.DocumentRepository;
+import com.str.Repositories.TexteExtraitRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Extraction du texte des contenus de documents (PDF par PDFBox, DOCX par POI, fichiers texte), hors du chemin
+ * de l'upload : l'événement de création, après commit, soumet le contenu à un pool borné (un thread par cœur
+ * par défaut, file de app.extraction.file-max). File pleine : la tâche n'est pas exécutée par l'appelant, le
+ * rattrapage périodique reprend les contenus encore sans texte (y compris ceux déposés avant ce service).
+ * Le texte est enregistré une fois par empreinte (textes_extraits), borné à app.extraction.caracteres-max
+ * caractères, puis TexteExtraitEvent fait réindexer les dossiers concernés par RechercheService.
+ * Un échec est enregistré comme tel ; le rattrapage le retente après app.extraction.delai-nouvelle-tentative-minutes,
+ * jusqu'à app.extraction.tentatives-max tentatives. Un contenu libéré entre-temps (plus aucune référence)
+ * n'est pas enregistré.
+ */
+@Service
+public class ExtractionTexteService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractionTexteService.class);
+    private static final int MESSAGE_MAX = 500;
+
+    private enum Format { PDF, DOCX, TEXTE, AUTRE }
+
+    private final DocumentRepository documentRepository;
+    private final TexteExtraitRepository texteExtraitRepository;
+    private final BlobReferenceRepository blobReferenceRepository;
+    private final BlobStore blobStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor pool;
+    private final int caracteresMax;
+    private final int tentativesMax;
+    private final Duration delaiNouvelleTentative;
+
+    // Empreintes soumises et pas encore enregistrées : ni doublon dans la file, ni double extraction
+    private final Set<String> enCours = ConcurrentHashMap.newKeySet();
+    private final LongAdder extraits = new LongAdder();
+    private final LongAdder echecs = new LongAdder();
+    private final LongAdder refusees = new LongAdder();
+
+    public ExtractionTexteService(DocumentRepository documentRepository, TexteExtraitRepository texteExtraitRepository,
+                                  BlobReferenceRepository blobReferenceRepository,
+                                  BlobStore blobStore, ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.extraction.threads:0}") int threads,
+                                  @Value("${app.extraction.file-max:1000}") int fileMax,
+                                  @Value("${app.extraction.caracteres-max:500000}") int caracteresMax,
+                                  @Value("${app.extraction.tentatives-max:3}") int tentativesMax,
+                                  @Value("${app.extraction.delai-nouvelle-tentative-minutes:60}") long delaiMinutes) {
+        this.documentRepository = documentRepository;
+        this.texteExtraitRepository = texteExtraitRepository;
+        this.blobReferenceRepository = blobReferenceRepository;
+        this.blobStore = blobStore;
+        this.eventPublisher = eventPublisher;
+        // Appelé aussi depuis un écouteur après commit : transaction propre
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.caracteresMax = caracteresMax;
+        this.tentativesMax = tentativesMax;
+        this.delaiNouvelleTentative = Duration.ofMinutes(delaiMinutes);
+        int taille = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(taille, taille, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(fileMax),
+                tache -> {
+                    Thread thread = new Thread(tache, "extraction-texte-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocument(DocumentEvent event) {
+        if (event.type() == TypeEvenement.CREATION && event.contentHash() != null) {
+            soumettre(event.contentHash(), event.nom());
+        }
+    }
+
+    // Contenus sans texte (file pleine au dépôt, redémarrage, documents antérieurs) ou en échec à retenter,
+    // dans la limite de la file
+    @Scheduled(initialDelayString = "${app.extraction.rattrapage-ms:60000}",
+               fixedDelayString = "${app.extraction.rattrapage-ms:60000}")
+    public void rattraper() {
+        int places = pool.getQueue().remainingCapacity();
+        if (places == 0) {
+            return;
+        }
+        List<Object[]> contenus = documentRepository.findContenusAExtraire(StatutExtraction.ECHEC, tentativesMax,
+                LocalDateTime.now().minus(delaiNouvelleTentative), PageRequest.of(0, places + enCours.size()));
+        int soumis = 0;
+        for (Object[] contenu : contenus) {
+            if (soumettre((String) contenu[0], (String) contenu[1])) {
+                soumis++;
+            }
+        }
+        if (soumis > 0) {
+            log.info("Extraction de texte : {} contenus en attente repris", soumis);
+        }
+    }
+
+    private boolean soumettre(String hash, String nom) {
+        if (!enCours.add(hash)) {
+            return false;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    extraire(hash, nom);
+                } finally {
+                    enCours.remove(hash);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            enCours.remove(hash);
+            refusees.increment();
+            return false;
+        }
+    }
+
+    private void extraire(String hash, String nom) {
+        TexteExtrait precedent = texteExtraitRepository.findById(hash).orElse(null);
+        if (precedent != null && (precedent.getStatut() != StatutExtraction.ECHEC
+                || precedent.getTentatives() >= tentativesMax)) {
+            return;
+        }
+        int tentative = precedent != null ? precedent.getTentatives() + 1 : 1;
+        long debut = System.nanoTime();
+        TexteBorne texte = new TexteBorne(caracteresMax);
+        StatutExtraction statut;
+        String message = null;
+        Path temporaire = null;
+        try {
+            Resource contenu = blobStore.load(hash);
+            Path fichier;
+            if (contenu.isFile()) {
+                fichier = contenu.getFile().toPath();
+            } else {
+                temporaire = Files.createTempFile("extraction-", ".bin");
+                try (InputStream flux = contenu.getInputStream()) {
+                    Files.copy(flux, temporaire, StandardCopyOption.REPLACE_EXISTING);
+                }
+                fichier = temporaire;
+            }
+            Format format = detecter(fichier, nom);
+            try {
+                switch (format) {
+                    case PDF -> extrairePdf(fichier, texte);
+                    case DOCX -> extraireDocx(fichier, texte);
+                    case TEXTE -> extraireTexte(fichier, texte);
+                    case AUTRE -> { }
+                }
+            } catch (LimiteAtteinte e) {
+                // Texte tronqué : la suite du document est ignorée
+            }
+            statut = format == Format.AUTRE ? StatutExtraction.NON_SUPPORTE
+                    : texte.isBlank() ? StatutExtraction.VIDE : StatutExtraction.EXTRAIT;
+            extraits.increment();
+        } catch (InvalidPasswordException e) {
+            statut = StatutExtraction.ECHEC;
+            message = "PDF protégé par mot de passe";
+            echecs.increment();
+        } catch (Exception e) {
+            statut = StatutExtraction.ECHEC;
+            message = e.getClass().getSimpleName() + ": " + e.getMessage();
+            echecs.increment();
+            log.warn("Extraction du texte du contenu {} ({}) en échec", hash, nom, e);
+        } finally {
+            if (temporaire != null) {
+                try {
+                    Files.deleteIfExists(temporaire);
+                } catch (IOException e) {
+                    log.warn("Fichier temporaire {} non supprimé", temporaire);
+                }
+            }
+        }
+        enregistrer(hash, statut, statut == StatutExtraction.EXTRAIT ? texte.toString() : null, texte.tronque,
+                message, (System.nanoTime() - debut) / 1_000_000, tentative);
+    }
+
+    private void enregistrer(String hash, StatutExtraction statut, String contenu, boolean tronque, String message,
+                             long dureeMs, int tentative) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Référence verrouillée jusqu'au commit : si DocumentBlobCleaner a déjà libéré le contenu, rien n'est
+            // écrit ; s'il passe après, il supprime aussi cette ligne
+            if (blobReferenceRepository.verrouiller(hash).filter(r -> r.getNombreReferences() > 0).isEmpty()) {
+                log.debug("Contenu {} libéré pendant l'extraction, texte ignoré", hash);
+                return;
+            }
+            TexteExtrait texte = new TexteExtrait();
+            texte.setContentHash(hash);
+            texte.setStatut(statut);
+            texte.setTexte(contenu);
+            texte.setCaracteres(contenu != null ? contenu.length() : 0);
+            texte.setTronque(tronque);
+            texte.setMessage(message != null && message.length() > MESSAGE_MAX ? message.substring(0, MESSAGE_MAX) : message);
+            texte.setDureeMs(dureeMs);
+            texte.setDateExtraction(LocalDateTime.now());
+            texte.setTentatives(tentative);
+            texteExtraitRepository.save(texte);
+            eventPublisher.publishEvent(new TexteExtraitEvent(hash, statut, texte.getCaracteres(),
+                    documentRepository.findDossierIdsByContentHash(hash)));
+        });
+    }
+
+    // Signature du contenu d'abord (%PDF, archive ZIP), extension du nom ensuite
+    private static Format detecter(Path fichier, String nom) throws IOException {
+        byte[] entete = new byte[5];
+        int lus;
+        try (InputStream flux = Files.newInputStream(fichier)) {
+            lus = flux.readNBytes(entete, 0, entete.length);
+        }
+        String extension = nom != null && nom.lastIndexOf('.') >= 0
+                ? nom.substring(nom.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT) : "";
+        if (lus >= 5 && entete[0] == '%' && entete[1] == 'P' && entete[2] == 'D' && entete[3] == 'F' && entete[4] == '-') {
+            return Format.PDF;
+        }
+        if (lus >= 4 && entete[0] == 'P' && entete[1] == 'K' && entete[2] == 3 && entete[3] == 4) {
+            return extension.equals("docx") ? Format.DOCX : Format.AUTRE;
+        }
+        return switch (extension) {
+            case "txt", "csv", "md", "json", "xml", "html", "htm" -> Format.TEXTE;
+            default -> Format.AUTRE;
+        };
+    }
+
+    private static void extrairePdf(Path fichier, Writer texte) throws IOException {
+        // Objets du PDF mis en cache sur disque : la mémoire ne dépend pas de la taille du fichier
+        try (PDDocument pdf = Loader.loadPDF(fichier.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+            new PDFTextStripper().writeText(pdf, texte);
+        }
+    }
+
+    private static void extraireDocx(Path fichier, Writer texte) throws Exception {
+        try (XWPFWordExtractor extracteur = new XWPFWordExtractor(
+                new XWPFDocument(OPCPackage.open(fichier.toFile(), PackageAccess.READ)))) {
+            texte.write(extracteur.getText());
+        }
+    }
+
+    private static void extraireTexte(Path fichier, Writer texte) throws IOException {
+        try (Reader lecteur = new InputStreamReader(Files.newInputStream(fichier), StandardCharsets.UTF_8
+                .newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE))) {
+            lecteur.transferTo(texte);
+        }
+    }
+
+    public Map<String, Object> getStatistiques() {
+        Map<String, Object> statistiques = new LinkedHashMap<>();
+        statistiques.put("threads", pool.getMaximumPoolSize());
+        statistiques.put("actives", pool.getActiveCount());
+        statistiques.put("enFile", pool.getQueue().size());
+        statistiques.put("extraitsDepuisDemarrage", extraits.sum());
+        statistiques.put("echecsDepuisDemarrage", echecs.sum());
+        statistiques.put("refuseesFilePleine", refusees.sum());
+        Map<String, Long> parStatut = new LinkedHashMap<>();
+        for (Object[] ligne : texteExtraitRepository.countByStatut()) {
+            parStatut.put(ligne[0].toString(), ((Number) ligne[1]).longValue());
+        }
+        statistiques.put("parStatut", parStatut);
+        return statistiques;
+    }
+
+    @PreDestroy
+    void arreter() {
+        pool.shutdownNow();
+    }
+
+    // Texte accumulé jusqu'à la limite ; au-delà, l'écriture interrompt l'extraction
+    private static final class TexteBorne extends Writer {
+        private final StringBuilder texte = new StringBuilder();
+        private final int limite;
+        private boolean tronque;
+
+        TexteBorne(int limite) {
+            this.limite = limite;
+        }
+
+        @Override
+        public void write(char[] caracteres, int debut, int longueur) throws IOException {
+            int place = limite - texte.length();
+            if (longueur > place) {
+                texte.append(caracteres, debut, Math.max(0, place));
+                tronque = true;
+                throw new LimiteAtteinte();
+            }
+            texte.append(caracteres, debut, longueur);
+        }
+
+        @Override
+        public void write(String chaine) throws IOException {
+            write(chaine.toCharArray(), 0, chaine.length());
+        }
+
+        boolean isBlank() {
+            for (int i = 0; i < texte.length(); i++) {
+                if (!Character.isWhitespace(texte.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return texte.toString();
+        }
+    }
+
+    private static final class LimiteAtteinte extends IOException {
+        LimiteAtteinte() {
+            super(null, null);
+        }
+    }
+}
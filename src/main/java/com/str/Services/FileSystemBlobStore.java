@@ -0,0 +1,105 @@
+package com.str.Services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Backend fichier : chaque contenu est un fichier immuable {racine}/{2 premiers caractères}/{empreinte}.
+ * L'écriture passe par un fichier temporaire du même volume puis un déplacement atomique.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSystemBlobStore.class);
+
+    private final Path racine;
+    private final Path temporaires;
+
+    public FileSystemBlobStore(@Value("${app.storage.dir:${app.upload.dir:uploads}/blobs}") String repertoire) throws IOException {
+        this.racine = Paths.get(repertoire).toAbsolutePath().normalize();
+        this.temporaires = racine.resolve("tmp");
+        Files.createDirectories(temporaires);
+    }
+
+    @Override
+    public String store(InputStream contenu) throws IOException {
+        Path temporaire = Files.createTempFile(temporaires, "upload-", ".part");
+        try {
+            String hash = BlobStore.copierAvecEmpreinte(contenu, temporaire);
+            Path cible = chemin(hash);
+            if (!Files.exists(cible)) {
+                Files.createDirectories(cible.getParent());
+                try {
+                    Files.move(temporaire, cible, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Même contenu écrit en parallèle : le fichier déjà présent est identique
+                    log.debug("Contenu {} déjà présent", hash);
+                }
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+
+    @Override
+    public String importer(Path fichier) throws IOException {
+        String hash;
+        try (InputStream contenu = Files.newInputStream(fichier)) {
+            hash = BlobStore.empreinte(contenu);
+        }
+        Path cible = chemin(hash);
+        if (Files.exists(cible)) {
+            Files.delete(fichier);
+            return hash;
+        }
+        Files.createDirectories(cible.getParent());
+        try {
+            // Simple renommage quand le fichier est sur le même volume que le stockage
+            Files.move(fichier, cible, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            return BlobStore.super.importer(fichier);
+        }
+        return hash;
+    }
+
+    @Override
+    public Resource load(String hash) throws IOException {
+        Path fichier = chemin(hash);
+        if (!Files.isRegularFile(fichier)) {
+            throw new NoSuchFileException("Contenu introuvable: " + hash);
+        }
+        return new FileSystemResource(fichier);
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return Files.isRegularFile(chemin(hash));
+    }
+
+    @Override
+    public void delete(String hash) throws IOException {
+        Files.deleteIfExists(chemin(hash));
+    }
+
+    private Path chemin(String hash) {
+        BlobStore.verifierEmpreinte(hash);
+        return racine.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
@@ -0,0 +1,110 @@
+package com.str.Services;
+
+import java.util.List;
+
+/**
+ * Gabarit du prompt envoyé au modèle avec le contexte d'un dossier : texte fixe autour de deux emplacements,
+ * {contexte} et {question}, chacun présent une fois. Le gabarit est découpé une fois pour toutes ; le rendu
+ * tient dans un budget de caractères fixe (budget en jetons × caractères par jeton). La question garde au plus
+ * la moitié de la place laissée par le texte fixe (tronquée au-delà), le contexte le reste : ses sections sont
+ * ajoutées dans l'ordre de priorité, jusqu'à la première qui ne tient plus. Le rendu se fait dans un tampon
+ * réutilisé par thread, dimensionné au budget, qui ne grossit donc jamais.
+ */
+public final class GabaritPrompt {
+
+    private static final String CONTEXTE = "{contexte}";
+    private static final String QUESTION = "{question}";
+    private static final char TRONQUE = '…';
+
+    // Texte fixe avant le premier emplacement, entre les deux, après le second
+    private final String avant;
+    private final String entre;
+    private final String apres;
+    private final boolean contexteEnPremier;
+    private final int caracteresMax;
+    private final int questionMax;
+    private final int contexteMin;
+    private final ThreadLocal<StringBuilder> tampons;
+
+    public GabaritPrompt(String texte, int caracteresMax) {
+        int contexte = texte.indexOf(CONTEXTE);
+        int question = texte.indexOf(QUESTION);
+        if (contexte < 0 || question < 0 || texte.indexOf(CONTEXTE, contexte + 1) >= 0
+                || texte.indexOf(QUESTION, question + 1) >= 0) {
+            throw new IllegalArgumentException("Le gabarit doit contenir " + CONTEXTE + " et " + QUESTION + " une fois chacun");
+        }
+        this.contexteEnPremier = contexte < question;
+        int premier = Math.min(contexte, question);
+        int second = Math.max(contexte, question);
+        int finPremier = premier + (contexteEnPremier ? CONTEXTE : QUESTION).length();
+        this.avant = texte.substring(0, premier);
+        this.entre = texte.substring(finPremier, second);
+        this.apres = texte.substring(second + (contexteEnPremier ? QUESTION : CONTEXTE).length());
+        int libre = caracteresMax - avant.length() - entre.length() - apres.length();
+        if (libre < 2) {
+            throw new IllegalArgumentException("Budget de " + caracteresMax + " caractères insuffisant pour le gabarit");
+        }
+        this.caracteresMax = caracteresMax;
+        this.questionMax = libre / 2;
+        this.contexteMin = libre - questionMax;
+        this.tampons = ThreadLocal.withInitial(() -> new StringBuilder(caracteresMax));
+    }
+
+    // Sections du contexte par priorité décroissante, séparées par un saut de ligne dans le rendu
+    public String rendre(List<String> sections, String question) {
+        String texteQuestion = question != null ? question.strip() : "";
+        int longueurQuestion = Math.min(texteQuestion.length(), questionMax);
+        // Place non prise par la question rendue au contexte
+        int budgetContexte = contexteMin + questionMax - longueurQuestion;
+        int nombre = 0;
+        int longueurContexte = 0;
+        for (String section : sections) {
+            int ajout = (nombre == 0 ? 0 : 1) + section.length();
+            if (longueurContexte + ajout > budgetContexte) {
+                break;
+            }
+            longueurContexte += ajout;
+            nombre++;
+        }
+        StringBuilder tampon = tampons.get();
+        tampon.setLength(0);
+        tampon.append(avant);
+        if (contexteEnPremier) {
+            ajouterContexte(tampon, sections, nombre);
+            tampon.append(entre);
+            ajouterQuestion(tampon, texteQuestion);
+        } else {
+            ajouterQuestion(tampon, texteQuestion);
+            tampon.append(entre);
+            ajouterContexte(tampon, sections, nombre);
+        }
+        tampon.append(apres);
+        return tampon.toString();
+    }
+
+    public int getCaracteresMax() {
+        return caracteresMax;
+    }
+
+    private static void ajouterContexte(StringBuilder tampon, List<String> sections, int nombre) {
+        for (int i = 0; i < nombre; i++) {
+            if (i > 0) {
+                tampon.append('\n');
+            }
+            tampon.append(sections.get(i));
+        }
+    }
+
+    private void ajouterQuestion(StringBuilder tampon, String question) {
+        if (question.length() <= questionMax) {
+            tampon.append(question);
+            return;
+        }
+        int fin = questionMax - 1;
+        // Pas de demi-caractère (paire de substitution coupée)
+        if (fin > 0 && Character.isHighSurrogate(question.charAt(fin - 1))) {
+            fin--;
+        }
+        tampon.append(question, 0, fin).append(TRONQUE);
+    }
+}
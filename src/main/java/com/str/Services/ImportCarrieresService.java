@@ -0,0 +1,418 @@
+package com.str.Services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.str.DTO.ImportCarrieresDTO;
+import com.str.Enum.FormatImport;
+import com.str.Enum.RegimeRetraite;
+import com.str.Events.LotCarrieresEvent;
+import com.str.Models.Carriere;
+import com.str.Repositories.CarriereRepository;
+import com.str.Repositories.DossierRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Import de masse de carrières depuis un flux CSV (ligne d'en-tête, séparateur « , » ou « ; ») ou NDJSON
+ * (un objet par ligne), avec les champs de CarriereDTO et le numéro de sécurité sociale du dossier à la place
+ * de son id. Le flux est lu ligne à ligne par lots : chaque lot est analysé et validé en parallèle, puis ses
+ * carrières valides sont insérées par batch JDBC dans une transaction qui incrémente aussi le tampon de version
+ * des dossiers touchés. La mémoire ne dépend que de la taille d'un lot et du nombre de dossiers (table de
+ * correspondance chargée au début), jamais de la taille du fichier ; le rapport garde au plus
+ * app.import.carrieres.erreurs-max erreurs détaillées. Un lot rejeté par la base l'est en entier,
+ * les lots précédents restent importés.
+ */
+@Service
+public class ImportCarrieresService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportCarrieresService.class);
+
+    // Ordre canonique des champs d'une ligne, quel que soit le format
+    private static final String[] COLONNES = {"numeroSecuriteSociale", "entreprise", "poste", "dateDebut",
+            "dateFin", "salaireMoyen", "regimeRetraite", "trimestresValides"};
+    private static final int NSS = 0, ENTREPRISE = 1, POSTE = 2, DATE_DEBUT = 3, DATE_FIN = 4, SALAIRE = 5,
+            REGIME = 6, TRIMESTRES = 7;
+    private static final int[] OBLIGATOIRES = {NSS, ENTREPRISE, POSTE, DATE_DEBUT, REGIME};
+    // Colonne salaire_moyen : precision 10, scale 2
+    private static final BigDecimal SALAIRE_MAX = new BigDecimal("100000000");
+
+    private final DossierRepository dossierRepository;
+    private final CarriereRepository carriereRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final ForkJoinPool validation;
+    private final int tailleLot;
+    private final int erreursMax;
+
+    public ImportCarrieresService(DossierRepository dossierRepository, CarriereRepository carriereRepository,
+                                  TransactionTemplate transactionTemplate, EntityManager entityManager,
+                                  ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                                  @Value("${app.import.carrieres.taille-lot:1000}") int tailleLot,
+                                  @Value("${app.import.carrieres.erreurs-max:1000}") int erreursMax,
+                                  @Value("${app.import.carrieres.parallelisme:0}") int parallelisme) {
+        this.dossierRepository = dossierRepository;
+        this.carriereRepository = carriereRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.tailleLot = tailleLot;
+        this.erreursMax = erreursMax;
+        this.validation = new ForkJoinPool(parallelisme > 0 ? parallelisme : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Ligne brute du fichier et son numéro (1 = première ligne, en-tête CSV compris)
+    private record Ligne(long numero, String texte) {}
+
+    // Résultat de la validation d'une ligne : une carrière sans dossier (référencé à l'insertion) ou une erreur
+    private record LigneValidee(long numero, Long dossierId, Carriere carriere, String erreur) {}
+
+    // Compteurs et erreurs accumulés au fil des lots
+    private final class Rapport {
+        private long lignesLues;
+        private long carrieresImportees;
+        private long lignesRejetees;
+        private final Set<Long> dossiersModifies = new HashSet<>();
+        private final List<ImportCarrieresDTO.ErreurLigne> erreurs = new ArrayList<>();
+        private boolean erreursTronquees;
+
+        void rejeter(long ligne, String message) {
+            lignesRejetees++;
+            if (erreurs.size() < erreursMax) {
+                erreurs.add(new ImportCarrieresDTO.ErreurLigne(ligne, message));
+            } else {
+                erreursTronquees = true;
+            }
+        }
+
+        ImportCarrieresDTO toDto(long dureeMs) {
+            return new ImportCarrieresDTO(lignesLues, carrieresImportees, lignesRejetees, dossiersModifies.size(),
+                    dureeMs, erreurs, erreursTronquees);
+        }
+    }
+
+    public ImportCarrieresDTO importer(InputStream flux, FormatImport format) throws IOException {
+        long debut = System.nanoTime();
+        BufferedReader lecteur = new BufferedReader(new InputStreamReader(flux, StandardCharsets.UTF_8), 1 << 16);
+        Map<String, Long> dossiers = chargerNumerosSecuriteSociale();
+        Rapport rapport = new Rapport();
+
+        long numero = 0;
+        int[] positions = null;
+        char separateur = ',';
+        if (format == FormatImport.CSV) {
+            String entete;
+            do {
+                entete = lecteur.readLine();
+                numero++;
+            } while (entete != null && entete.isBlank());
+            if (entete == null) {
+                throw new IllegalArgumentException("Fichier CSV vide : ligne d'en-tête attendue");
+            }
+            entete = !entete.isEmpty() && entete.charAt(0) == '\uFEFF' ? entete.substring(1) : entete;
+            separateur = entete.indexOf(';') >= 0 ? ';' : ',';
+            positions = positionsColonnes(decouper(entete, separateur));
+        }
+
+        List<Ligne> lot = new ArrayList<>(tailleLot);
+        String texte;
+        while ((texte = lecteur.readLine()) != null) {
+            numero++;
+            if (texte.isBlank()) {
+                continue;
+            }
+            lot.add(new Ligne(numero, texte));
+            if (lot.size() == tailleLot) {
+                traiterLot(lot, format, positions, separateur, dossiers, rapport);
+                lot.clear();
+            }
+        }
+        if (!lot.isEmpty()) {
+            traiterLot(lot, format, positions, separateur, dossiers, rapport);
+        }
+
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+        log.info("Import de carrières ({}) : {} lignes, {} carrières importées, {} rejetées, {} dossiers en {} ms",
+                format, rapport.lignesLues, rapport.carrieresImportees, rapport.lignesRejetees,
+                rapport.dossiersModifies.size(), dureeMs);
+        return rapport.toDto(dureeMs);
+    }
+
+    private Map<String, Long> chargerNumerosSecuriteSociale() {
+        return transactionTemplate.execute(status -> {
+            Map<String, Long> dossiers = new HashMap<>();
+            try (Stream<Object[]> lignes = dossierRepository.streamNumerosSecuriteSociale()) {
+                lignes.forEach(ligne -> dossiers.put((String) ligne[0], (Long) ligne[1]));
+            }
+            return dossiers;
+        });
+    }
+
+    private void traiterLot(List<Ligne> lot, FormatImport format, int[] positions, char separateur,
+                            Map<String, Long> dossiers, Rapport rapport) {
+        rapport.lignesLues += lot.size();
+        LigneValidee[] validees = validation.submit(() -> IntStream.range(0, lot.size()).parallel()
+                .mapToObj(i -> valider(lot.get(i), format, positions, separateur, dossiers))
+                .toArray(LigneValidee[]::new)).join();
+
+        List<LigneValidee> valides = new ArrayList<>(validees.length);
+        for (LigneValidee ligne : validees) {
+            if (ligne.erreur() != null) {
+                rapport.rejeter(ligne.numero(), ligne.erreur());
+            } else {
+                valides.add(ligne);
+            }
+        }
+        if (valides.isEmpty()) {
+            return;
+        }
+
+        // Ordre croissant : des imports concurrents verrouillent les dossiers dans le même ordre
+        Set<Long> dossierIds = new TreeSet<>();
+        long salairesCentimes = 0;
+        for (LigneValidee ligne : valides) {
+            dossierIds.add(ligne.dossierId());
+            if (ligne.carriere().getSalaireMoyen() != null) {
+                salairesCentimes += PensionCalculator.centimes(ligne.carriere().getSalaireMoyen());
+            }
+        }
+        BigDecimal sommeSalaires = BigDecimal.valueOf(salairesCentimes, 2);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Carriere> carrieres = new ArrayList<>(valides.size());
+                for (LigneValidee ligne : valides) {
+                    ligne.carriere().setDossier(dossierRepository.getReferenceById(ligne.dossierId()));
+                    carrieres.add(ligne.carriere());
+                }
+                carriereRepository.saveAll(carrieres);
+                dossierRepository.marquerCarrieresModifiees(dossierIds);
+                eventPublisher.publishEvent(new LotCarrieresEvent(carrieres.size(), sommeSalaires, dossierIds));
+            });
+            rapport.carrieresImportees += valides.size();
+            rapport.dossiersModifies.addAll(dossierIds);
+        } catch (RuntimeException e) {
+            log.warn("Lot de carrières rejeté (lignes {} à {})", lot.get(0).numero(), lot.get(lot.size() - 1).numero(), e);
+            String message = "Lot rejeté par la base : " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (LigneValidee ligne : valides) {
+                rapport.rejeter(ligne.numero(), message);
+            }
+        } finally {
+            // Avec open-in-view, le contexte de persistance de la requête survit aux transactions des lots :
+            // sans ce clear, il garderait toutes les carrières du fichier et chaque flush les reparcourrait
+            entityManager.clear();
+        }
+    }
+
+    private LigneValidee valider(Ligne ligne, FormatImport format, int[] positions, char separateur,
+                                 Map<String, Long> dossiers) {
+        String[] champs;
+        try {
+            champs = format == FormatImport.CSV ? champsCsv(ligne.texte(), positions, separateur) : champsJson(ligne.texte());
+        } catch (IllegalArgumentException e) {
+            return new LigneValidee(ligne.numero(), null, null, e.getMessage());
+        }
+
+        List<String> erreurs = new ArrayList<>(2);
+        for (int obligatoire : OBLIGATOIRES) {
+            if (champs[obligatoire] == null) {
+                erreurs.add(COLONNES[obligatoire] + " obligatoire");
+            }
+        }
+        Long dossierId = null;
+        if (champs[NSS] != null) {
+            dossierId = dossiers.get(champs[NSS]);
+            if (dossierId == null) {
+                erreurs.add("Dossier inconnu pour le numéro de sécurité sociale " + champs[NSS]);
+            }
+        }
+        LocalDate dateDebut = date(champs, DATE_DEBUT, erreurs);
+        LocalDate dateFin = date(champs, DATE_FIN, erreurs);
+        if (dateDebut != null && dateFin != null && dateFin.isBefore(dateDebut)) {
+            erreurs.add("dateFin antérieure à dateDebut");
+        }
+        BigDecimal salaire = null;
+        if (champs[SALAIRE] != null) {
+            try {
+                salaire = new BigDecimal(champs[SALAIRE].replace(',', '.'));
+                if (salaire.signum() <= 0 || salaire.compareTo(SALAIRE_MAX) >= 0 || salaire.scale() > 2) {
+                    erreurs.add("salaireMoyen hors limites : " + champs[SALAIRE]);
+                }
+            } catch (NumberFormatException e) {
+                erreurs.add("salaireMoyen invalide : " + champs[SALAIRE]);
+            }
+        }
+        RegimeRetraite regime = null;
+        if (champs[REGIME] != null) {
+            try {
+                regime = RegimeRetraite.valueOf(champs[REGIME].toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                erreurs.add("regimeRetraite inconnu : " + champs[REGIME]);
+            }
+        }
+        Integer trimestres = null;
+        if (champs[TRIMESTRES] != null) {
+            try {
+                trimestres = Integer.valueOf(champs[TRIMESTRES]);
+                if (trimestres <= 0) {
+                    erreurs.add("trimestresValides doit être positif : " + champs[TRIMESTRES]);
+                }
+            } catch (NumberFormatException e) {
+                erreurs.add("trimestresValides invalide : " + champs[TRIMESTRES]);
+            }
+        }
+        if (!erreurs.isEmpty()) {
+            return new LigneValidee(ligne.numero(), null, null, String.join(" ; ", erreurs));
+        }
+
+        Carriere carriere = new Carriere();
+        carriere.setEntreprise(champs[ENTREPRISE]);
+        carriere.setPoste(champs[POSTE]);
+        carriere.setDateDebut(dateDebut);
+        carriere.setDateFin(dateFin);
+        carriere.setSalaireMoyen(salaire);
+        carriere.setRegimeRetraite(regime);
+        carriere.setTrimestresValides(trimestres);
+        return new LigneValidee(ligne.numero(), dossierId, carriere, null);
+    }
+
+    private static LocalDate date(String[] champs, int colonne, List<String> erreurs) {
+        if (champs[colonne] == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(champs[colonne]);
+        } catch (DateTimeParseException e) {
+            erreurs.add(COLONNES[colonne] + " invalide (attendu yyyy-MM-dd) : " + champs[colonne]);
+            return null;
+        }
+    }
+
+    // Position de chaque colonne canonique dans l'en-tête CSV (-1 si absente), noms insensibles à la casse
+    private static int[] positionsColonnes(List<String> entete) {
+        int[] positions = new int[COLONNES.length];
+        List<String> manquantes = new ArrayList<>();
+        for (int i = 0; i < COLONNES.length; i++) {
+            positions[i] = -1;
+            for (int j = 0; j < entete.size(); j++) {
+                if (COLONNES[i].equalsIgnoreCase(entete.get(j).trim())) {
+                    positions[i] = j;
+                    break;
+                }
+            }
+        }
+        for (int obligatoire : OBLIGATOIRES) {
+            if (positions[obligatoire] < 0) {
+                manquantes.add(COLONNES[obligatoire]);
+            }
+        }
+        if (!manquantes.isEmpty()) {
+            throw new IllegalArgumentException("Colonnes manquantes dans l'en-tête CSV : " + String.join(", ", manquantes));
+        }
+        return positions;
+    }
+
+    private static String[] champsCsv(String texte, int[] positions, char separateur) {
+        List<String> valeurs = decouper(texte, separateur);
+        String[] champs = new String[COLONNES.length];
+        for (int i = 0; i < COLONNES.length; i++) {
+            if (positions[i] >= 0 && positions[i] < valeurs.size()) {
+                champs[i] = nettoyer(valeurs.get(positions[i]));
+            }
+        }
+        return champs;
+    }
+
+    private String[] champsJson(String texte) {
+        JsonNode noeud;
+        try {
+            noeud = objectMapper.readTree(texte);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON invalide : " + e.getOriginalMessage());
+        }
+        if (noeud == null || !noeud.isObject()) {
+            throw new IllegalArgumentException("Objet JSON attendu");
+        }
+        String[] champs = new String[COLONNES.length];
+        for (int i = 0; i < COLONNES.length; i++) {
+            JsonNode valeur = noeud.get(COLONNES[i]);
+            if (valeur != null && !valeur.isNull()) {
+                champs[i] = nettoyer(valeur.asText());
+            }
+        }
+        return champs;
+    }
+
+    private static String nettoyer(String valeur) {
+        String texte = valeur.trim();
+        return texte.isEmpty() ? null : texte;
+    }
+
+    // Découpe une ligne CSV ; les champs entre guillemets peuvent contenir le séparateur et des "" (pas de retour à la ligne)
+    static List<String> decouper(String ligne, char separateur) {
+        List<String> champs = new ArrayList<>(COLONNES.length);
+        StringBuilder champ = new StringBuilder();
+        boolean entreGuillemets = false;
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (entreGuillemets) {
+                if (c == '"') {
+                    if (i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                        champ.append('"');
+                        i++;
+                    } else {
+                        entreGuillemets = false;
+                    }
+                } else {
+                    champ.append(c);
+                }
+            } else if (c == '"') {
+                entreGuillemets = true;
+            } else if (c == separateur) {
+                champs.add(champ.toString());
+                champ.setLength(0);
+            } else {
+                champ.append(c);
+            }
+        }
+        if (entreGuillemets) {
+            throw new IllegalArgumentException("Guillemet non fermé");
+        }
+        champs.add(champ.toString());
+        return champs;
+    }
+
+    @PreDestroy
+    void arreter() {
+        validation.shutdownNow();
+    }
+}
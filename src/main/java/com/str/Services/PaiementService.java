@@ -1,7 +1,9 @@
 package com.str.Services;
 
 import com.str.DTO.PaiementDTO;
+import com.str.Enum.TypeEvenement;
 import com.str.Enum.TypePaiement;
+import com.str.Events.PaiementEvent;
 import com.str.Mappers.PaiementMapper;
 import com.str.Models.DossierRetraite;
 import com.str.Models.Paiement;
@@ -10,9 +12,11 @@ import com.str.Repositories.PaiementRepository;
 import jakarta.persistence.EntityNotFoundException;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -28,11 +32,14 @@ public class PaiementService {
     private final PaiementRepository paiementRepository;
     private final DossierRepository dossierRepository;
     private final PaiementMapper paiementMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public PaiementService(PaiementRepository paiementRepository, DossierRepository dossierRepository, PaiementMapper paiementMapper) {
+    public PaiementService(PaiementRepository paiementRepository, DossierRepository dossierRepository, PaiementMapper paiementMapper,
+                           ApplicationEventPublisher eventPublisher) {
         this.paiementRepository = paiementRepository;
         this.dossierRepository = dossierRepository;
         this.paiementMapper = paiementMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     public PaiementDTO createPaiement(PaiementDTO dto) {
@@ -56,6 +63,8 @@ public class PaiementService {
         }
 
         Paiement saved = paiementRepository.save(paiement);
+        eventPublisher.publishEvent(new PaiementEvent(TypeEvenement.CREATION, saved.getId(), dossier.getId(),
+                saved.getReference(), null, saved.getMontant()));
         return paiementMapper.toDto(saved);
     }
 
@@ -83,6 +92,7 @@ public class PaiementService {
     public PaiementDTO updatePaiement(Long id, PaiementDTO dto) {
         Paiement existingPaiement = paiementRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Paiement non trouvé"));
+        BigDecimal ancienMontant = existingPaiement.getMontant();
 
         // Mettre à jour les champs
         if (dto.montant() != null) {
@@ -108,14 +118,17 @@ public class PaiementService {
         }
 
         Paiement saved = paiementRepository.save(existingPaiement);
+        eventPublisher.publishEvent(new PaiementEvent(TypeEvenement.MODIFICATION, saved.getId(), saved.getDossierId(),
+                saved.getReference(), ancienMontant, saved.getMontant()));
         return paiementMapper.toDto(saved);
     }
 
     public void deletePaiement(Long id) {
-        if (!paiementRepository.existsById(id)) {
-            throw new EntityNotFoundException("Paiement non trouvé");
-        }
-        paiementRepository.deleteById(id);
+        Paiement paiement = paiementRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Paiement non trouvé"));
+        paiementRepository.delete(paiement);
+        eventPublisher.publishEvent(new PaiementEvent(TypeEvenement.SUPPRESSION, id, paiement.getDossierId(),
+                paiement.getReference(), paiement.getMontant(), null));
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,126 @@
+package com.str.Services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.str.Enum.TypeEvenement;
+import com.str.Events.CarriereEvent;
+import com.str.Events.DossierEvent;
+import com.str.Events.LotCarrieresEvent;
+import com.str.Repositories.CarriereRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pensions calculées mémorisées par dossier, avec le tampon de version des carrières
+ * (DossierRetraite.versionCarrieres) ayant servi au calcul : une entrée d'une autre version n'est jamais servie.
+ * Les événements de carrière et de dossier invalident l'entrée du dossier concerné après commit ;
+ * la taille et la durée de vie sont bornées (app.pension.cache.*).
+ */
+@Component
+public class PensionCache {
+
+    private static final int TAILLE_PAQUET = 1000;
+
+    private record Entree(long version, PensionResultat resultat) {}
+
+    private final Cache<Long, Entree> cache;
+    private final CarriereRepository carriereRepository;
+    private final PensionCalculator pensionCalculator;
+
+    // Entrées trouvées mais d'une version dépassée : des succès pour Caffeine, des échecs pour nous
+    private final LongAdder perimees = new LongAdder();
+
+    public PensionCache(CarriereRepository carriereRepository, PensionCalculator pensionCalculator,
+                        @Value("${app.pension.cache.taille-max:100000}") long tailleMax,
+                        @Value("${app.pension.cache.duree-vie-minutes:60}") long dureeVieMinutes) {
+        this.carriereRepository = carriereRepository;
+        this.pensionCalculator = pensionCalculator;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .expireAfterWrite(Duration.ofMinutes(dureeVieMinutes))
+                .recordStats()
+                .build();
+    }
+
+    public PensionResultat get(Long dossierId, long version) {
+        return getAll(Map.of(dossierId, version)).get(dossierId);
+    }
+
+    // Les dossiers absents ou périmés sont calculés ensemble, une requête d'agrégation par paquet de 1000
+    public Map<Long, PensionResultat> getAll(Map<Long, Long> versionsParDossier) {
+        Map<Long, PensionResultat> resultats = new HashMap<>(versionsParDossier.size() * 2);
+        List<Long> aCalculer = new ArrayList<>();
+        Map<Long, Entree> presentes = cache.getAllPresent(versionsParDossier.keySet());
+        versionsParDossier.forEach((dossierId, version) -> {
+            Entree entree = presentes.get(dossierId);
+            if (entree != null && entree.version() == version) {
+                resultats.put(dossierId, entree.resultat());
+            } else {
+                if (entree != null) {
+                    perimees.increment();
+                }
+                aCalculer.add(dossierId);
+            }
+        });
+        for (int debut = 0; debut < aCalculer.size(); debut += TAILLE_PAQUET) {
+            List<Long> paquet = aCalculer.subList(debut, Math.min(debut + TAILLE_PAQUET, aCalculer.size()));
+            Map<Long, List<PensionCalculator.Agregat>> agregats =
+                    PensionCalculator.parDossier(carriereRepository.agregerParDossierEtRegime(paquet));
+            for (Long dossierId : paquet) {
+                PensionResultat resultat = pensionCalculator.calculer(agregats.get(dossierId));
+                cache.put(dossierId, new Entree(versionsParDossier.get(dossierId), resultat));
+                resultats.put(dossierId, resultat);
+            }
+        }
+        return resultats;
+    }
+
+    public void invalider(Long dossierId) {
+        if (dossierId != null) {
+            cache.invalidate(dossierId);
+        }
+    }
+
+    public Map<String, Object> getStatistiques() {
+        CacheStats stats = cache.stats();
+        long perimeesCount = perimees.sum();
+        long succes = Math.max(0, stats.hitCount() - perimeesCount);
+        long requetes = stats.requestCount();
+        Map<String, Object> statistiques = new LinkedHashMap<>();
+        statistiques.put("taille", cache.estimatedSize());
+        statistiques.put("requetes", requetes);
+        statistiques.put("succes", succes);
+        statistiques.put("echecs", requetes - succes);
+        statistiques.put("perimees", perimeesCount);
+        statistiques.put("tauxSucces", requetes > 0 ? Math.round(1000.0 * succes / requetes) / 1000.0 : 0.0);
+        statistiques.put("evictions", stats.evictionCount());
+        return statistiques;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarriere(CarriereEvent event) {
+        invalider(event.dossierId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLotCarrieres(LotCarrieresEvent event) {
+        cache.invalidateAll(event.dossierIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDossier(DossierEvent event) {
+        if (event.type() != TypeEvenement.CREATION) {
+            invalider(event.dossierId());
+        }
+    }
+}
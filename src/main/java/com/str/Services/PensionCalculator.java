@@ -0,0 +1,123 @@
+package com.str.Services;
+
+import com.str.Config.ReglesPensionProperties;
+import com.str.Enum.RegimeRetraite;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moteur de calcul des pensions à partir des carrières agrégées par régime
+ * (CarriereRepository.agregerParDossierEtRegime).
+ * Les règles de chaque régime (ReglesPensionProperties) sont compilées au démarrage en évaluateurs
+ * immuables indexés par ordinal : une évaluation ne fait ni recherche ni conversion, seulement de
+ * l'arithmétique entière (centimes, points de base) et l'allocation du résultat. Sans état : utilisable en parallèle.
+ * Chaque régime verse sa part : salaire moyen du régime x taux plein du régime, proratisé sous les trimestres requis.
+ */
+@Component
+public class PensionCalculator {
+
+    private static final Logger log = LoggerFactory.getLogger(PensionCalculator.class);
+    private static final long POINTS_BASE = 10_000L;
+
+    public record Agregat(RegimeRetraite regime, long nombreCarrieres, long sommeSalairesCentimes, long trimestres) {}
+
+    private final Evaluateur[] evaluateurs;
+
+    public PensionCalculator(ReglesPensionProperties proprietes) {
+        RegimeRetraite[] regimes = RegimeRetraite.values();
+        this.evaluateurs = new Evaluateur[regimes.length];
+        for (RegimeRetraite regime : regimes) {
+            ReglesPensionProperties.Regle regle = proprietes.regle(regime);
+            evaluateurs[regime.ordinal()] = new Evaluateur(regime, regle.getTauxPleinPointsBase(), regle.getTrimestresRequis());
+            log.info("Règle de pension {} : taux plein {} pb à {} trimestres", regime,
+                    regle.getTauxPleinPointsBase(), regle.getTrimestresRequis());
+        }
+    }
+
+    public PensionResultat calculer(List<Agregat> agregats) {
+        if (agregats == null || agregats.isEmpty()) {
+            return PensionResultat.AUCUNE;
+        }
+        long nombreCarrieres = 0;
+        long sommeSalairesCentimes = 0;
+        long trimestresValides = 0;
+        long montantCentimes = 0;
+        for (int i = 0, n = agregats.size(); i < n; i++) {
+            Agregat agregat = agregats.get(i);
+            nombreCarrieres += agregat.nombreCarrieres();
+            sommeSalairesCentimes = Math.addExact(sommeSalairesCentimes, agregat.sommeSalairesCentimes());
+            trimestresValides += agregat.trimestres();
+            Evaluateur evaluateur = evaluateurs[(agregat.regime() != null ? agregat.regime() : RegimeRetraite.GENERAL).ordinal()];
+            montantCentimes += evaluateur.montantCentimes(agregat.nombreCarrieres(), agregat.sommeSalairesCentimes(), agregat.trimestres());
+        }
+
+        // Une carrière sans salaire compte pour 0 dans la moyenne
+        long salaireMoyenCentimes = diviserArrondi(sommeSalairesCentimes, nombreCarrieres);
+        int tauxPointsBase = salaireMoyenCentimes > 0
+                ? (int) diviserArrondi(Math.multiplyExact(montantCentimes, POINTS_BASE), salaireMoyenCentimes)
+                : 0;
+        return new PensionResultat(salaireMoyenCentimes, Math.toIntExact(trimestresValides), tauxPointsBase, montantCentimes);
+    }
+
+    // Regroupe par dossier les lignes [dossierId, régime, nombre, somme salaires, somme trimestres]
+    public static Map<Long, List<Agregat>> parDossier(List<Object[]> lignes) {
+        Map<Long, List<Agregat>> agregats = new HashMap<>();
+        for (Object[] ligne : lignes) {
+            agregats.computeIfAbsent((Long) ligne[0], id -> new ArrayList<>(2)).add(new Agregat(
+                    (RegimeRetraite) ligne[1],
+                    ((Number) ligne[2]).longValue(),
+                    centimes(ligne[3]),
+                    ((Number) ligne[4]).longValue()));
+        }
+        return agregats;
+    }
+
+    public static long centimes(Object montant) {
+        BigDecimal valeur = montant instanceof BigDecimal decimal ? decimal : new BigDecimal(montant.toString());
+        return valeur.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // Division entière arrondie au plus proche (demi vers le haut), opérandes positifs
+    static long diviserArrondi(long dividende, long diviseur) {
+        return diviseur == 0 ? 0 : (dividende + diviseur / 2) / diviseur;
+    }
+
+    // Règle d'un régime résolue une fois pour toutes
+    private static final class Evaluateur {
+        private final RegimeRetraite regime;
+        private final long tauxPleinPointsBase;
+        private final long trimestresRequis;
+        private final long diviseur;
+
+        private Evaluateur(RegimeRetraite regime, int tauxPleinPointsBase, int trimestresRequis) {
+            if (tauxPleinPointsBase < 0 || tauxPleinPointsBase > POINTS_BASE || trimestresRequis <= 0) {
+                throw new IllegalArgumentException("Règle de pension invalide pour le régime " + regime
+                        + " : taux " + tauxPleinPointsBase + " pb, " + trimestresRequis + " trimestres");
+            }
+            this.regime = regime;
+            this.tauxPleinPointsBase = tauxPleinPointsBase;
+            this.trimestresRequis = trimestresRequis;
+            this.diviseur = trimestresRequis * POINTS_BASE;
+        }
+
+        // salaire moyen x taux plein x min(trimestres, requis) / requis, en une seule division finale
+        long montantCentimes(long nombreCarrieres, long sommeSalairesCentimes, long trimestres) {
+            long salaireMoyen = diviserArrondi(sommeSalairesCentimes, nombreCarrieres);
+            long trimestresRetenus = Math.max(0, Math.min(trimestres, trimestresRequis));
+            return diviserArrondi(Math.multiplyExact(Math.multiplyExact(salaireMoyen, tauxPleinPointsBase), trimestresRetenus), diviseur);
+        }
+
+        @Override
+        public String toString() {
+            return regime + "[" + tauxPleinPointsBase + " pb / " + trimestresRequis + " trimestres]";
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.str.Services;
+
+import java.math.BigDecimal;
+
+/**
+ * Résultat d'un calcul de pension, en virgule fixe : montants en centimes, taux en points de base.
+ * Le montant est annuel ; le taux est le taux effectif global (montant / salaire moyen).
+ */
+public record PensionResultat(long salaireMoyenAnnuelCentimes, int trimestresValides,
+                              int tauxPointsBase, long montantAnnuelCentimes) {
+
+    public static final PensionResultat AUCUNE = new PensionResultat(0, 0, 0, 0);
+
+    public long montantMensuelCentimes() {
+        return Math.floorDiv(montantAnnuelCentimes + 6, 12);
+    }
+
+    public BigDecimal salaireMoyenAnnuel() {
+        return BigDecimal.valueOf(salaireMoyenAnnuelCentimes, 2);
+    }
+
+    // Pourcentage à deux décimales (points de base / 100)
+    public BigDecimal tauxPension() {
+        return BigDecimal.valueOf(tauxPointsBase, 2);
+    }
+
+    public BigDecimal montantAnnuel() {
+        return BigDecimal.valueOf(montantAnnuelCentimes, 2);
+    }
+
+    public BigDecimal montantMensuel() {
+        return BigDecimal.valueOf(montantMensuelCentimes(), 2);
+    }
+}
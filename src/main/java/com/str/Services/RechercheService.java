@@ -0,0 +1,471 @@
+package com.str.Services;
+
+import com.str.DTO.RechercheDTO;
+import com.str.DTO.ResultatRechercheDTO;
+import com.str.Enum.TypeRecherche;
+import com.str.Events.CarriereEvent;
+import com.str.Events.DocumentEvent;
+import com.str.Events.DossierEvent;
+import com.str.Events.LotCarrieresEvent;
+import com.str.Events.TexteExtraitEvent;
+import com.str.Repositories.CarriereRepository;
+import com.str.Repositories.DocumentRepository;
+import com.str.Repositories.DossierRepository;
+import com.str.Repositories.TexteExtraitRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche plein texte sur un index Lucene local (app.search.index-dir) : bénéficiaires (nom, prénom, NSS),
+ * carrières (entreprise, poste) et documents (nom, fichier, description, texte extrait du contenu), classés par
+ * pertinence (BM25).
+ * L'unité de mise à jour est le dossier : tout événement qui touche un dossier le met en file, et un thread
+ * unique réindexe par lots les dossiers en attente (suppression de leurs entrées puis relecture en base par
+ * projections). Les recherches voient les changements au rafraîchissement qui suit chaque lot ; les commits
+ * sur disque sont périodiques, suspendus pendant une reconstruction. Chaque commit porte un marqueur
+ * (COMMIT_RECONSTRUCTION) : un index vide ou dont la dernière reconstruction n'a pas été menée à terme
+ * (arrêt du processus en cours de route) est reconstruit au démarrage à partir de la base.
+ * Texte normalisé en minuscules sans accents ; chaque mot doit correspondre, exactement ou par préfixe
+ * (débuts de mots indexés à part, pour que la saisie partielle reste une simple recherche de terme) ; le texte
+ * des contenus, volumineux, n'est cherché que par mots entiers.
+ */
+@Service
+public class RechercheService {
+
+    private static final Logger log = LoggerFactory.getLogger(RechercheService.class);
+
+    private static final String CHAMP_TYPE = "type";
+    private static final String CHAMP_ID = "id";
+    private static final String CHAMP_DOSSIER = "dossier";
+    private static final String CHAMP_TITRE = "titre";
+    private static final String CHAMP_DETAIL = "detail";
+    // Débuts de mots (2 à 20 caractères) de tous les champs texte : la recherche par préfixe est une recherche de terme
+    private static final String CHAMP_PREFIXES = "prefixes";
+
+    // Champs plein texte et leur poids dans le classement
+    private static final Map<String, Float> CHAMPS = new LinkedHashMap<>();
+    static {
+        CHAMPS.put("nss", 6f);
+        CHAMPS.put("nom", 4f);
+        CHAMPS.put("prenom", 3f);
+        CHAMPS.put("libelle", 2f);
+        CHAMPS.put("entreprise", 2f);
+        CHAMPS.put("fichier", 1.5f);
+        CHAMPS.put("poste", 1f);
+        CHAMPS.put("description", 1f);
+        CHAMPS.put("contenu", 0.8f);
+    }
+
+    private static final int PREFIXE_MIN = 2;
+    private static final int PREFIXE_MAX = 20;
+    private static final float POIDS_PREFIXE = 0.5f;
+    private static final int TAILLE_MAX = 100;
+    private static final int RESULTATS_MAX = 10_000;
+    private static final int TAILLE_LOT = 500;
+
+    // Donnée de commit : « en-cours » du début d'une reconstruction à son commit final (absente des index plus anciens)
+    private static final String COMMIT_RECONSTRUCTION = "reconstruction";
+    private static final String RECONSTRUCTION_EN_COURS = "en-cours";
+    private static final String RECONSTRUCTION_TERMINEE = "terminee";
+
+    private final DossierRepository dossierRepository;
+    private final CarriereRepository carriereRepository;
+    private final DocumentRepository documentRepository;
+    private final TexteExtraitRepository texteExtraitRepository;
+    private final Analyzer analyseur = new AnalyseurRecherche(false);
+    private final Directory repertoire;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final BlockingQueue<Long> aIndexer = new LinkedBlockingQueue<>();
+    private final Thread indexeur;
+
+    private volatile boolean reconstructionDemandee;
+    private volatile boolean reconstructionEnCours;
+
+    public RechercheService(DossierRepository dossierRepository, CarriereRepository carriereRepository,
+                            DocumentRepository documentRepository, TexteExtraitRepository texteExtraitRepository,
+                            @Value("${app.search.index-dir:${app.upload.dir:uploads}/index-recherche}") String repertoire)
+            throws IOException {
+        this.dossierRepository = dossierRepository;
+        this.carriereRepository = carriereRepository;
+        this.documentRepository = documentRepository;
+        this.texteExtraitRepository = texteExtraitRepository;
+        Path chemin = Files.createDirectories(Path.of(repertoire));
+        this.repertoire = FSDirectory.open(chemin);
+        Analyzer analyseurIndex = new PerFieldAnalyzerWrapper(analyseur, Map.of(CHAMP_PREFIXES, new AnalyseurRecherche(true)));
+        this.writer = new IndexWriter(this.repertoire, new IndexWriterConfig(analyseurIndex)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, null);
+        this.indexeur = new Thread(this::indexer, "indexation-recherche");
+        this.indexeur.setDaemon(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        if (reconstructionInterrompue()) {
+            log.info("Reconstruction de l'index de recherche interrompue : reprise à partir de la base");
+            reconstructionDemandee = true;
+        } else if (writer.getDocStats().numDocs == 0 && dossierRepository.count() > 0) {
+            log.info("Index de recherche vide : reconstruction à partir de la base");
+            reconstructionDemandee = true;
+        }
+        indexeur.start();
+    }
+
+    public RechercheDTO rechercher(String texte, TypeRecherche type, int page, int taille) throws IOException {
+        long debut = System.nanoTime();
+        if (texte == null || texte.isBlank()) {
+            throw new IllegalArgumentException("Texte de recherche vide");
+        }
+        if (page < 0 || taille < 1 || taille > TAILLE_MAX) {
+            throw new IllegalArgumentException("Pagination invalide : page >= 0, taille entre 1 et " + TAILLE_MAX);
+        }
+        if ((long) (page + 1) * taille > RESULTATS_MAX) {
+            throw new IllegalArgumentException("Seuls les " + RESULTATS_MAX + " premiers résultats sont accessibles");
+        }
+        List<String> termes = analyser(texte);
+        if (termes.isEmpty()) {
+            return new RechercheDTO(texte, 0, true, page, taille, 0, List.of());
+        }
+
+        BooleanQuery.Builder requete = new BooleanQuery.Builder();
+        for (String terme : termes) {
+            List<Query> variantes = new ArrayList<>(CHAMPS.size() * 2);
+            CHAMPS.forEach((champ, poids) -> variantes.add(new BoostQuery(new TermQuery(new Term(champ, terme)), poids)));
+            if (terme.length() >= PREFIXE_MIN) {
+                String prefixe = terme.length() > PREFIXE_MAX ? terme.substring(0, PREFIXE_MAX) : terme;
+                variantes.add(new BoostQuery(new TermQuery(new Term(CHAMP_PREFIXES, prefixe)), POIDS_PREFIXE));
+            }
+            requete.add(new DisjunctionMaxQuery(variantes, 0.1f), BooleanClause.Occur.MUST);
+        }
+        if (type != null) {
+            requete.add(new TermQuery(new Term(CHAMP_TYPE, type.name())), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(requete.build(), (page + 1) * taille);
+            StoredFields champs = searcher.storedFields();
+            List<ResultatRechercheDTO> resultats = new ArrayList<>(taille);
+            for (int i = page * taille; i < top.scoreDocs.length; i++) {
+                ScoreDoc trouve = top.scoreDocs[i];
+                Document doc = champs.document(trouve.doc);
+                resultats.add(new ResultatRechercheDTO(TypeRecherche.valueOf(doc.get(CHAMP_TYPE)),
+                        doc.getField(CHAMP_ID).numericValue().longValue(), Long.valueOf(doc.get(CHAMP_DOSSIER)),
+                        doc.get(CHAMP_TITRE), doc.get(CHAMP_DETAIL), trouve.score));
+            }
+            return new RechercheDTO(texte, top.totalHits.value, top.totalHits.relation == TotalHits.Relation.EQUAL_TO,
+                    page, taille, (System.nanoTime() - debut) / 10_000 / 100.0, resultats);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    public void demanderReconstruction() {
+        if (reconstructionEnCours || reconstructionDemandee) {
+            throw new IllegalStateException("Une reconstruction de l'index est déjà en cours");
+        }
+        reconstructionDemandee = true;
+    }
+
+    public Map<String, Object> getStatistiques() {
+        Map<String, Object> statistiques = new LinkedHashMap<>();
+        statistiques.put("documents", writer.getDocStats().numDocs);
+        statistiques.put("dossiersEnAttente", aIndexer.size());
+        statistiques.put("reconstructionEnCours", reconstructionEnCours || reconstructionDemandee);
+        return statistiques;
+    }
+
+    // --- Mise en file des dossiers touchés, après commit ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDossier(DossierEvent event) {
+        mettreEnFile(event.dossierId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarriere(CarriereEvent event) {
+        mettreEnFile(event.dossierId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLotCarrieres(LotCarrieresEvent event) {
+        aIndexer.addAll(event.dossierIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocument(DocumentEvent event) {
+        mettreEnFile(event.dossierId());
+    }
+
+    // Texte d'un contenu extrait après l'upload : les dossiers qui le référencent sont réindexés
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTexteExtrait(TexteExtraitEvent event) {
+        aIndexer.addAll(event.dossierIds());
+    }
+
+    private void mettreEnFile(Long dossierId) {
+        if (dossierId != null) {
+            aIndexer.offer(dossierId);
+        }
+    }
+
+    // --- Indexation ---
+
+    private void indexer() {
+        List<Long> lot = new ArrayList<>(TAILLE_LOT);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (reconstructionDemandee) {
+                    reconstruire();
+                }
+                // Attente bornée : une reconstruction demandée est prise en compte même sans événement
+                Long premier = aIndexer.poll(1, TimeUnit.SECONDS);
+                if (premier == null) {
+                    continue;
+                }
+                lot.add(premier);
+                aIndexer.drainTo(lot, TAILLE_LOT - 1);
+                reindexer(new LinkedHashSet<>(lot));
+                searcherManager.maybeRefresh();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Indexation de {} dossiers en échec", lot.size(), e);
+            } finally {
+                lot.clear();
+            }
+        }
+    }
+
+    // Remplace toutes les entrées des dossiers donnés par leur état en base (aucune entrée si supprimés)
+    private void reindexer(Collection<Long> dossierIds) throws IOException {
+        List<Long> ids = List.copyOf(dossierIds);
+        List<Object[]> dossiers = dossierRepository.findPourIndex(ids);
+        List<Object[]> carrieres = carriereRepository.findPourIndex(ids);
+        List<Object[]> documents = documentRepository.findPourIndex(ids);
+
+        writer.deleteDocuments(ids.stream().map(id -> new Term(CHAMP_DOSSIER, id.toString())).toArray(Term[]::new));
+        for (Object[] ligne : dossiers) {
+            // [id, numeroSecuriteSociale, nom, prenom, statut]
+            String nom = joindre(" ", ligne[3], ligne[2]);
+            Document doc = entree(TypeRecherche.DOSSIER, ligne[0], ligne[0],
+                    nom != null ? nom : (String) ligne[1], joindre(" · ", ligne[1], ligne[4]));
+            texte(doc, "nss", ligne[1]);
+            texte(doc, "nom", ligne[2]);
+            texte(doc, "prenom", ligne[3]);
+            writer.addDocument(doc);
+        }
+        for (Object[] ligne : carrieres) {
+            // [id, dossierId, entreprise, poste, regimeRetraite]
+            Document doc = entree(TypeRecherche.CARRIERE, ligne[0], ligne[1], (String) ligne[2], joindre(" · ", ligne[3], ligne[4]));
+            texte(doc, "entreprise", ligne[2]);
+            texte(doc, "poste", ligne[3]);
+            writer.addDocument(doc);
+        }
+        for (Object[] ligne : documents) {
+            // [id, dossierId, nom, nomFichier, description, type, contentHash]
+            Document doc = entree(TypeRecherche.DOCUMENT, ligne[0], ligne[1], (String) ligne[2], joindre(" · ", ligne[3], ligne[5]));
+            texte(doc, "libelle", ligne[2]);
+            texte(doc, "fichier", ligne[3]);
+            texte(doc, "description", ligne[4]);
+            // Un seul texte extrait en mémoire à la fois, quel que soit le nombre de documents du lot
+            String contenu = ligne[6] != null ? texteExtraitRepository.findTexte((String) ligne[6]) : null;
+            if (contenu != null) {
+                doc.add(new TextField("contenu", contenu, Field.Store.NO));
+            }
+            writer.addDocument(doc);
+        }
+    }
+
+    /*
+     * Index vidé puis rempli dossier par dossier ; les recherches voient l'ancien index jusqu'à la fin.
+     * Le marqueur « en-cours » accompagne tout commit intermédiaire (arrêt, commit périodique déjà lancé) : un
+     * index ainsi persisté à moitié est reconstruit au démarrage suivant au lieu d'être servi tel quel.
+     */
+    private void reconstruire() throws IOException {
+        reconstructionEnCours = true;
+        reconstructionDemandee = false;
+        long debut = System.nanoTime();
+        long total = 0;
+        try {
+            marquerReconstruction(RECONSTRUCTION_EN_COURS);
+            writer.deleteAll();
+            Long apresId = 0L;
+            List<Long> ids;
+            while (!(ids = dossierRepository.findIdsApres(apresId, PageRequest.of(0, TAILLE_LOT))).isEmpty()) {
+                reindexer(ids);
+                total += ids.size();
+                apresId = ids.get(ids.size() - 1);
+            }
+            marquerReconstruction(RECONSTRUCTION_TERMINEE);
+            writer.commit();
+            searcherManager.maybeRefresh();
+            log.info("Index de recherche reconstruit : {} dossiers, {} entrées en {} ms", total,
+                    writer.getDocStats().numDocs, (System.nanoTime() - debut) / 1_000_000);
+        } finally {
+            reconstructionEnCours = false;
+        }
+    }
+
+    private void marquerReconstruction(String etat) {
+        writer.setLiveCommitData(Map.of(COMMIT_RECONSTRUCTION, etat).entrySet());
+    }
+
+    // Données du dernier commit, reprises par le writer à l'ouverture
+    private boolean reconstructionInterrompue() {
+        Iterable<Map.Entry<String, String>> donnees = writer.getLiveCommitData();
+        if (donnees != null) {
+            for (Map.Entry<String, String> donnee : donnees) {
+                if (COMMIT_RECONSTRUCTION.equals(donnee.getKey())) {
+                    return RECONSTRUCTION_EN_COURS.equals(donnee.getValue());
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Document entree(TypeRecherche type, Object id, Object dossierId, String titre, String detail) {
+        Document doc = new Document();
+        doc.add(new StringField(CHAMP_TYPE, type.name(), Field.Store.YES));
+        doc.add(new StoredField(CHAMP_ID, ((Number) id).longValue()));
+        doc.add(new StringField(CHAMP_DOSSIER, dossierId.toString(), Field.Store.YES));
+        if (titre != null) {
+            doc.add(new StoredField(CHAMP_TITRE, titre));
+        }
+        if (detail != null) {
+            doc.add(new StoredField(CHAMP_DETAIL, detail));
+        }
+        return doc;
+    }
+
+    private static void texte(Document doc, String champ, Object valeur) {
+        if (valeur != null) {
+            doc.add(new TextField(champ, valeur.toString(), Field.Store.NO));
+            doc.add(new TextField(CHAMP_PREFIXES, valeur.toString(), Field.Store.NO));
+        }
+    }
+
+    private static String joindre(String separateur, Object... valeurs) {
+        StringBuilder texte = new StringBuilder();
+        for (Object valeur : valeurs) {
+            if (valeur != null && !valeur.toString().isBlank()) {
+                if (!texte.isEmpty()) {
+                    texte.append(separateur);
+                }
+                texte.append(valeur);
+            }
+        }
+        return texte.isEmpty() ? null : texte.toString();
+    }
+
+    // Termes de la requête, normalisés comme à l'indexation, sans doublons
+    private List<String> analyser(String texte) throws IOException {
+        LinkedHashSet<String> termes = new LinkedHashSet<>();
+        try (TokenStream flux = analyseur.tokenStream("nom", texte)) {
+            CharTermAttribute terme = flux.addAttribute(CharTermAttribute.class);
+            flux.reset();
+            while (flux.incrementToken()) {
+                termes.add(terme.toString());
+            }
+            flux.end();
+        }
+        return new ArrayList<>(termes);
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.commit-ms:30000}")
+    void valider() throws IOException {
+        // Un index en cours de reconstruction n'est validé qu'une fois complet (voir reconstruire)
+        if (!reconstructionEnCours && writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    @PreDestroy
+    void arreter() throws IOException, InterruptedException {
+        indexeur.interrupt();
+        indexeur.join(5000);
+        try {
+            writer.commit();
+        } finally {
+            searcherManager.close();
+            writer.close();
+            repertoire.close();
+        }
+    }
+
+    // Découpage standard, minuscules, accents retirés : « Hélène » et « helene » donnent le même terme
+    private static final class AnalyseurRecherche extends Analyzer {
+        private final boolean prefixes;
+
+        AnalyseurRecherche(boolean prefixes) {
+            this.prefixes = prefixes;
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(String champ) {
+            StandardTokenizer source = new StandardTokenizer();
+            TokenStream flux = new ASCIIFoldingFilter(new LowerCaseFilter(source));
+            if (prefixes) {
+                flux = new EdgeNGramTokenFilter(flux, PREFIXE_MIN, PREFIXE_MAX, true);
+            }
+            return new TokenStreamComponents(source, flux);
+        }
+
+        @Override
+        protected TokenStream normalize(String champ, TokenStream entree) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(entree));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.str.Services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Réponses du modèle aux questions générales, mémorisées par question normalisée (minuscules, sans accents
+ * ni ponctuation). Une question absente est rapprochée des questions mémorisées par trigrammes de caractères
+ * (coefficient de Dice au moins égal à app.gemini.cache.similarite-min), ce qui couvre les reformulations
+ * proches. Taille et durée de vie bornées (app.gemini.cache.*).
+ * Ne sont jamais mémorisées : les questions qui portent un identifiant (suite de 6 chiffres ou plus,
+ * adresse e-mail), et tout appel fait avec le contexte d'un dossier, qui ne passe pas par ce cache.
+ * Les questions avec des nombres plus courts (âge, année) ne sont servies qu'à l'identique.
+ */
+@Component
+public class ReponseCache {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern IDENTIFIANT = Pattern.compile("\\d{6,}|@");
+
+    private record Entree(String reponse, Set<String> trigrammes) {}
+
+    private final Cache<String, Entree> cache;
+    // Trigramme -> questions mémorisées qui le contiennent ; tenu à jour par les retraits du cache
+    private final Map<String, Set<String>> index = new ConcurrentHashMap<>();
+    private final double similariteMin;
+
+    private final LongAdder exacts = new LongAdder();
+    private final LongAdder proches = new LongAdder();
+    private final LongAdder absents = new LongAdder();
+    private final LongAdder exclus = new LongAdder();
+
+    public ReponseCache(@Value("${app.gemini.cache.taille-max:1000}") long tailleMax,
+                        @Value("${app.gemini.cache.duree-vie-minutes:360}") long dureeVieMinutes,
+                        @Value("${app.gemini.cache.similarite-min:0.85}") double similariteMin) {
+        this.similariteMin = similariteMin;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .expireAfterWrite(Duration.ofMinutes(dureeVieMinutes))
+                .executor(Runnable::run)
+                .removalListener(this::desindexer)
+                .build();
+    }
+
+    // Réponse mémorisée pour cette question ou une reformulation proche ; null sinon
+    public String trouver(String question) {
+        String cle = normaliser(question);
+        if (cle.isEmpty() || IDENTIFIANT.matcher(question).find()) {
+            exclus.increment();
+            return null;
+        }
+        Entree entree = cache.getIfPresent(cle);
+        if (entree != null) {
+            exacts.increment();
+            return entree.reponse();
+        }
+        String reponse = cle.chars().anyMatch(Character::isDigit) ? null : proche(trigrammes(cle));
+        (reponse != null ? proches : absents).increment();
+        return reponse;
+    }
+
+    public void memoriser(String question, String reponse) {
+        String cle = normaliser(question);
+        if (cle.isEmpty() || reponse == null || reponse.isBlank() || IDENTIFIANT.matcher(question).find()) {
+            return;
+        }
+        Set<String> trigrammes = trigrammes(cle);
+        cache.put(cle, new Entree(reponse, trigrammes));
+        for (String trigramme : trigrammes) {
+            index.computeIfAbsent(trigramme, t -> ConcurrentHashMap.newKeySet()).add(cle);
+        }
+    }
+
+    public void vider() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStatistiques() {
+        Map<String, Object> statistiques = new LinkedHashMap<>();
+        statistiques.put("entrees", cache.estimatedSize());
+        statistiques.put("trigrammes", index.size());
+        statistiques.put("succesExacts", exacts.sum());
+        statistiques.put("succesProches", proches.sum());
+        statistiques.put("absents", absents.sum());
+        statistiques.put("exclus", exclus.sum());
+        return statistiques;
+    }
+
+    /*
+     * Question mémorisée la plus proche. Dice >= s impose au moins c = s.n / (2 - s) trigrammes communs :
+     * toute candidate partage donc un des n - c + 1 trigrammes les moins fréquents de la question, et seules
+     * ces listes de l'index sont parcourues (les trigrammes courants ne génèrent aucune candidate).
+     */
+    private String proche(Set<String> trigrammes) {
+        int n = trigrammes.size();
+        int communsMin = (int) Math.ceil(similariteMin * n / (2 - similariteMin));
+        List<Set<String>> listes = new ArrayList<>(n);
+        for (String trigramme : trigrammes) {
+            listes.add(index.getOrDefault(trigramme, Set.of()));
+        }
+        listes.sort(Comparator.comparingInt(Set::size));
+        Set<String> candidates = new HashSet<>();
+        for (Set<String> cles : listes.subList(0, Math.max(0, Math.min(n, n - communsMin + 1)))) {
+            candidates.addAll(cles);
+        }
+        String meilleure = null;
+        double meilleurScore = similariteMin;
+        for (String candidate : candidates) {
+            Entree entree = cache.getIfPresent(candidate);
+            if (entree == null) {
+                continue;
+            }
+            int communs = 0;
+            for (String trigramme : trigrammes) {
+                if (entree.trigrammes().contains(trigramme)) {
+                    communs++;
+                }
+            }
+            double score = 2.0 * communs / (n + entree.trigrammes().size());
+            if (score >= meilleurScore) {
+                meilleurScore = score;
+                meilleure = entree.reponse();
+            }
+        }
+        return meilleure;
+    }
+
+    private void desindexer(String cle, Entree entree, RemovalCause cause) {
+        // Remplacement : même question, donc mêmes trigrammes, toujours indexés
+        if (cle == null || entree == null || cause == RemovalCause.REPLACED) {
+            return;
+        }
+        for (String trigramme : entree.trigrammes()) {
+            index.computeIfPresent(trigramme, (t, cles) -> {
+                cles.remove(cle);
+                return cles.isEmpty() ? null : cles;
+            });
+        }
+    }
+
+    static String normaliser(String texte) {
+        if (texte == null) {
+            return "";
+        }
+        String sansAccents = ACCENTS.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATEURS.matcher(sansAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static Set<String> trigrammes(String cle) {
+        String borne = " " + cle + " ";
+        Set<String> trigrammes = new HashSet<>();
+        for (int i = 0; i + 3 <= borne.length(); i++) {
+            trigrammes.add(borne.substring(i, i + 3));
+        }
+        return trigrammes;
+    }
+}
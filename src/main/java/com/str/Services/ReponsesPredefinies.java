@@ -0,0 +1,102 @@
+package com.str.Services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.str.DTO.IntentionDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Réponses prédéfinies de l'assistant, par intention. Servent de repli quand le modèle génératif
+ * n'est pas joignable (disjoncteur ouvert, délai dépassé, appels simultanés au maximum).
+ * Les intentions (mots-clés, poids, priorité, réponse) sont lues en JSON depuis app.assistant.intentions.fichier
+ * (par défaut classpath:assistant/intentions.json) et compilées en AutomateIntentions. Un fichier sur disque
+ * est relu dès qu'il change (vérification périodique) ou sur demande ; une définition invalide est refusée
+ * et l'automate en place reste actif.
+ */
+@Component
+public class ReponsesPredefinies {
+
+    private static final Logger log = LoggerFactory.getLogger(ReponsesPredefinies.class);
+
+    private final Resource source;
+    private final ObjectMapper objectMapper;
+
+    private volatile AutomateIntentions automate;
+    private volatile long dateModification;
+    private volatile LocalDateTime dateChargement;
+
+    public ReponsesPredefinies(ResourceLoader resourceLoader, ObjectMapper objectMapper,
+                               @Value("${app.assistant.intentions.fichier:classpath:assistant/intentions.json}") String fichier)
+            throws IOException {
+        this.source = resourceLoader.getResource(fichier);
+        this.objectMapper = objectMapper;
+        recharger();
+    }
+
+    public String repondre(String message) {
+        return automate.classer(message).reponse();
+    }
+
+    public IntentionDTO classer(String message) {
+        return automate.classer(message);
+    }
+
+    // Relit et compile la définition ; en cas d'erreur, l'automate précédent est conservé
+    public synchronized Map<String, Object> recharger() throws IOException {
+        long modification = source.isFile() ? source.lastModified() : 0;
+        AutomateIntentions.Definition definition;
+        try (InputStream flux = source.getInputStream()) {
+            definition = objectMapper.readValue(flux, AutomateIntentions.Definition.class);
+        }
+        long debut = System.nanoTime();
+        AutomateIntentions compile = new AutomateIntentions(definition);
+        automate = compile;
+        dateModification = modification;
+        dateChargement = LocalDateTime.now();
+        log.info("Intentions de l'assistant chargées depuis {} : {} intentions, {} mots-clés, {} états ({} ms)",
+                source.getDescription(), compile.nombreIntentions(), compile.nombreMotsCles(), compile.nombreEtats(),
+                (System.nanoTime() - debut) / 1_000_000);
+        return getStatistiques();
+    }
+
+    // Rechargement à chaud d'un fichier sur disque modifié
+    @Scheduled(fixedDelayString = "${app.assistant.intentions.verification-ms:5000}")
+    public void verifierModification() {
+        try {
+            if (source.isFile() && source.lastModified() != dateModification) {
+                recharger();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Intentions de l'assistant non rechargées ({}), définition précédente conservée : {}",
+                    source.getDescription(), e.getMessage());
+            // Pas de nouvel essai tant que le fichier ne change pas encore
+            try {
+                dateModification = source.lastModified();
+            } catch (IOException ignored) {
+                // fichier devenu illisible : nouvel essai à la prochaine vérification
+            }
+        }
+    }
+
+    public Map<String, Object> getStatistiques() {
+        AutomateIntentions courant = automate;
+        Map<String, Object> statistiques = new LinkedHashMap<>();
+        statistiques.put("source", source.getDescription());
+        statistiques.put("intentions", courant.nombreIntentions());
+        statistiques.put("motsCles", courant.nombreMotsCles());
+        statistiques.put("etats", courant.nombreEtats());
+        statistiques.put("dateChargement", dateChargement);
+        return statistiques;
+    }
+}
@@ -0,0 +1,185 @@
+package com.str.Services;
+
+import com.str.DTO.StatistiquesDashboardDTO;
+import com.str.Enum.StatutDossier;
+import com.str.Enum.TypeEvenement;
+import com.str.Events.CarriereEvent;
+import com.str.Events.DocumentEvent;
+import com.str.Events.DossierEvent;
+import com.str.Events.LotCarrieresEvent;
+import com.str.Events.LotPaiementsEvent;
+import com.str.Events.PaiementEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compteurs du tableau de bord maintenus en mémoire à partir des événements métier.
+ * Les événements ne sont appliqués qu'après le commit de la transaction qui les a publiés ;
+ * ReportingService recale périodiquement l'ensemble sur la base, par correction de l'écart plutôt que par
+ * remise à zéro, pour ne perdre ni compter deux fois un événement appliqué pendant la relecture.
+ */
+@Component
+public class ReportingCounters {
+
+    private final Map<StatutDossier, LongAdder> dossiersParStatut = new EnumMap<>(StatutDossier.class);
+    private final LongAdder totalDossiers = new LongAdder();
+    private final LongAdder totalCarrieres = new LongAdder();
+    private final AtomicReference<BigDecimal> sommeSalaires = new AtomicReference<>(BigDecimal.ZERO);
+    private final LongAdder totalPaiements = new LongAdder();
+    private final AtomicReference<BigDecimal> montantTotalPaiements = new AtomicReference<>(BigDecimal.ZERO);
+    private final LongAdder totalDocuments = new LongAdder();
+
+    // Événements appliqués, et verrou partagé par les événements, exclusif pour le recalage
+    private final LongAdder evenementsAppliques = new LongAdder();
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    private volatile boolean initialise = false;
+
+    public ReportingCounters() {
+        for (StatutDossier statut : StatutDossier.values()) {
+            dossiersParStatut.put(statut, new LongAdder());
+        }
+    }
+
+    public boolean isInitialise() {
+        return initialise;
+    }
+
+    public StatistiquesDashboardDTO snapshot() {
+        Map<StatutDossier, Long> parStatut = new EnumMap<>(StatutDossier.class);
+        dossiersParStatut.forEach((statut, compteur) -> parStatut.put(statut, compteur.sum()));
+        return new StatistiquesDashboardDTO(
+                totalDossiers.sum(),
+                parStatut,
+                totalCarrieres.sum(),
+                sommeSalaires.get(),
+                totalPaiements.sum(),
+                montantTotalPaiements.get(),
+                totalDocuments.sum());
+    }
+
+    // Marque à relever avant de lire la base, puis à passer à recaler()
+    public long getEvenementsAppliques() {
+        return evenementsAppliques.sum();
+    }
+
+    /*
+     * Recale les compteurs sur des valeurs lues en base en ajoutant l'écart (base - mémoire), sous le verrou
+     * qui exclut l'application des événements. Si un événement a été appliqué depuis la marque, la lecture
+     * en base peut l'inclure ou non : rien n'est corrigé (vide), le recalage suivant s'en chargera.
+     * Renvoie l'état en mémoire avant correction.
+     */
+    public Optional<StatistiquesDashboardDTO> recaler(StatistiquesDashboardDTO enBase, long marque) {
+        verrou.writeLock().lock();
+        try {
+            if (evenementsAppliques.sum() != marque) {
+                return Optional.empty();
+            }
+            StatistiquesDashboardDTO enMemoire = snapshot();
+            dossiersParStatut.forEach((statut, compteur) -> compteur.add(
+                    enBase.dossiersParStatut().getOrDefault(statut, 0L) - enMemoire.dossiersParStatut().get(statut)));
+            totalDossiers.add(enBase.totalDossiers() - enMemoire.totalDossiers());
+            totalCarrieres.add(enBase.totalCarrieres() - enMemoire.totalCarrieres());
+            ajouter(sommeSalaires, enMemoire.sommeSalaires(), enBase.sommeSalaires());
+            totalPaiements.add(enBase.totalPaiements() - enMemoire.totalPaiements());
+            ajouter(montantTotalPaiements, enMemoire.montantTotalPaiements(), enBase.montantTotalPaiements());
+            totalDocuments.add(enBase.totalDocuments() - enMemoire.totalDocuments());
+            initialise = true;
+            return Optional.of(enMemoire);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDossier(DossierEvent event) {
+        appliquer(() -> {
+            if (event.type() == TypeEvenement.CREATION) {
+                totalDossiers.increment();
+            } else if (event.type() == TypeEvenement.SUPPRESSION) {
+                totalDossiers.decrement();
+            }
+            if (event.ancienStatut() != event.nouveauStatut()) {
+                if (event.ancienStatut() != null) {
+                    dossiersParStatut.get(event.ancienStatut()).decrement();
+                }
+                if (event.nouveauStatut() != null) {
+                    dossiersParStatut.get(event.nouveauStatut()).increment();
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarriere(CarriereEvent event) {
+        appliquer(() -> {
+            compter(totalCarrieres, event.type());
+            ajouter(sommeSalaires, event.ancienSalaire(), event.nouveauSalaire());
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLotCarrieres(LotCarrieresEvent event) {
+        appliquer(() -> {
+            totalCarrieres.add(event.nombreCarrieres());
+            ajouter(sommeSalaires, null, event.sommeSalaires());
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaiement(PaiementEvent event) {
+        appliquer(() -> {
+            compter(totalPaiements, event.type());
+            ajouter(montantTotalPaiements, event.ancienMontant(), event.nouveauMontant());
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLotPaiements(LotPaiementsEvent event) {
+        appliquer(() -> {
+            totalPaiements.add(event.nombrePaiements());
+            ajouter(montantTotalPaiements, null, event.montantTotal());
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocument(DocumentEvent event) {
+        appliquer(() -> {
+            compter(totalDocuments, event.type());
+        });
+    }
+
+    private void appliquer(Runnable application) {
+        verrou.readLock().lock();
+        try {
+            application.run();
+            evenementsAppliques.increment();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private static void compter(LongAdder compteur, TypeEvenement type) {
+        if (type == TypeEvenement.CREATION) {
+            compteur.increment();
+        } else if (type == TypeEvenement.SUPPRESSION) {
+            compteur.decrement();
+        }
+    }
+
+    private static void ajouter(AtomicReference<BigDecimal> total, BigDecimal ancien, BigDecimal nouveau) {
+        BigDecimal delta = (nouveau != null ? nouveau : BigDecimal.ZERO)
+                .subtract(ancien != null ? ancien : BigDecimal.ZERO);
+        if (delta.signum() != 0) {
+            total.accumulateAndGet(delta, BigDecimal::add);
+        }
+    }
+}
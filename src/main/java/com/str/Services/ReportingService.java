@@ -1,27 +1,34 @@
 package com.str.Services;
 
-import com.str.Models.DossierRetraite;
-import com.str.Models.Carriere;
-import com.str.Models.Paiement;
-import com.str.Models.Document;
 import com.str.Repositories.DossierRepository;
 import com.str.Repositories.CarriereRepository;
 import com.str.Repositories.PaiementRepository;
 import com.str.Repositories.DocumentRepository;
 import com.str.Enum.StatutDossier;
-import com.str.Enum.TypePaiement;
+import com.str.DTO.StatistiquesDashboardDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class ReportingService {
 
+    private static final Logger log = LoggerFactory.getLogger(ReportingService.class);
+
+    private static final int ESSAIS_RECALAGE = 3;
+    private static final Set<Integer> FENETRES_MENSUELLES = Set.of(12, 24, 60);
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+
     @Autowired
     private DossierRepository dossierRepository;
 
@@ -34,121 +41,127 @@ public class ReportingService {
     @Autowired
     private DocumentRepository documentRepository;
 
+    @Autowired
+    private ReportingCounters reportingCounters;
+
     public Map<String, Object> getDashboardStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-
-        // Statistiques des dossiers
-        List<DossierRetraite> allDossiers = dossierRepository.findAll();
-        stats.put("totalDossiers", allDossiers.size());
-        stats.put("dossiersEnCours", allDossiers.stream()
-            .filter(d -> d.getStatut() == StatutDossier.EN_COURS)
-            .count());
-        stats.put("dossiersValides", allDossiers.stream()
-            .filter(d -> d.getStatut() == StatutDossier.VALIDE)
-            .count());
-        stats.put("dossiersRejetes", allDossiers.stream()
-            .filter(d -> d.getStatut() == StatutDossier.REJETE)
-            .count());
-
-        // Statistiques des carrières
-        List<Carriere> allCarrieres = carriereRepository.findAll();
-        stats.put("totalCarrieres", allCarrieres.size());
-
-        // Calcul du salaire moyen
-        double salaireMoyen = allCarrieres.stream()
-            .mapToDouble(c -> c.getSalaireMoyen() != null ? c.getSalaireMoyen().doubleValue() : 0)
-            .average()
-            .orElse(0.0);
-        stats.put("salaireMoyen", BigDecimal.valueOf(salaireMoyen));
+        // Servi depuis les compteurs en mémoire dès qu'ils ont été initialisés
+        if (reportingCounters.isInitialise()) {
+            return reportingCounters.snapshot().toMap();
+        }
+        return lireStatistiquesDepuisBase().toMap();
+    }
 
-        // Statistiques des paiements
-        List<Paiement> allPaiements = paiementRepository.findAll();
-        stats.put("totalPaiements", allPaiements.size());
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.reporting.reconciliation-ms:300000}",
+               fixedDelayString = "${app.reporting.reconciliation-ms:300000}")
+    public void reconcilierCompteurs() {
+        // Relecture recommencée si des événements ont été appliqués pendant qu'elle se faisait
+        for (int essai = 0; essai < ESSAIS_RECALAGE; essai++) {
+            long marque = reportingCounters.getEvenementsAppliques();
+            StatistiquesDashboardDTO enBase = lireStatistiquesDepuisBase();
+            boolean initialise = reportingCounters.isInitialise();
+            Optional<StatistiquesDashboardDTO> enMemoire = reportingCounters.recaler(enBase, marque);
+            if (enMemoire.isPresent()) {
+                if (initialise && !enMemoire.get().equals(enBase)) {
+                    log.warn("Écart entre les compteurs en mémoire et la base, recalage: mémoire={} base={}", enMemoire.get(), enBase);
+                }
+                return;
+            }
+        }
+        log.debug("Compteurs modifiés pendant chaque relecture, recalage reporté");
+    }
 
-        BigDecimal montantTotalPaiements = allPaiements.stream()
-            .map(p -> p.getMontant() != null ? p.getMontant() : BigDecimal.ZERO)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("montantTotalPaiements", montantTotalPaiements);
+    public StatistiquesDashboardDTO lireStatistiquesDepuisBase() {
+        // Statistiques des dossiers : un seul COUNT groupé par statut, aucune entité chargée
+        Map<StatutDossier, Long> dossiersParStatut = new EnumMap<>(StatutDossier.class);
+        long totalDossiers = 0;
+        for (Object[] ligne : dossierRepository.countByStatut()) {
+            long nombre = ((Number) ligne[1]).longValue();
+            totalDossiers += nombre;
+            if (ligne[0] instanceof StatutDossier statut) {
+                dossiersParStatut.put(statut, nombre);
+            }
+        }
 
-        // Statistiques des documents
-        List<Document> allDocuments = documentRepository.findAll();
-        stats.put("totalDocuments", allDocuments.size());
+        // Statistiques des carrières (les salaires absents comptent pour 0 dans la moyenne)
+        Object[] carrieres = premiereLigne(carriereRepository.aggregerSalaires());
 
-        return stats;
+        // Statistiques des paiements
+        Object[] paiements = premiereLigne(paiementRepository.aggregerMontants());
+
+        return new StatistiquesDashboardDTO(
+            totalDossiers,
+            dossiersParStatut,
+            ((Number) carrieres[0]).longValue(),
+            toBigDecimal(carrieres[1]),
+            ((Number) paiements[0]).longValue(),
+            toBigDecimal(paiements[1]),
+            // Statistiques des documents (COUNT sans lire le contenu des fichiers)
+            documentRepository.count());
     }
 
     public Map<String, Object> getMonthlyStatistics() {
-        Map<String, Object> monthlyStats = new HashMap<>();
+        return getMonthlyStatistics(12);
+    }
 
-        // Dossiers créés par mois (derniers 12 mois)
-        LocalDate now = LocalDate.now();
-        Map<String, Long> dossiersByMonth = new HashMap<>();
+    public Map<String, Object> getMonthlyStatistics(int mois) {
+        if (!FENETRES_MENSUELLES.contains(mois)) {
+            throw new IllegalArgumentException("Fenêtre non supportée: " + mois + " mois (valeurs possibles: " + FENETRES_MENSUELLES + ")");
+        }
 
-        for (int i = 11; i >= 0; i--) {
-            LocalDate month = now.minusMonths(i);
-            String monthKey = month.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        // Mois couverts, du plus ancien au plus récent, initialisés à zéro
+        YearMonth moisCourant = YearMonth.now();
+        YearMonth premierMois = moisCourant.minusMonths(mois - 1L);
+        Map<String, Long> dossiersByMonth = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> dossiersByMonthAndStatut = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> dossiersByMonthAndRegime = new LinkedHashMap<>();
+        for (YearMonth m = premierMois; !m.isAfter(moisCourant); m = m.plusMonths(1)) {
+            String monthKey = m.format(MONTH_FORMATTER);
+            dossiersByMonth.put(monthKey, 0L);
+            dossiersByMonthAndStatut.put(monthKey, new LinkedHashMap<>());
+            dossiersByMonthAndRegime.put(monthKey, new LinkedHashMap<>());
+        }
 
-            long count = dossierRepository.findAll().stream()
-                .filter(d -> d.getDateCreation() != null)
-                .filter(d -> {
-                    LocalDate creationDate = d.getDateCreation();
-                    return creationDate.getYear() == month.getYear() &&
-                           creationDate.getMonth() == month.getMonth();
-                })
-                .count();
+        // Une requête GROUP BY pour toute la fenêtre : le total mensuel est la somme des statuts
+        LocalDate depuis = premierMois.atDay(1);
+        for (Object[] ligne : dossierRepository.countByMoisEtStatut(depuis)) {
+            String monthKey = monthKey(ligne);
+            if (!dossiersByMonth.containsKey(monthKey)) {
+                continue;
+            }
+            long nombre = ((Number) ligne[3]).longValue();
+            dossiersByMonth.merge(monthKey, nombre, Long::sum);
+            dossiersByMonthAndStatut.get(monthKey).merge(String.valueOf(ligne[2]), nombre, Long::sum);
+        }
 
-            dossiersByMonth.put(monthKey, count);
+        // Un dossier peut relever de plusieurs régimes via ses carrières : comptage distinct par régime
+        for (Object[] ligne : dossierRepository.countByMoisEtRegime(depuis)) {
+            String monthKey = monthKey(ligne);
+            if (dossiersByMonthAndRegime.containsKey(monthKey)) {
+                dossiersByMonthAndRegime.get(monthKey).put(String.valueOf(ligne[2]), ((Number) ligne[3]).longValue());
+            }
         }
 
+        Map<String, Object> monthlyStats = new HashMap<>();
         monthlyStats.put("dossiersByMonth", dossiersByMonth);
+        monthlyStats.put("dossiersByMonthAndStatut", dossiersByMonthAndStatut);
+        monthlyStats.put("dossiersByMonthAndRegime", dossiersByMonthAndRegime);
         return monthlyStats;
     }
 
-    public List<Map<String, Object>> getRecentActivities() {
-        List<Map<String, Object>> activities = new ArrayList<>();
-
-        // Derniers dossiers créés
-        List<DossierRetraite> recentDossiers = dossierRepository.findAll().stream()
-            .filter(d -> d.getDateCreation() != null)
-            .sorted((d1, d2) -> d2.getDateCreation().compareTo(d1.getDateCreation()))
-            .limit(5)
-            .toList();
-
-        for (DossierRetraite dossier : recentDossiers) {
-            Map<String, Object> activity = new HashMap<>();
-            activity.put("type", "DOSSIER_CREE");
-            activity.put("description", "Nouveau dossier créé: " + dossier.getNumeroSecuriteSociale());
-            activity.put("date", dossier.getDateCreation());
-            activity.put("entityId", dossier.getId());
-            activities.add(activity);
-        }
-
-        // Derniers documents uploadés
-        List<Document> recentDocuments = documentRepository.findAll().stream()
-            .filter(d -> d.getDateUpload() != null)
-            .sorted((d1, d2) -> d2.getDateUpload().compareTo(d1.getDateUpload()))
-            .limit(5)
-            .toList();
-
-        for (Document document : recentDocuments) {
-            Map<String, Object> activity = new HashMap<>();
-            activity.put("type", "DOCUMENT_UPLOAD");
-            activity.put("description", "Document uploadé: " + document.getNom());
-            activity.put("date", document.getDateUpload());
-            activity.put("entityId", document.getId());
-            activities.add(activity);
-        }
+    private static String monthKey(Object[] ligne) {
+        return YearMonth.of(((Number) ligne[0]).intValue(), ((Number) ligne[1]).intValue()).format(MONTH_FORMATTER);
+    }
 
-        // Trier toutes les activités par date
-        activities.sort((a1, a2) -> {
-            Object date1Obj = a1.get("date");
-            Object date2Obj = a2.get("date");
+    private static Object[] premiereLigne(List<Object[]> lignes) {
+        return lignes.isEmpty() ? new Object[] {0L, BigDecimal.ZERO} : lignes.get(0);
+    }
 
-            if (date1Obj instanceof LocalDate date1 && date2Obj instanceof LocalDate date2) {
-                return date2.compareTo(date1);
-            }
-            return 0;
-        });
-        return activities.stream().limit(10).toList();
+    private static BigDecimal toBigDecimal(Object valeur) {
+        if (valeur instanceof BigDecimal bigDecimal) {
+            return bigDecimal;
+        }
+        return valeur != null ? new BigDecimal(valeur.toString()) : BigDecimal.ZERO;
     }
 }
@@ -0,0 +1,271 @@
+package com.str.Services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.str.DTO.ScenarioResultatDTO;
+import com.str.DTO.SimulationDTO;
+import com.str.Enum.RegimeRetraite;
+import com.str.Models.DossierRetraite;
+import com.str.Repositories.CarriereRepository;
+import com.str.Repositories.DossierRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Simulations « et si » : une grille d'hypothèses (âge de départ, trimestres supplémentaires, croissance
+ * des salaires, rachat de trimestres) appliquée aux carrières agrégées d'un dossier puis évaluée par
+ * PensionCalculator, par tranches en parallèle. Chaque tranche est envoyée dès qu'elle est calculée (NDJSON),
+ * l'ordre des lignes n'est donc pas celui de la grille : l'index du scénario permet de le retrouver.
+ * Les années restant jusqu'au départ ajoutent 4 trimestres par an et une carrière projetée au régime principal
+ * (celui qui totalise le plus de trimestres), au dernier salaire moyen revalorisé chaque année. La grille est
+ * bornée (âge de départ jusqu'à 75 ans, trimestres ajoutés, salaire projeté) et son scénario extrême calculé
+ * avant l'ouverture du flux : un dépassement est refusé d'emblée plutôt que de produire des pensions absurdes.
+ */
+@Service
+public class SimulationService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimulationService.class);
+    private static final int TAILLE_TRANCHE = 64;
+    private static final int AGE_DEPART_MAX = 75;
+    private static final int TRIMESTRES_AJOUTES_MAX = 200;
+    // Un milliard d'euros par an : au-delà, la projection n'a plus de sens
+    private static final double SALAIRE_PROJETE_MAX_CENTIMES = 100_000_000_000.0;
+
+    private final DossierRepository dossierRepository;
+    private final CarriereRepository carriereRepository;
+    private final PensionCalculator pensionCalculator;
+    private final ObjectMapper objectMapper;
+    private final ForkJoinPool calcul;
+    private final int scenariosMax;
+    private final long coutRachatTrimestreCentimes;
+
+    public SimulationService(DossierRepository dossierRepository, CarriereRepository carriereRepository,
+                             PensionCalculator pensionCalculator, ObjectMapper objectMapper,
+                             @Value("${app.simulation.scenarios-max:10000}") int scenariosMax,
+                             @Value("${app.simulation.rachat.cout-trimestre:3500}") BigDecimal coutRachatTrimestre,
+                             @Value("${app.simulation.parallelisme:0}") int parallelisme) {
+        this.dossierRepository = dossierRepository;
+        this.carriereRepository = carriereRepository;
+        this.pensionCalculator = pensionCalculator;
+        this.objectMapper = objectMapper;
+        this.scenariosMax = scenariosMax;
+        this.coutRachatTrimestreCentimes = PensionCalculator.centimes(coutRachatTrimestre);
+        this.calcul = new ForkJoinPool(parallelisme > 0 ? parallelisme : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Situation de départ d'une simulation, chargée et validée avant l'ouverture du flux
+    public record Simulation(Long dossierId, Integer ageActuel, List<PensionCalculator.Agregat> agregats,
+                             RegimeRetraite regimePrincipal, List<Integer> agesDepart,
+                             List<Integer> trimestresSupplementaires, List<Double> croissancesSalaire,
+                             List<Integer> trimestresRachetes) {
+
+        // ArithmeticException si le produit dépasse un long (grille démesurée)
+        public long nombreScenarios() {
+            return Math.multiplyExact(Math.multiplyExact(Math.multiplyExact((long) agesDepart.size(),
+                    trimestresSupplementaires.size()), croissancesSalaire.size()), trimestresRachetes.size());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Simulation preparer(Long dossierId, SimulationDTO grille) {
+        DossierRetraite dossier = dossierRepository.findById(dossierId)
+                .orElseThrow(() -> new EntityNotFoundException("Dossier non trouvé avec l'ID: " + dossierId));
+
+        List<Integer> agesDepart = valeurs(grille.agesDepart(), null);
+        List<Integer> trimestresSupplementaires = valeurs(grille.trimestresSupplementaires(), 0);
+        List<Double> croissancesSalaire = valeurs(grille.croissancesSalaire(), 0.0);
+        List<Integer> trimestresRachetes = valeurs(grille.trimestresRachetes(), 0);
+        if (trimestresSupplementaires.stream().anyMatch(t -> t == null || t < 0 || t > TRIMESTRES_AJOUTES_MAX)
+                || trimestresRachetes.stream().anyMatch(t -> t == null || t < 0 || t > TRIMESTRES_AJOUTES_MAX)) {
+            throw new IllegalArgumentException("Les trimestres supplémentaires et rachetés doivent être compris entre 0 et "
+                    + TRIMESTRES_AJOUTES_MAX);
+        }
+        if (croissancesSalaire.stream().anyMatch(c -> c == null || c <= -100 || c > 100)) {
+            throw new IllegalArgumentException("La croissance des salaires doit être comprise entre -100 et 100 %");
+        }
+
+        Integer ageActuel = null;
+        LocalDate dateNaissance = dossier.getBeneficiaire() != null ? dossier.getBeneficiaire().getDateNaissance() : null;
+        if (dateNaissance != null) {
+            ageActuel = Period.between(dateNaissance, LocalDate.now()).getYears();
+        } else if (agesDepart.stream().anyMatch(age -> age != null)) {
+            throw new IllegalArgumentException("Date de naissance inconnue : impossible de simuler un âge de départ");
+        }
+        int ageMin = ageActuel != null ? ageActuel : 0;
+        if (agesDepart.stream().anyMatch(age -> age != null && (age < ageMin || age > AGE_DEPART_MAX))) {
+            throw new IllegalArgumentException("L'âge de départ doit être compris entre l'âge actuel (" + ageMin
+                    + " ans) et " + AGE_DEPART_MAX + " ans");
+        }
+
+        List<PensionCalculator.Agregat> agregats = PensionCalculator
+                .parDossier(carriereRepository.agregerParDossierEtRegime(List.of(dossierId)))
+                .getOrDefault(dossierId, List.of());
+        RegimeRetraite regimePrincipal = agregats.stream()
+                .max((a, b) -> Long.compare(a.trimestres(), b.trimestres()))
+                .map(PensionCalculator.Agregat::regime)
+                .orElse(RegimeRetraite.GENERAL);
+
+        Simulation simulation = new Simulation(dossierId, ageActuel, agregats, regimePrincipal, agesDepart,
+                trimestresSupplementaires, croissancesSalaire, trimestresRachetes);
+        long nombreScenarios;
+        try {
+            nombreScenarios = simulation.nombreScenarios();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("La grille compte trop de scénarios (maximum " + scenariosMax + ")");
+        }
+        if (nombreScenarios > scenariosMax) {
+            throw new IllegalArgumentException("La grille compte " + nombreScenarios
+                    + " scénarios (maximum " + scenariosMax + ")");
+        }
+        verifierScenarioExtreme(simulation);
+        return simulation;
+    }
+
+    /*
+     * Le salaire projeté croît avec les années et la croissance, les trimestres avec leur nombre : si le scénario
+     * qui les combine tous au maximum se calcule sans dépassement, toute la grille aussi.
+     */
+    private void verifierScenarioExtreme(Simulation simulation) {
+        int anneesMax = simulation.agesDepart().stream()
+                .filter(age -> age != null)
+                .mapToInt(age -> age - simulation.ageActuel())
+                .max().orElse(0);
+        double croissanceMax = simulation.croissancesSalaire().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        long trimestresMax = 4L * anneesMax
+                + simulation.trimestresSupplementaires().stream().mapToInt(Integer::intValue).max().orElse(0)
+                + simulation.trimestresRachetes().stream().mapToInt(Integer::intValue).max().orElse(0);
+        try {
+            pensionCalculator.calculer(projeter(simulation, anneesMax, croissanceMax, trimestresMax));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Salaires projetés hors limites : croissance de " + croissanceMax
+                    + " % sur " + anneesMax + " ans");
+        }
+    }
+
+    // Évalue la grille par tranches sur le pool de calcul ; l'émetteur est terminé quand toutes ont été envoyées
+    public void executer(Simulation simulation, ResponseBodyEmitter emitter) {
+        // Borné par scenariosMax dans preparer
+        int total = Math.toIntExact(simulation.nombreScenarios());
+        AtomicBoolean abandon = new AtomicBoolean();
+        emitter.onTimeout(() -> abandon.set(true));
+        emitter.onError(erreur -> abandon.set(true));
+
+        List<CompletableFuture<Void>> tranches = new ArrayList<>((total + TAILLE_TRANCHE - 1) / TAILLE_TRANCHE);
+        for (int debut = 0; debut < total; debut += TAILLE_TRANCHE) {
+            int premier = debut;
+            int dernier = Math.min(debut + TAILLE_TRANCHE, total);
+            tranches.add(CompletableFuture.runAsync(() -> {
+                if (abandon.get()) {
+                    return;
+                }
+                StringBuilder lignes = new StringBuilder(256 * (dernier - premier));
+                for (int index = premier; index < dernier; index++) {
+                    ecrire(lignes, evaluer(simulation, index));
+                }
+                try {
+                    emitter.send(lignes.toString(), MediaType.APPLICATION_NDJSON);
+                } catch (IOException e) {
+                    abandon.set(true);
+                }
+            }, calcul));
+        }
+        CompletableFuture.allOf(tranches.toArray(CompletableFuture[]::new)).whenComplete((ignore, erreur) -> {
+            if (erreur != null) {
+                log.error("Simulation du dossier {} en échec", simulation.dossierId(), erreur);
+                emitter.completeWithError(erreur);
+            } else {
+                emitter.complete();
+            }
+        });
+    }
+
+    public ScenarioResultatDTO evaluer(Simulation simulation, int index) {
+        int reste = index;
+        Integer ageDepart = simulation.agesDepart().get(reste % simulation.agesDepart().size());
+        reste /= simulation.agesDepart().size();
+        int supplementaires = simulation.trimestresSupplementaires().get(reste % simulation.trimestresSupplementaires().size());
+        reste /= simulation.trimestresSupplementaires().size();
+        double croissance = simulation.croissancesSalaire().get(reste % simulation.croissancesSalaire().size());
+        reste /= simulation.croissancesSalaire().size();
+        int rachetes = simulation.trimestresRachetes().get(reste % simulation.trimestresRachetes().size());
+
+        int annees = ageDepart != null ? Math.max(0, ageDepart - simulation.ageActuel()) : 0;
+        PensionResultat resultat = pensionCalculator.calculer(projeter(simulation, annees, croissance,
+                4L * annees + supplementaires + rachetes));
+        return new ScenarioResultatDTO(index, ageDepart, supplementaires, croissance, rachetes,
+                resultat.trimestresValides(), resultat.salaireMoyenAnnuel(), resultat.tauxPension(),
+                resultat.montantAnnuel(), resultat.montantMensuel(),
+                BigDecimal.valueOf(rachetes * coutRachatTrimestreCentimes, 2));
+    }
+
+    // Agrégats du dossier avec les trimestres ajoutés (et la carrière projetée) au régime principal ;
+    // ArithmeticException si le salaire projeté dépasse SALAIRE_PROJETE_MAX_CENTIMES
+    private static List<PensionCalculator.Agregat> projeter(Simulation simulation, int annees, double croissance,
+                                                            long trimestresAjoutes) {
+        List<PensionCalculator.Agregat> agregats = simulation.agregats();
+        List<PensionCalculator.Agregat> projetes = new ArrayList<>(agregats.size() + 1);
+        boolean principalTrouve = false;
+        for (PensionCalculator.Agregat agregat : agregats) {
+            if (agregat.regime() == simulation.regimePrincipal()) {
+                principalTrouve = true;
+                long nombre = agregat.nombreCarrieres();
+                long salaires = agregat.sommeSalairesCentimes();
+                if (annees > 0 && nombre > 0) {
+                    double projete = salaires / (double) nombre * Math.pow(1 + croissance / 100.0, annees);
+                    if (!(projete <= SALAIRE_PROJETE_MAX_CENTIMES)) {
+                        throw new ArithmeticException("Salaire projeté hors limites");
+                    }
+                    salaires = Math.addExact(salaires, Math.round(projete));
+                    nombre++;
+                }
+                projetes.add(new PensionCalculator.Agregat(agregat.regime(), nombre, salaires,
+                        agregat.trimestres() + trimestresAjoutes));
+            } else {
+                projetes.add(agregat);
+            }
+        }
+        if (!principalTrouve && trimestresAjoutes > 0) {
+            projetes.add(new PensionCalculator.Agregat(simulation.regimePrincipal(), 0, 0, trimestresAjoutes));
+        }
+        return projetes;
+    }
+
+    private void ecrire(StringBuilder lignes, ScenarioResultatDTO resultat) {
+        try {
+            lignes.append(objectMapper.writeValueAsString(resultat)).append('\n');
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> List<T> valeurs(List<T> liste, T neutre) {
+        if (liste == null || liste.isEmpty()) {
+            List<T> valeurs = new ArrayList<>(1);
+            valeurs.add(neutre);
+            return valeurs;
+        }
+        return liste;
+    }
+
+    @PreDestroy
+    void arreter() {
+        calcul.shutdownNow();
+    }
+}
@@ -0,0 +1,370 @@
+package com.str.Services;
+
+import com.str.DTO.DocumentDTO;
+import com.str.DTO.UploadInitDTO;
+import com.str.DTO.UploadStatutDTO;
+import com.str.Repositories.DossierRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Upload reprenable de gros documents : le fichier est préalloué à sa taille finale puis chaque morceau
+ * est écrit à sa position (écritures positionnelles NIO), dans n'importe quel ordre et en parallèle, un seul
+ * envoi à la fois par morceau.
+ * Un morceau peut porter sa propre empreinte (en-tête X-Morceau-Sha256) : il est alors refusé dès sa réception
+ * s'il est altéré. À la fin, l'empreinte SHA-256 du fichier est vérifiée avant le rattachement au dossier
+ * (une lecture de plus) : si elle diffère, la session est conservée et les morceaux suspects (empreinte
+ * différente sur disque, sinon ceux envoyés sans empreinte) redeviennent manquants, à renvoyer.
+ * <p>
+ * Les sessions sont conservées en mémoire : après un redémarrage, le client doit relancer l'upload.
+ * Une session inactive au-delà de app.upload.session-ttl-minutes est supprimée avec son fichier.
+ * Seuls les types MIME listés dans app.upload.types-mime (jokers admis, ex. image/*) sont acceptés.
+ */
+@Service
+public class UploadMorceauxService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadMorceauxService.class);
+
+    // Longueur des colonnes nom et type_mime de la table documents
+    private static final int LONGUEUR_MAX = 255;
+
+    private static final String TYPES_MIME_PAR_DEFAUT = "application/pdf,image/*,text/plain,application/msword,"
+            + "application/vnd.openxmlformats-officedocument.wordprocessingml.document,application/vnd.ms-excel,"
+            + "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private final DocumentService documentService;
+    private final DossierRepository dossierRepository;
+    private final Path repertoire;
+    private final int tailleMorceau;
+    private final long tailleMax;
+    private final Duration dureeVie;
+    private final List<MediaType> typesAutorises;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    public UploadMorceauxService(DocumentService documentService,
+                                 DossierRepository dossierRepository,
+                                 @Value("${app.upload.dir:uploads}") String uploadDir,
+                                 @Value("${app.upload.chunk-size:5242880}") int tailleMorceau,
+                                 @Value("${app.upload.chunked-max-size:2147483648}") long tailleMax,
+                                 @Value("${app.upload.session-ttl-minutes:1440}") long dureeVieMinutes,
+                                 @Value("${app.upload.types-mime:" + TYPES_MIME_PAR_DEFAUT + "}") String typesMime) throws IOException {
+        this.documentService = documentService;
+        this.dossierRepository = dossierRepository;
+        this.repertoire = Paths.get(uploadDir, "chunked").toAbsolutePath().normalize();
+        this.tailleMorceau = tailleMorceau;
+        this.tailleMax = tailleMax;
+        this.dureeVie = Duration.ofMinutes(dureeVieMinutes);
+        this.typesAutorises = MediaType.parseMediaTypes(typesMime);
+        Files.createDirectories(repertoire);
+    }
+
+    public UploadStatutDTO ouvrir(UploadInitDTO init) throws IOException {
+        if (init.dossierId() == null || !dossierRepository.existsById(init.dossierId())) {
+            throw new EntityNotFoundException("Dossier non trouvé avec l'ID: " + init.dossierId());
+        }
+        if (init.taille() == null || init.taille() <= 0 || init.taille() > tailleMax) {
+            throw new IllegalArgumentException("La taille doit être comprise entre 1 et " + tailleMax + " octets");
+        }
+        BlobStore.verifierEmpreinte(init.sha256() != null ? init.sha256().toLowerCase(Locale.ROOT) : null);
+        verifierNom(init.nom());
+        verifierTypeMime(init.typeMime());
+
+        String id = UUID.randomUUID().toString();
+        Path fichier = repertoire.resolve(id + ".part");
+        try (RandomAccessFile preallocation = new RandomAccessFile(fichier.toFile(), "rw")) {
+            preallocation.setLength(init.taille());
+        }
+        Session session = new Session(id, init, fichier, (int) ((init.taille() + tailleMorceau - 1) / tailleMorceau));
+        sessions.put(id, session);
+        log.info("Upload {} ouvert pour le dossier {} ({} octets, {} morceaux)",
+                id, init.dossierId(), init.taille(), session.nombreMorceaux);
+        return statut(session);
+    }
+
+    // Vérifiés dès l'ouverture : sinon l'erreur n'apparaîtrait qu'au rattachement, une fois tout le fichier envoyé
+    private static void verifierNom(String nom) {
+        if (nom == null || nom.isBlank()) {
+            throw new IllegalArgumentException("Le nom du fichier est obligatoire");
+        }
+        if (nom.length() > LONGUEUR_MAX) {
+            throw new IllegalArgumentException("Le nom du fichier ne doit pas dépasser " + LONGUEUR_MAX + " caractères");
+        }
+    }
+
+    private void verifierTypeMime(String typeMime) {
+        if (typeMime == null || typeMime.isBlank()) {
+            throw new IllegalArgumentException("Le type MIME est obligatoire");
+        }
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(typeMime);
+        } catch (InvalidMediaTypeException e) {
+            throw new IllegalArgumentException("Type MIME invalide: " + typeMime);
+        }
+        if (type.isWildcardType() || type.isWildcardSubtype() || typeMime.length() > LONGUEUR_MAX
+                || typesAutorises.stream().noneMatch(autorise -> autorise.includes(type))) {
+            throw new IllegalArgumentException("Type de fichier non autorisé: " + typeMime);
+        }
+    }
+
+    // Écrit un morceau complet à sa position ; renvoyer un morceau déjà reçu le remplace. empreinte (SHA-256 du
+    // morceau) est facultative : si elle est donnée, un morceau altéré est refusé et reste manquant
+    public UploadStatutDTO ecrireMorceau(String id, long offset, InputStream corps, String empreinte) throws IOException {
+        Session session = session(id);
+        String attendue = empreinte != null ? BlobStore.verifierEmpreinte(empreinte.toLowerCase(Locale.ROOT)) : null;
+        if (offset < 0 || offset >= session.taille || offset % tailleMorceau != 0) {
+            throw new IllegalArgumentException("Offset invalide: " + offset + " (multiple de " + tailleMorceau + " attendu)");
+        }
+        long attendu = Math.min(tailleMorceau, session.taille - offset);
+        int index = (int) (offset / tailleMorceau);
+
+        // Le morceau n'est compté qu'une fois entièrement écrit : un envoi interrompu le laisse manquant. Un seul
+        // envoi à la fois par morceau : sinon un envoi en échec pourrait laisser ses octets sous le morceau
+        // marqué reçu par un autre
+        synchronized (session) {
+            if (session.verification) {
+                throw new IllegalStateException("Upload en cours de finalisation: " + id);
+            }
+            if (session.enEcriture.get(index)) {
+                throw new IllegalStateException("Le morceau à l'offset " + offset + " est déjà en cours d'envoi");
+            }
+            session.enEcriture.set(index);
+            session.marquer(index, false);
+        }
+        boolean ecrit = false;
+        try {
+            MessageDigest digest = sha256();
+            try (FileChannel canal = FileChannel.open(session.fichier, StandardOpenOption.WRITE)) {
+                long ecrits = canal.transferFrom(Channels.newChannel(new DigestInputStream(corps, digest)), offset, attendu);
+                if (ecrits != attendu || corps.read() != -1) {
+                    throw new IllegalArgumentException("Le morceau à l'offset " + offset + " doit faire " + attendu + " octets");
+                }
+            }
+            if (attendue != null && !attendue.equals(HexFormat.of().formatHex(digest.digest()))) {
+                throw new IllegalArgumentException("L'empreinte SHA-256 du morceau à l'offset " + offset
+                        + " ne correspond pas à celle annoncée");
+            }
+            ecrit = true;
+        } finally {
+            synchronized (session) {
+                session.enEcriture.clear(index);
+                if (ecrit) {
+                    session.empreintes[index] = attendue;
+                    session.marquer(index, true);
+                }
+            }
+        }
+        return statut(session);
+    }
+
+    public UploadStatutDTO getStatut(String id) {
+        return statut(session(id));
+    }
+
+    public DocumentDTO terminer(String id) throws IOException {
+        Session session = session(id);
+        synchronized (session) {
+            if (session.verification) {
+                throw new IllegalStateException("Upload en cours de finalisation: " + id);
+            }
+            if (!session.complet()) {
+                throw new IllegalStateException("Morceaux manquants: " + manquants(session));
+            }
+            session.verification = true;
+        }
+        // Vérifiée ici plutôt qu'au rattachement, qui consomme le fichier : une erreur laisse la session reprenable
+        boolean conforme = false;
+        try {
+            String empreinte;
+            try (InputStream contenu = Files.newInputStream(session.fichier)) {
+                empreinte = BlobStore.empreinte(contenu);
+            }
+            if (!empreinte.equalsIgnoreCase(session.init.sha256())) {
+                List<Integer> aRenvoyer = marquerSuspects(session);
+                throw new IllegalArgumentException("L'empreinte SHA-256 du fichier ne correspond pas à celle annoncée"
+                        + (aRenvoyer.isEmpty() ? " ; tous les morceaux sont conformes à leur empreinte"
+                        : " ; morceaux à renvoyer: " + aRenvoyer));
+            }
+            conforme = true;
+        } finally {
+            // Conforme : la session est retirée sans rouvrir les écritures, le fichier ne bouge plus
+            synchronized (session) {
+                session.verification = conforme;
+                if (conforme && sessions.remove(id) == null) {
+                    throw new NoSuchElementException("Upload inconnu ou déjà terminé: " + id);
+                }
+            }
+        }
+        try {
+            return documentService.attacherFichier(session.init.dossierId(), session.fichier, session.init.nom(),
+                    session.init.typeMime(), session.init.description(), session.init.sha256());
+        } finally {
+            Files.deleteIfExists(session.fichier);
+        }
+    }
+
+    // Morceaux dont l'empreinte sur disque diffère de celle reçue, sinon tous ceux envoyés sans empreinte
+    private List<Integer> marquerSuspects(Session session) throws IOException {
+        List<Integer> alteres = new ArrayList<>();
+        List<Integer> sansEmpreinte = new ArrayList<>();
+        try (FileChannel canal = FileChannel.open(session.fichier, StandardOpenOption.READ)) {
+            ByteBuffer tampon = ByteBuffer.allocate(64 * 1024);
+            for (int index = 0; index < session.nombreMorceaux; index++) {
+                String attendue = session.empreintes[index];
+                if (attendue == null) {
+                    sansEmpreinte.add(index);
+                    continue;
+                }
+                MessageDigest digest = sha256();
+                long position = (long) index * tailleMorceau;
+                long fin = Math.min(position + tailleMorceau, session.taille);
+                while (position < fin) {
+                    tampon.clear().limit((int) Math.min(tampon.capacity(), fin - position));
+                    int lus = canal.read(tampon, position);
+                    if (lus < 0) {
+                        break;
+                    }
+                    digest.update(tampon.flip());
+                    position += lus;
+                }
+                if (!attendue.equals(HexFormat.of().formatHex(digest.digest()))) {
+                    alteres.add(index);
+                }
+            }
+        }
+        List<Integer> suspects = alteres.isEmpty() ? sansEmpreinte : alteres;
+        for (int index : suspects) {
+            session.marquer(index, false);
+        }
+        return suspects;
+    }
+
+    public void annuler(String id) throws IOException {
+        Session session = sessions.remove(id);
+        if (session == null) {
+            throw new NoSuchElementException("Upload inconnu ou déjà terminé: " + id);
+        }
+        Files.deleteIfExists(session.fichier);
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.session-sweep-ms:3600000}")
+    public void purgerSessionsExpirees() {
+        Instant limite = Instant.now().minus(dureeVie);
+        sessions.values().removeIf(session -> {
+            if (session.derniereActivite.isAfter(limite)) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(session.fichier);
+            } catch (IOException e) {
+                log.warn("Impossible de supprimer le fichier d'upload {}", session.fichier, e);
+            }
+            log.info("Upload {} expiré", session.id);
+            return true;
+        });
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private Session session(String id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            throw new NoSuchElementException("Upload inconnu ou déjà terminé: " + id);
+        }
+        return session;
+    }
+
+    private UploadStatutDTO statut(Session session) {
+        synchronized (session) {
+            long octetsRecus = (long) session.recus.cardinality() * tailleMorceau;
+            if (session.recus.get(session.nombreMorceaux - 1)) {
+                // Le dernier morceau peut être plus court
+                octetsRecus -= (long) session.nombreMorceaux * tailleMorceau - session.taille;
+            }
+            return new UploadStatutDTO(session.id, session.taille, tailleMorceau, session.nombreMorceaux,
+                    octetsRecus, manquants(session), session.complet());
+        }
+    }
+
+    private static List<Integer> manquants(Session session) {
+        List<Integer> manquants = new ArrayList<>();
+        for (int i = session.recus.nextClearBit(0); i < session.nombreMorceaux; i = session.recus.nextClearBit(i + 1)) {
+            manquants.add(i);
+        }
+        return manquants;
+    }
+
+    private static final class Session {
+        private final String id;
+        private final UploadInitDTO init;
+        private final Path fichier;
+        private final long taille;
+        private final int nombreMorceaux;
+        private final BitSet recus;
+        // Morceaux dont un envoi est en cours
+        private final BitSet enEcriture;
+        // Empreinte annoncée de chaque morceau reçu, null s'il a été envoyé sans
+        private final String[] empreintes;
+        // Empreinte du fichier en cours de vérification (terminer) : les écritures sont refusées
+        private boolean verification;
+        private volatile Instant derniereActivite = Instant.now();
+
+        private Session(String id, UploadInitDTO init, Path fichier, int nombreMorceaux) {
+            this.id = id;
+            this.init = init;
+            this.fichier = fichier;
+            this.taille = init.taille();
+            this.nombreMorceaux = nombreMorceaux;
+            this.recus = new BitSet(nombreMorceaux);
+            this.enEcriture = new BitSet(nombreMorceaux);
+            this.empreintes = new String[nombreMorceaux];
+        }
+
+        private synchronized void marquer(int index, boolean recu) {
+            recus.set(index, recu);
+            derniereActivite = Instant.now();
+        }
+
+        private synchronized boolean complet() {
+            return recus.cardinality() == nombreMorceaux;
+        }
+    }
+}
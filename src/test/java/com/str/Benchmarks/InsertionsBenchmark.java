@@ -0,0 +1,121 @@
+package com.str.Benchmarks;
+
+import com.str.Enum.RegimeRetraite;
+import com.str.Enum.StatutDossier;
+import com.str.Enum.TypePaiement;
+import com.str.Models.Carriere;
+import com.str.Models.DossierRetraite;
+import com.str.Models.Paiement;
+import com.str.StrApplication;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit d'insertion de carrières et de paiements par JPA, sans batch JDBC puis avec
+ * (hibernate.jdbc.batch_size), sur l'application démarrée avec le profil test.
+ * <p>
+ * Par défaut la base est H2 en mémoire : sans aller-retour réseau, l'écart mesuré ne reflète que le
+ * travail côté Hibernate et sous-estime le gain du batch sur MySQL. Pour mesurer MySQL (avec
+ * rewriteBatchedStatements=true), passer la connexion au fork JMH :
+ * <pre>
+ * mvn -B test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/classpath.txt) org.openjdk.jmh.Main InsertionsBenchmark \
+ *     -jvmArgsAppend "-Dspring.datasource.url=jdbc:mysql://...&amp;rewriteBatchedStatements=true -Dspring.datasource.username=..."
+ * </pre>
+ * Chaque invocation s'exécute dans une transaction annulée : la base n'est pas modifiée, seuls des ids
+ * sont consommés.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class InsertionsBenchmark {
+
+    private static final int LIGNES = 2000;
+
+    @Param({"1", "100"})
+    private int tailleBatch;
+
+    private ConfigurableApplicationContext contexte;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void demarrer() {
+        contexte = new SpringApplicationBuilder(StrApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+        entityManager = contexte.getBean(EntityManager.class);
+        transactionTemplate = contexte.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() {
+        contexte.close();
+    }
+
+    // Temps moyen par ligne insérée (une carrière et un paiement par tour de boucle)
+    @Benchmark
+    @OperationsPerInvocation(2 * LIGNES)
+    public void inserer() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(tailleBatch);
+            DossierRetraite dossier = new DossierRetraite();
+            dossier.setNumeroSecuriteSociale("BENCH-" + System.nanoTime());
+            dossier.setStatut(StatutDossier.VALIDE);
+            entityManager.persist(dossier);
+
+            for (int i = 0; i < LIGNES; i++) {
+                Carriere carriere = new Carriere();
+                carriere.setDossier(dossier);
+                carriere.setEntreprise("Entreprise " + i);
+                carriere.setPoste("Poste");
+                carriere.setDateDebut(LocalDate.of(2000, 1, 1));
+                carriere.setSalaireMoyen(BigDecimal.valueOf(30000 + i % 1000));
+                carriere.setRegimeRetraite(RegimeRetraite.GENERAL);
+                carriere.setTrimestresValides(4);
+                entityManager.persist(carriere);
+
+                Paiement paiement = new Paiement();
+                paiement.setDossier(dossier);
+                paiement.setMontant(BigDecimal.valueOf(1000));
+                paiement.setDateVersement(LocalDate.now());
+                paiement.setTypePaiement(TypePaiement.PENSION);
+                paiement.setReference("BENCH-" + i);
+                entityManager.persist(paiement);
+
+                if ((i + 1) % 1000 == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    dossier = entityManager.getReference(DossierRetraite.class, dossier.getId());
+                }
+            }
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+    }
+}
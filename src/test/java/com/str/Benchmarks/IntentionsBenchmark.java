@@ -0,0 +1,122 @@
+package com.str.Benchmarks;
+
+import com.str.Services.AutomateIntentions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classement des messages de l'assistant selon le nombre d'intentions : automate (AutomateIntentions) contre
+ * l'ancienne chaîne de contains() parcourue dans l'ordre des règles. Intentions et messages sont générés
+ * (graine fixe) ; un message sur dix contient un mot-clé, les autres ne correspondent à aucune intention,
+ * comme en pratique. Sans base ni contexte Spring :
+ * <pre>
+ * mvn -B test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/classpath.txt) org.openjdk.jmh.Main IntentionsBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class IntentionsBenchmark {
+
+    private static final int MESSAGES = 2000;
+    private static final String[] MOTS = {"je", "voudrais", "savoir", "comment", "mon", "la", "de", "pour", "quand",
+            "est", "ce", "que", "mes", "années", "travail", "étranger", "été", "après", "avoir", "reçu", "courrier"};
+
+    @Param({"10", "100", "1000", "5000"})
+    private int nombreIntentions;
+
+    private List<AutomateIntentions.Intention> intentions;
+    private AutomateIntentions automate;
+    private List<String> messages;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        Random aleatoire = new Random(42);
+        intentions = intentions(nombreIntentions, aleatoire);
+        automate = new AutomateIntentions(new AutomateIntentions.Definition("vide", "defaut", intentions));
+        messages = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            StringBuilder message = new StringBuilder();
+            int longueur = 6 + aleatoire.nextInt(14);
+            for (int m = 0; m < longueur; m++) {
+                message.append(m == 0 ? "" : " ").append(MOTS[aleatoire.nextInt(MOTS.length)]);
+            }
+            if (i % 10 == 0) {
+                message.append(' ').append(intentions.get(aleatoire.nextInt(nombreIntentions)).motsCles().get(0));
+            }
+            messages.add(message.toString());
+        }
+    }
+
+    // Temps moyen par message
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void automate(Blackhole trou) {
+        for (String message : messages) {
+            trou.consume(automate.classer(message));
+        }
+    }
+
+    // Ancien algorithme : message mis en minuscules sans accents, puis contains() règle par règle
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void chaineDeContains(Blackhole trou) {
+        for (String message : messages) {
+            String replie = Normalizer.normalize(message, Normalizer.Form.NFD).replaceAll("\\p{M}+", "")
+                    .toLowerCase(Locale.ROOT).trim();
+            AutomateIntentions.Intention trouvee = null;
+            regles:
+            for (AutomateIntentions.Intention intention : intentions) {
+                for (String motCle : intention.motsCles()) {
+                    if (replie.contains(motCle)) {
+                        trouvee = intention;
+                        break regles;
+                    }
+                }
+            }
+            trou.consume(trouvee);
+        }
+    }
+
+    // Mots-clés de 5 à 10 lettres, trois par intention
+    private static List<AutomateIntentions.Intention> intentions(int nombre, Random aleatoire) {
+        List<AutomateIntentions.Intention> intentions = new ArrayList<>(nombre);
+        for (int i = 0; i < nombre; i++) {
+            List<String> motsCles = new ArrayList<>(3);
+            for (int k = 0; k < 3; k++) {
+                StringBuilder mot = new StringBuilder();
+                int longueur = 5 + aleatoire.nextInt(6);
+                for (int c = 0; c < longueur; c++) {
+                    mot.append((char) ('a' + aleatoire.nextInt(26)));
+                }
+                motsCles.add(mot.toString());
+            }
+            intentions.add(new AutomateIntentions.Intention("intention" + i, motsCles, null, 1.0, nombre - i, false,
+                    "réponse " + i));
+        }
+        return intentions;
+    }
+}
@@ -0,0 +1,118 @@
+package com.str.Services;
+
+import com.str.Enum.RegimeRetraite;
+import com.str.Enum.StatutDossier;
+import com.str.Enum.TypePaiement;
+import com.str.Events.LotPaiementsEvent;
+import com.str.Models.Carriere;
+import com.str.Models.DossierRetraite;
+import com.str.Models.Paiement;
+import com.str.Repositories.CarriereRepository;
+import com.str.Repositories.DossierRepository;
+import com.str.Repositories.PaiementRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Requêtes du prompt d'un dossier, comptées par les statistiques Hibernate : les projections du résumé au
+ * premier prompt, aucune ensuite tant qu'un événement ne vise pas ce dossier.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ContexteDossierServiceTest {
+
+    private static final AtomicInteger NUMERO = new AtomicInteger();
+
+    @Autowired
+    private ContexteDossierService contexteDossierService;
+    @Autowired
+    private DossierRepository dossierRepository;
+    @Autowired
+    private CarriereRepository carriereRepository;
+    @Autowired
+    private PaiementRepository paiementRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void promptSansRequeteUneFoisLeResumeMemorise() {
+        Long dossierId = creerDossier();
+        Long autreId = creerDossier();
+        // Pension calculée et mise en cache à part : seules les projections du résumé sont comptées
+        contexteDossierService.construirePrompt(dossierId, "Quand serai-je payé ?");
+        contexteDossierService.invalider(dossierId);
+
+        assertThat(requetesPourPrompt(dossierId)).isEqualTo(4);
+        assertThat(requetesPourPrompt(dossierId)).isZero();
+
+        // Un lot de paiements n'invalide que les dossiers qu'il a payés
+        eventPublisher.publishEvent(new LotPaiementsEvent(1L, "2024-03", 1, BigDecimal.TEN, Set.of(autreId)));
+        assertThat(requetesPourPrompt(dossierId)).isZero();
+        eventPublisher.publishEvent(new LotPaiementsEvent(1L, "2024-03", 1, BigDecimal.TEN, Set.of(dossierId)));
+        assertThat(requetesPourPrompt(dossierId)).isEqualTo(4);
+    }
+
+    @Test
+    void promptDansLeBudget() {
+        Long dossierId = creerDossier();
+
+        String prompt = contexteDossierService.construirePrompt(dossierId, "Où en est mon dossier ?".repeat(500));
+
+        assertThat(prompt).contains("Statut du dossier : en cours d'instruction", "Derniers paiements :");
+        assertThat(prompt.length()).isLessThanOrEqualTo(
+                (Integer) contexteDossierService.getStatistiques().get("caracteresMax"));
+    }
+
+    private long requetesPourPrompt(Long dossierId) {
+        Statistics statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiques.setStatisticsEnabled(true);
+        statistiques.clear();
+        assertThat(contexteDossierService.construirePrompt(dossierId, "Quand serai-je payé ?"))
+                .contains("Quand serai-je payé ?");
+        return statistiques.getPrepareStatementCount();
+    }
+
+    private Long creerDossier() {
+        return transactionTemplate.execute(status -> {
+            int numero = NUMERO.incrementAndGet();
+            DossierRetraite dossier = new DossierRetraite();
+            dossier.setNumeroSecuriteSociale(String.format("C%012d", numero));
+            dossier.setStatut(StatutDossier.EN_COURS);
+            dossierRepository.save(dossier);
+            Carriere carriere = new Carriere();
+            carriere.setDossier(dossier);
+            carriere.setEntreprise("Entreprise");
+            carriere.setPoste("Poste");
+            carriere.setDateDebut(LocalDate.of(2000, 1, 1));
+            carriere.setSalaireMoyen(new BigDecimal("30000.00"));
+            carriere.setRegimeRetraite(RegimeRetraite.GENERAL);
+            carriere.setTrimestresValides(40);
+            carriereRepository.save(carriere);
+            Paiement paiement = new Paiement();
+            paiement.setDossier(dossier);
+            paiement.setMontant(new BigDecimal("1000.00"));
+            paiement.setDateVersement(LocalDate.of(2024, 2, 15));
+            paiement.setTypePaiement(TypePaiement.PENSION);
+            paiementRepository.save(paiement);
+            return dossier.getId();
+        });
+    }
+}
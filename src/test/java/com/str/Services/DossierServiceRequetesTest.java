@@ -0,0 +1,139 @@
+package com.str.Services;
+
+import com.str.Enum.RegimeRetraite;
+import com.str.Enum.StatutDossier;
+import com.str.Enum.TypePaiement;
+import com.str.Enum.VueDossier;
+import com.str.Models.Beneficiaire;
+import com.str.Models.Carriere;
+import com.str.Models.Document;
+import com.str.Models.DossierRetraite;
+import com.str.Models.Paiement;
+import com.str.Repositories.CarriereRepository;
+import com.str.Repositories.DocumentRepository;
+import com.str.Repositories.DossierRepository;
+import com.str.Repositories.PaiementRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nombre de requêtes de la liste des dossiers selon la vue, compté par les statistiques Hibernate : aucune
+ * requête par dossier (chargement paresseux ligne à ligne), seulement une par lot de default_batch_fetch_size.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DossierServiceRequetesTest {
+
+    private static final AtomicInteger NUMERO = new AtomicInteger();
+
+    @Autowired
+    private DossierService dossierService;
+    @Autowired
+    private DossierRepository dossierRepository;
+    @Autowired
+    private CarriereRepository carriereRepository;
+    @Autowired
+    private PaiementRepository paiementRepository;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${spring.jpa.properties.hibernate.default_batch_fetch_size}")
+    private int tailleLot;
+
+    @ParameterizedTest
+    @EnumSource(VueDossier.class)
+    void listeSansRequeteParDossier(VueDossier vue) {
+        creerDossiers(5);
+        assertThat(requetesPourListe(vue)).isEqualTo(requetesAttendues(vue));
+        creerDossiers(40);
+        assertThat(requetesPourListe(vue)).isEqualTo(requetesAttendues(vue));
+    }
+
+    // Dossiers (carrières jointes sauf en résumé), puis en vue complète paiements et documents par lots
+    private long requetesAttendues(VueDossier vue) {
+        long lots = (dossierRepository.count() + tailleLot - 1) / tailleLot;
+        return vue == VueDossier.COMPLET ? 1 + 2 * lots : 1;
+    }
+
+    // Requêtes d'une liste, pensions déjà en cache (elles sont comptées à part, une requête par paquet de 1000)
+    private long requetesPourListe(VueDossier vue) {
+        dossierService.getAllDossiers(vue);
+        Statistics statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiques.setStatisticsEnabled(true);
+        statistiques.clear();
+        assertThat(dossierService.getAllDossiers(vue)).isNotEmpty();
+        return statistiques.getPrepareStatementCount();
+    }
+
+    private void creerDossiers(int nombre) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < nombre; i++) {
+                int numero = NUMERO.incrementAndGet();
+                Beneficiaire beneficiaire = new Beneficiaire();
+                beneficiaire.setNom("Nom" + numero);
+                beneficiaire.setPrenom("Prenom" + numero);
+                DossierRetraite dossier = new DossierRetraite();
+                dossier.setNumeroSecuriteSociale(String.format("T%012d", numero));
+                dossier.setBeneficiaire(beneficiaire);
+                dossier.setStatut(StatutDossier.EN_COURS);
+                dossierRepository.save(dossier);
+                for (int k = 0; k < 2; k++) {
+                    carriereRepository.save(carriere(dossier, k));
+                    paiementRepository.save(paiement(dossier, k));
+                    documentRepository.save(document(dossier, k));
+                }
+            }
+        });
+    }
+
+    private static Carriere carriere(DossierRetraite dossier, int k) {
+        Carriere carriere = new Carriere();
+        carriere.setDossier(dossier);
+        carriere.setEntreprise("Entreprise " + k);
+        carriere.setPoste("Poste " + k);
+        carriere.setDateDebut(LocalDate.of(2000 + 10 * k, 1, 1));
+        carriere.setSalaireMoyen(new BigDecimal("30000.00"));
+        carriere.setRegimeRetraite(RegimeRetraite.GENERAL);
+        carriere.setTrimestresValides(40);
+        return carriere;
+    }
+
+    private static Paiement paiement(DossierRetraite dossier, int k) {
+        Paiement paiement = new Paiement();
+        paiement.setDossier(dossier);
+        paiement.setMontant(new BigDecimal("1000.00"));
+        paiement.setDateVersement(LocalDate.of(2024, 1 + k, 15));
+        paiement.setTypePaiement(TypePaiement.PENSION);
+        return paiement;
+    }
+
+    private static Document document(DossierRetraite dossier, int k) {
+        Document document = new Document();
+        document.setDossier(dossier);
+        document.setNom("Document " + k);
+        document.setNomFichier("document-" + k + ".pdf");
+        document.setType("PDF");
+        document.setTypeMime("application/pdf");
+        document.setDateUpload(LocalDateTime.now());
+        return document;
+    }
+}
@@ -0,0 +1,69 @@
+package com.str.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Rendu de GabaritPrompt dans son budget : sections abandonnées à partir de la première qui ne tient plus,
+ * question tronquée sans couper de paire de substitution.
+ */
+class GabaritPromptTest {
+
+    // Texte fixe de 5 caractères (« C: » puis « \nQ: ») : 25 libres, 12 au plus pour la question, 13 au moins pour le contexte
+    private static final String TEXTE = "C:{contexte}\nQ:{question}";
+    private final GabaritPrompt gabarit = new GabaritPrompt(TEXTE, 30);
+
+    @Test
+    void toutesLesSectionsTiennent() {
+        assertThat(gabarit.rendre(List.of("Statut", "Pension"), "Quand ?"))
+                .isEqualTo("C:Statut\nPension\nQ:Quand ?");
+    }
+
+    @Test
+    void sectionsAbandonneesApresLaPremiereQuiNeTientPas() {
+        // Budget du contexte : 13 ; « aaaaa » (5) puis « bbbbbbb » (1 + 7) tiennent, « c » (1 + 1) non
+        String rendu = gabarit.rendre(List.of("aaaaa", "bbbbbbb", "c"), "question de 12".substring(0, 12));
+
+        assertThat(rendu).isEqualTo("C:aaaaa\nbbbbbbb\nQ:question de");
+        assertThat(rendu.length()).isLessThanOrEqualTo(gabarit.getCaracteresMax());
+    }
+
+    @Test
+    void placeDeLaQuestionCourteRendueAuContexte() {
+        // Question vide : tout le budget libre (25) va au contexte ; « c » (1 + 1) ne tient plus
+        String rendu = gabarit.rendre(List.of("aaaaaaaaaa", "bbbbbbbbbbbbb", "c"), " ");
+
+        assertThat(rendu).isEqualTo("C:aaaaaaaaaa\nbbbbbbbbbbbbb\nQ:");
+    }
+
+    @Test
+    void questionTronqueeAvecMarque() {
+        String rendu = gabarit.rendre(List.of(), "Quel est mon âge de départ ?");
+
+        assertThat(rendu).isEqualTo("C:\nQ:Quel est mo…");
+        assertThat(rendu.length()).isLessThanOrEqualTo(gabarit.getCaracteresMax());
+    }
+
+    @Test
+    void coupureSansDemiCaractere() {
+        // Le 11e caractère est le début d'une paire de substitution : la coupure passe avant elle
+        String question = "0123456789\uD83D\uDE00 et la suite";
+
+        String rendu = gabarit.rendre(List.of(), question);
+
+        assertThat(rendu).isEqualTo("C:\nQ:0123456789…");
+        assertThat(rendu.chars().noneMatch(c -> Character.isSurrogate((char) c))).isTrue();
+    }
+
+    @Test
+    void gabaritSansEmplacementRefuse() {
+        assertThatThrownBy(() -> new GabaritPrompt("Question : {question}", 100))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new GabaritPrompt(TEXTE, 6))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,196 @@
+package com.str.Services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.str.DTO.ReponseChatDTO;
+import com.str.Enum.SourceReponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * GeminiService contre un faux modèle local (serveur HTTP du JDK) : réponse, réponse en flux, repli, disjoncteur
+ * et cloisons.
+ */
+class GeminiServiceTest {
+
+    private static final Duration ATTENTE = Duration.ofSeconds(5);
+    private static final String REPONSE = """
+            {"candidates":[{"content":{"parts":[{"text":"Réponse du modèle"}]},"finishReason":"STOP"}]}
+            """;
+    private static final List<String> MORCEAUX = List.of(
+            "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"Réponse \"}]}}]}",
+            "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"en flux\"}]},\"finishReason\":\"STOP\"}]}");
+
+    private HttpServer serveur;
+    private final AtomicInteger requetes = new AtomicInteger();
+    private final List<String> cles = new ArrayList<>();
+    private volatile int statut = 200;
+    // Retient le flux du faux modèle après son premier morceau, tant qu'il n'est pas ouvert
+    private volatile CountDownLatch suite = new CountDownLatch(0);
+    private ReponsesPredefinies reponsesPredefinies;
+    private GeminiService service;
+
+    @BeforeEach
+    void demarrer() throws IOException {
+        serveur = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serveur.createContext("/generer", this::repondre);
+        serveur.createContext("/flux", this::repondreEnFlux);
+        serveur.setExecutor(Executors.newCachedThreadPool());
+        serveur.start();
+        reponsesPredefinies = new ReponsesPredefinies(new DefaultResourceLoader(), new ObjectMapper(),
+                "classpath:assistant/intentions.json");
+        service = service("cle-test");
+    }
+
+    @AfterEach
+    void arreter() {
+        service.fermer();
+        serveur.stop(0);
+    }
+
+    @Test
+    void reponseDuModele() {
+        ReponseChatDTO reponse = service.repondre("Quand puis-je partir ?").block(ATTENTE);
+
+        assertThat(reponse).isEqualTo(new ReponseChatDTO("Réponse du modèle", SourceReponse.GEMINI));
+        assertThat(cles).containsExactly("cle-test");
+    }
+
+    @Test
+    void sansCleLeModeleNestPasAppele() {
+        GeminiService sansCle = service("");
+        try {
+            ReponseChatDTO reponse = sansCle.repondre("Quand puis-je partir ?").block(ATTENTE);
+
+            assertThat(reponse.source()).isEqualTo(SourceReponse.REGLES);
+            assertThat(reponse.message()).isEqualTo(reponsesPredefinies.repondre("Quand puis-je partir ?"));
+            assertThat(requetes).hasValue(0);
+        } finally {
+            sansCle.fermer();
+        }
+    }
+
+    @Test
+    void erreurClienteNOuvrePasLeDisjoncteur() {
+        statut = 400;
+        for (int i = 0; i < 4; i++) {
+            assertThat(service.repondre("Question " + i).block(ATTENTE).source()).isEqualTo(SourceReponse.REGLES);
+        }
+
+        assertThat(requetes).hasValue(4);
+        assertThat(service.getStatistiques()).containsEntry("disjoncteur", "FERME");
+    }
+
+    @Test
+    void erreursServeurOuvrentLeDisjoncteur() {
+        statut = 503;
+        service.repondre("Question 1").block(ATTENTE);
+        service.repondre("Question 2").block(ATTENTE);
+        assertThat(service.getStatistiques()).containsEntry("disjoncteur", "OUVERT");
+
+        statut = 200;
+        assertThat(service.repondre("Question 3").block(ATTENTE).source()).isEqualTo(SourceReponse.REGLES);
+        assertThat(requetes).hasValue(2);
+    }
+
+    @Test
+    void appelNonSouscritNeRetientPasDePlace() {
+        List<Mono<String>> assembles = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            assembles.add(service.generateText("Question " + i));
+        }
+        assertThat(service.getStatistiques()).containsEntry("appelsEnCours", 0);
+
+        assertThat(assembles.get(4).block(ATTENTE)).isEqualTo("Réponse du modèle");
+        // Place rendue en fin de flux, éventuellement juste après que block() a reçu la réponse
+        await().atMost(ATTENTE).untilAsserted(() ->
+                assertThat(service.getStatistiques()).containsEntry("appelsEnCours", 0));
+    }
+
+    @Test
+    void reponseEnFlux() {
+        List<ServerSentEvent<String>> evenements = service.repondreEnFlux("Quand puis-je partir ?")
+                .collectList().block(ATTENTE);
+
+        assertThat(evenements).extracting(ServerSentEvent::event).containsExactly("fragment", "fragment", "fin");
+        assertThat(evenements).extracting(ServerSentEvent::data).containsExactly("Réponse ", "en flux", "GEMINI");
+    }
+
+    @Test
+    void fluxEnCoursNeRetientPasLesPlacesDesAppels() throws InterruptedException {
+        suite = new CountDownLatch(1);
+        List<ServerSentEvent<String>> premier = new ArrayList<>();
+        CountDownLatch termine = new CountDownLatch(1);
+        service.repondreEnFlux("Question longue").doFinally(signal -> termine.countDown()).subscribe(premier::add);
+        await().atMost(ATTENTE).until(() -> premier.size() == 1);
+        assertThat(service.getStatistiques()).containsEntry("fluxEnCours", 1).containsEntry("appelsEnCours", 0);
+
+        // L'unique place de flux est prise : un second flux se replie, une réponse simple passe encore
+        assertThat(service.repondreEnFlux("Autre question").collectList().block(ATTENTE))
+                .extracting(ServerSentEvent::data).last().isEqualTo("REGLES");
+        assertThat(service.repondre("Question simple").block(ATTENTE).source()).isEqualTo(SourceReponse.GEMINI);
+
+        suite.countDown();
+        assertThat(termine.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(premier).extracting(ServerSentEvent::data).containsExactly("Réponse ", "en flux", "GEMINI");
+        await().atMost(ATTENTE).untilAsserted(() ->
+                assertThat(service.getStatistiques()).containsEntry("fluxEnCours", 0));
+    }
+
+    private GeminiService service(String cle) {
+        String base = "http://127.0.0.1:" + serveur.getAddress().getPort();
+        return new GeminiService(reponsesPredefinies, new ReponseCache(100, 60, 0.85), WebClient.builder(),
+                base + "/generer", base + "/flux", cle, 2, 1, 1000, 2000, 2, 60_000, false);
+    }
+
+    private void repondre(HttpExchange echange) throws IOException {
+        requetes.incrementAndGet();
+        cles.add(echange.getRequestHeaders().getFirst("x-goog-api-key"));
+        echange.getRequestBody().readAllBytes();
+        byte[] corps = (statut == 200 ? REPONSE : "{\"error\":{\"code\":" + statut + "}}").getBytes(StandardCharsets.UTF_8);
+        echange.getResponseHeaders().set("Content-Type", "application/json");
+        echange.sendResponseHeaders(statut, corps.length);
+        try (OutputStream sortie = echange.getResponseBody()) {
+            sortie.write(corps);
+        }
+    }
+
+    private void repondreEnFlux(HttpExchange echange) throws IOException {
+        requetes.incrementAndGet();
+        echange.getRequestBody().readAllBytes();
+        echange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        echange.sendResponseHeaders(200, 0);
+        try (OutputStream sortie = echange.getResponseBody()) {
+            for (int i = 0; i < MORCEAUX.size(); i++) {
+                if (i > 0 && !suite.await(5, TimeUnit.SECONDS)) {
+                    return;
+                }
+                sortie.write(("data: " + MORCEAUX.get(i) + "\n\n").getBytes(StandardCharsets.UTF_8));
+                sortie.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}